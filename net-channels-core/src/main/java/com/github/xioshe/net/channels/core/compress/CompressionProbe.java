@@ -0,0 +1,119 @@
+package com.github.xioshe.net.channels.core.compress;
+
+/**
+ * 压缩预判：根据文件头魔数和字节熵快速判断数据是否值得 gzip 压缩。
+ * <br/>
+ * JPEG、ZIP 等已压缩格式以及加密数据的字节分布接近均匀，压缩不但浪费 CPU，还会多出 gzip 头尾和 deflate 的开销。
+ * 只采样数据的头、中、尾三段，耗时与数据大小无关。
+ */
+public final class CompressionProbe {
+    /**
+     * 参与采样的最大字节数，数据较大时从头、中、尾各取三分之一
+     */
+    static final int SAMPLE_SIZE = 12 * 1024;
+    /**
+     * 小于该大小的数据熵估计不可靠，总是压缩。样本少于 256 个取值的数倍时，随机数据的熵估计明显偏低：
+     * 256 字节约 7.17，1024 字节约 7.81（修正前）
+     */
+    static final int MIN_PROBE_SIZE = 1024;
+    /**
+     * 字节熵（bit/byte）超过该值时视为不可压缩，随机数据约为 7.98，普通文本和 JSON 在 4~6 之间
+     */
+    static final double ENTROPY_THRESHOLD = 7.5;
+
+    // 常见已压缩格式的文件头
+    private static final byte[][] MAGIC_NUMBERS = {
+            {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF},                         // JPEG
+            {(byte) 0x89, 'P', 'N', 'G'},                                     // PNG
+            {'G', 'I', 'F', '8'},                                             // GIF
+            {'P', 'K', 0x03, 0x04},                                           // ZIP、JAR、DOCX、XLSX
+            {0x1F, (byte) 0x8B},                                              // GZIP
+            {'7', 'z', (byte) 0xBC, (byte) 0xAF, 0x27, 0x1C},                 // 7z
+            {'R', 'a', 'r', '!'},                                             // RAR
+            {(byte) 0xFD, '7', 'z', 'X', 'Z', 0x00},                          // XZ
+            {'B', 'Z', 'h'},                                                  // BZIP2
+            {0x28, (byte) 0xB5, 0x2F, (byte) 0xFD},                           // Zstandard
+    };
+
+    private CompressionProbe() {
+    }
+
+    /**
+     * @return 数据以已压缩格式的文件头开头，或采样字节熵超过阈值时返回 false
+     */
+    public static boolean isCompressible(byte[] data) {
+        return isCompressible(data, data.length);
+    }
+
+    /**
+     * 只判断 data 的前 length 个字节，用于流式拆分时的预读缓冲区
+     */
+    public static boolean isCompressible(byte[] data, int length) {
+        if (length < MIN_PROBE_SIZE) {
+            return true;
+        }
+        if (hasCompressedMagic(data, length)) {
+            return false;
+        }
+        return entropy(data, length) < ENTROPY_THRESHOLD;
+    }
+
+    private static boolean hasCompressedMagic(byte[] data, int length) {
+        for (byte[] magic : MAGIC_NUMBERS) {
+            if (startsWith(data, length, magic)) {
+                return true;
+            }
+        }
+        // MP4、MOV 等 ISO 媒体文件在第 4 字节处为 ftyp
+        return length > 8 && data[4] == 'f' && data[5] == 't' && data[6] == 'y' && data[7] == 'p';
+    }
+
+    private static boolean startsWith(byte[] data, int length, byte[] magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (data[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 采样字节的香农熵，单位 bit/byte。按出现频率直接估计的熵偏低，
+     * 加上 Miller–Madow 修正 (K - 1) / (2n ln 2)，K 为出现过的取值数，n 为采样字节数
+     */
+    static double entropy(byte[] data, int length) {
+        int[] counts = new int[256];
+        int sampled;
+        if (length <= SAMPLE_SIZE) {
+            count(counts, data, 0, length);
+            sampled = length;
+        } else {
+            int window = SAMPLE_SIZE / 3;
+            count(counts, data, 0, window);
+            count(counts, data, (length - window) / 2, window);
+            count(counts, data, length - window, window);
+            sampled = window * 3;
+        }
+
+        double entropy = 0;
+        int observed = 0;
+        for (int c : counts) {
+            if (c > 0) {
+                double p = (double) c / sampled;
+                entropy -= p * Math.log(p);
+                observed++;
+            }
+        }
+        entropy += (observed - 1) / (2.0 * sampled);
+        return Math.min(8.0, entropy / Math.log(2));
+    }
+
+    private static void count(int[] counts, byte[] data, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            counts[data[i] & 0xff]++;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -33,6 +35,43 @@ public class DataCompressor {
         }
     }
 
+    /**
+     * 流式压缩，将输入流的数据以 gzip 格式写入输出流，不在内存中保留完整数据。
+     * <br/>
+     * 完成后会 finish gzip 流，但不会关闭 {@code out}
+     *
+     * @return 读取的原始数据字节数
+     */
+    public long compress(InputStream in, OutputStream out) {
+        try {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long total = 0;
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                gzip.write(buffer, 0, len);
+                total += len;
+            }
+            gzip.finish();
+            return total;
+        } catch (Exception e) {
+            log.error("Failed to compress stream", e);
+            throw new NetChannelsException("Compression failed", e);
+        }
+    }
+
+    /**
+     * 流式解压，返回的流按需从 {@code in} 读取 gzip 数据并解压，关闭时同时关闭 {@code in}
+     */
+    public InputStream decompressStream(InputStream in) {
+        try {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        } catch (Exception e) {
+            log.error("Failed to decompress stream", e);
+            throw new NetChannelsException("Decompression failed: " + e.getMessage(), e);
+        }
+    }
+
     public byte[] decompress(byte[] compressedData) {
         if (compressedData == null || compressedData.length == 0) {
             throw new NetChannelsException("Compressed data cannot be null or empty");
@@ -5,9 +5,12 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.xioshe.net.channels.core.cache.TransferDataCache;
+import com.github.xioshe.net.channels.core.fountain.FountainDecoder;
 import com.github.xioshe.net.channels.core.transfer.DataAssembler;
+import com.github.xioshe.net.channels.core.transfer.OutboundPayload;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -20,6 +23,7 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.unit.DataSize;
 
 import java.time.Duration;
 import java.util.List;
@@ -33,18 +37,45 @@ public class CacheConfig {
     @Value("${net.channels.cache.timeout:1h}")
     private Duration cacheTimeout;
 
+    /**
+     * 内容寻址缓存保存完整的加密数据，按字节数限制总大小，超出后淘汰最久未使用的数据
+     */
+    @Value("${net.channels.cache.digest-max-size:64MB}")
+    private DataSize digestMaxSize;
+
     @Bean
     @ConditionalOnProperty(name = "net.channels.inbound.enabled", havingValue = "true")
     public TransferDataCache<DataAssembler.ByteBufferDataBuffer> inboundDataCache(CacheManager cacheManager) {
         return new TransferDataCache<>("in:packets", cacheManager);
     }
 
+    @Bean
+    @ConditionalOnProperty(name = "net.channels.inbound.enabled", havingValue = "true")
+    public TransferDataCache<FountainDecoder> inboundFountainCache(CacheManager cacheManager) {
+        return new TransferDataCache<>("in:fountain", cacheManager);
+    }
+
     @Bean
     @ConditionalOnProperty(name = "net.channels.outbound.enabled", havingValue = "true")
     public TransferDataCache<List<String>> outboundDataCache(CacheManager cacheManager) {
         return new TransferDataCache<>("out:packets", cacheManager);
     }
 
+    @Bean
+    @ConditionalOnProperty(name = "net.channels.outbound.enabled", havingValue = "true")
+    public TransferDataCache<OutboundPayload> outboundPayloadCache(CacheManager cacheManager) {
+        return new TransferDataCache<>("out:payloads", cacheManager);
+    }
+
+    /**
+     * 内容寻址缓存只用于本地缓存：Redis 无法按字节数限制单个缓存的大小
+     */
+    @Bean
+    @ConditionalOnExpression("${net.channels.outbound.enabled:false} and !'${net.channels.cache.type:caffeine}'.equalsIgnoreCase('redis')")
+    public TransferDataCache<byte[]> outboundDigestCache(CacheManager cacheManager) {
+        return new TransferDataCache<>("out:digests", cacheManager);
+    }
+
     @Bean
     public CacheManager cacheManager(
             @Autowired(required = false) ObjectMapper objectMapper,
@@ -79,6 +110,11 @@ public class CacheConfig {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
         cacheManager.setCaffeine(Caffeine.newBuilder()
                 .expireAfterAccess(cacheTimeout));
+        cacheManager.registerCustomCache("out:digests", Caffeine.newBuilder()
+                .expireAfterAccess(cacheTimeout)
+                .maximumWeight(digestMaxSize.toBytes())
+                .weigher((Object digest, Object payload) -> ((byte[]) payload).length)
+                .build());
         return cacheManager;
     }
 }
\ No newline at end of file
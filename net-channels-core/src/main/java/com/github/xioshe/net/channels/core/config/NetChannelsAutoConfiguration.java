@@ -5,7 +5,16 @@ import com.github.xioshe.net.channels.common.lock.template.LockTemplate;
 import com.github.xioshe.net.channels.core.cache.TransferDataCache;
 import com.github.xioshe.net.channels.core.compress.DataCompressor;
 import com.github.xioshe.net.channels.core.crypto.AESCipher;
-import com.github.xioshe.net.channels.core.protocol.QRCodeProtocol;
+import com.github.xioshe.net.channels.core.delta.BlockIndex;
+import com.github.xioshe.net.channels.core.delta.BlockStore;
+import com.github.xioshe.net.channels.core.delta.FileBlockIndex;
+import com.github.xioshe.net.channels.core.delta.FileBlockStore;
+import com.github.xioshe.net.channels.core.fountain.FountainDecoder;
+import com.github.xioshe.net.channels.core.job.OutboundJobExecutor;
+import com.github.xioshe.net.channels.core.playback.FrameSizeController;
+import com.github.xioshe.net.channels.core.protocol.ScannerProfile;
+import com.github.xioshe.net.channels.core.protocol.TransferProtocol;
+import com.github.xioshe.net.channels.core.render.QRCodeRenderer;
 import com.github.xioshe.net.channels.core.session.InMemorySessionStorage;
 import com.github.xioshe.net.channels.core.session.RedisSessionStorage;
 import com.github.xioshe.net.channels.core.session.SessionManager;
@@ -13,7 +22,11 @@ import com.github.xioshe.net.channels.core.session.SessionStorage;
 import com.github.xioshe.net.channels.core.session.TimestampSessionIdGenerator;
 import com.github.xioshe.net.channels.core.transfer.DataAssembler;
 import com.github.xioshe.net.channels.core.transfer.DataSplitter;
+import com.github.xioshe.net.channels.core.transfer.OutboundPayload;
+import com.github.xioshe.net.channels.core.transfer.SegmentWriter;
+import com.github.xioshe.net.channels.core.transfer.TransferEstimator;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -57,8 +70,8 @@ public class NetChannelsAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public QRCodeProtocol qrCodeProtocol() {
-        return new QRCodeProtocol();
+    public TransferProtocol transferProtocol(NetChannelsProperties properties) {
+        return properties.getEncoding().createProtocol();
     }
 
     @Bean
@@ -79,15 +92,39 @@ public class NetChannelsAutoConfiguration {
         return new TimestampSessionIdGenerator();
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "net.channels.block-index-file")
+    public BlockIndex blockIndex(NetChannelsProperties properties) {
+        return new FileBlockIndex(properties.getBlockIndexFile());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "net.channels.block-store-directory")
+    public BlockStore blockStore(NetChannelsProperties properties) {
+        return new FileBlockStore(properties.getBlockStoreDirectory());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "net.channels.segment-directory")
+    public SegmentWriter segmentWriter(NetChannelsProperties properties) {
+        return new SegmentWriter(properties.getSegmentDirectory());
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public DataSplitter dataSplitter(
             SessionManager sessionManager,
-            QRCodeProtocol protocol,
+            TransferProtocol protocol,
             DataCompressor compressor,
             AESCipher cipher,
             TimestampSessionIdGenerator sessionIdGenerator,
             TransferDataCache<List<String>> splitterDataCache,
+            @Autowired(required = false) TransferDataCache<OutboundPayload> splitterPayloadCache,
+            @Autowired(required = false) TransferDataCache<byte[]> splitterDigestCache,
+            @Autowired(required = false) BlockIndex blockIndex,
             NetChannelsProperties properties
     ) {
         return DataSplitter.builder()
@@ -97,19 +134,75 @@ public class NetChannelsAutoConfiguration {
                 .cipher(cipher)
                 .sessionIdGenerator(sessionIdGenerator)
                 .dataCache(splitterDataCache)
+                .payloadCache(splitterPayloadCache)
+                .digestCache(splitterDigestCache)
+                .blockIndex(blockIndex)
+                .retransmitMode(properties.getRetransmitMode())
                 .maxQRDataSize(properties.getMaxQrDataSize())
+                .scannerProfile(properties.getScannerProfile())
+                .parallelThreshold(properties.getSplitParallelThreshold())
+                .segmentSize(properties.getSegmentSize())
                 .build();
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public TransferEstimator transferEstimator(DataSplitter dataSplitter) {
+        return new TransferEstimator(dataSplitter);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "net.channels.render.enabled", havingValue = "true")
+    public QRCodeRenderer qrCodeRenderer(NetChannelsProperties properties) {
+        ScannerProfile profile = properties.getScannerProfile();
+        // 配置了扫码设备档案时固定二维码版本和纠错等级，各帧尺寸一致
+        return QRCodeRenderer.builder()
+                .qrVersion(profile != null ? profile.getQrVersion() : null)
+                .errorCorrectionLevel(profile != null ? profile.getErrorCorrectionLevel() : null)
+                .format(properties.getRenderFormat())
+                .moduleSize(properties.getRenderModuleSize())
+                .maxCacheBytes(properties.getRenderCacheBytes())
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "net.channels.adaptive.enabled", havingValue = "true")
+    public FrameSizeController frameSizeController(TransferProtocol transferProtocol,
+                                                   NetChannelsProperties properties) {
+        return FrameSizeController.builder()
+                .protocol(transferProtocol)
+                .initialProfile(properties.getScannerProfile())
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "net.channels.outbound.enabled", havingValue = "true")
+    public OutboundJobExecutor outboundJobExecutor(DataSplitter dataSplitter,
+                                                   TimestampSessionIdGenerator sessionIdGenerator,
+                                                   NetChannelsProperties properties) {
+        return new OutboundJobExecutor(dataSplitter, sessionIdGenerator,
+                properties.getJobWorkers(),
+                properties.isJobVirtualThreads(),
+                properties.getJobQueueCapacity(),
+                properties.getJobBulkThreshold());
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public DataAssembler dataAssembler(
             SessionManager sessionManager,
-            QRCodeProtocol protocol,
+            TransferProtocol protocol,
             DataCompressor compressor,
             AESCipher cipher,
             TransferDataCache<DataAssembler.ByteBufferDataBuffer> assemblerDataCache,
-            LockTemplate lockTemplate
+            @Autowired(required = false) TransferDataCache<FountainDecoder> fountainCache,
+            @Autowired(required = false) BlockStore blockStore,
+            @Autowired(required = false) SegmentWriter segmentWriter,
+            LockTemplate lockTemplate,
+            NetChannelsProperties properties
     ) {
         return DataAssembler.builder()
                 .sessionManager(sessionManager)
@@ -117,6 +210,10 @@ public class NetChannelsAutoConfiguration {
                 .compressor(compressor)
                 .cipher(cipher)
                 .dataCache(assemblerDataCache)
+                .fountainCache(fountainCache)
+                .blockStore(blockStore)
+                .segmentWriter(segmentWriter)
+                .archiveDirectory(properties.getArchiveDirectory())
                 .lockTemplate(lockTemplate)
                 .build();
     }
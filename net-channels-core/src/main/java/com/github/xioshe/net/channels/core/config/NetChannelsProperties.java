@@ -1,8 +1,15 @@
 package com.github.xioshe.net.channels.core.config;
 
+import com.github.xioshe.net.channels.core.protocol.QRCodeEncoding;
+import com.github.xioshe.net.channels.core.protocol.ScannerProfile;
+import com.github.xioshe.net.channels.core.render.QRCodeRenderer;
+import com.github.xioshe.net.channels.core.render.RenderedFrame;
+import com.github.xioshe.net.channels.core.transfer.DataSplitter;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.nio.file.Path;
+
 @Data
 @ConfigurationProperties(prefix = "net.channels")
 public class NetChannelsProperties {
@@ -12,10 +19,20 @@ public class NetChannelsProperties {
     private String encryptionKey = "1234567890abvdef";
 
     /**
-     * QR 码最大数据容量
+     * QR 码最大数据容量，按所选编码方式的二维码模式计算字符数
      */
     private int maxQrDataSize = 1024;
 
+    /**
+     * 数据包到二维码数据的编码方式
+     */
+    private QRCodeEncoding encoding = QRCodeEncoding.BASE64;
+
+    /**
+     * 扫码设备档案，设置后按设备实际的二维码容量分片，覆盖 maxQrDataSize
+     */
+    private ScannerProfile scannerProfile;
+
     /**
      * 最大会话数量
      */
@@ -26,4 +43,73 @@ public class NetChannelsProperties {
      */
     private int maxSessionTimeoutSeconds = 60;
 
-}
\ No newline at end of file
+    /**
+     * 并行编码分片的阈值（字节），加密后数据小于该值时顺序编码
+     */
+    private int splitParallelThreshold = 1024 * 1024;
+
+    /**
+     * 重传数据的保留方式，REGENERATE 只缓存加密数据，重传时重新生成二维码数据
+     */
+    private DataSplitter.RetransmitMode retransmitMode = DataSplitter.RetransmitMode.CACHE_FRAMES;
+
+    /**
+     * 异步导出任务的工作线程数，即同时执行的任务数上限
+     */
+    private int jobWorkers = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 异步导出任务是否使用虚拟线程
+     */
+    private boolean jobVirtualThreads = false;
+
+    /**
+     * 异步导出任务的排队数量上限
+     */
+    private int jobQueueCapacity = 1000;
+
+    /**
+     * 未指定优先级时，达到该大小（字节）的导出任务进入批量通道
+     */
+    private int jobBulkThreshold = 1024 * 1024;
+
+    /**
+     * 发送端已发送分块索引文件，设置后支持增量传输
+     */
+    private Path blockIndexFile;
+
+    /**
+     * 接收端分块存储目录，设置后支持接收增量传输
+     */
+    private Path blockStoreDirectory;
+
+    /**
+     * 分段传输时每个分段的原始数据大小（字节）
+     */
+    private int segmentSize = 64 * 1024 * 1024;
+
+    /**
+     * 接收端分段传输的文件目录，设置后支持接收分段传输
+     */
+    private Path segmentDirectory;
+
+    /**
+     * 接收端多文件归档的解包目录，设置后支持接收归档传输
+     */
+    private Path archiveDirectory;
+
+    /**
+     * 服务端渲染二维码图像的输出格式，需要开启 net.channels.render.enabled
+     */
+    private RenderedFrame.Format renderFormat = RenderedFrame.Format.PNG;
+
+    /**
+     * 渲染二维码时每个模块的像素数
+     */
+    private int renderModuleSize = 4;
+
+    /**
+     * 渲染结果缓存的总字节数上限
+     */
+    private long renderCacheBytes = QRCodeRenderer.DEFAULT_MAX_CACHE_BYTES;
+}
@@ -3,7 +3,9 @@ package com.github.xioshe.net.channels.core.crypto;
 import com.github.xioshe.net.channels.core.exception.CryptoException;
 
 import javax.crypto.Cipher;
+import javax.crypto.CipherOutputStream;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -40,4 +42,17 @@ public class AESCipher {
             throw new CryptoException("Decryption failed", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 包装输出流，写入的数据会被加密。关闭返回的流时写入最后的填充块。
+     */
+    public OutputStream encrypt(OutputStream out) {
+        try {
+            Cipher cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+            return new CipherOutputStream(out, cipher);
+        } catch (Exception e) {
+            throw new CryptoException("Encryption failed", e);
+        }
+    }
+}
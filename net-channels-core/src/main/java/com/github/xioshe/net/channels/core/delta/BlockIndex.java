@@ -0,0 +1,16 @@
+package com.github.xioshe.net.channels.core.delta;
+
+/**
+ * 发送端的已发送分块索引，记录接收端应已持有的分块哈希。
+ * <br/>
+ * 分块在接收端确认会话完成（见 {@link com.github.xioshe.net.channels.core.model.AckFrame}）后才记为已持有，
+ * 放弃或失败的传输不会写入索引。接收端的分块存储丢失时，需通过 {@link #remove(String)} 移除后重新发送。
+ */
+public interface BlockIndex {
+
+    boolean contains(String hash);
+
+    void add(String hash);
+
+    void remove(String hash);
+}
@@ -0,0 +1,15 @@
+package com.github.xioshe.net.channels.core.delta;
+
+import java.util.Optional;
+
+/**
+ * 接收端的分块存储，按分块哈希保存已接收的分块内容，供后续传输引用
+ */
+public interface BlockStore {
+
+    Optional<byte[]> get(String hash);
+
+    void put(String hash, byte[] block);
+
+    boolean contains(String hash);
+}
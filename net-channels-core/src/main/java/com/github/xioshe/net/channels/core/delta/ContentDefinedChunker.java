@@ -0,0 +1,90 @@
+package com.github.xioshe.net.channels.core.delta;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基于 Gear 滚动哈希的内容定义分块（FastCDC 的归一化分块）。
+ * <br/>
+ * 分块边界只由附近的内容决定，文件中间插入或删除少量数据时，只有附近的一两个分块发生变化，
+ * 其余分块的哈希保持不变，可以跨传输去重。
+ */
+@Getter
+public class ContentDefinedChunker {
+    public static final int DEFAULT_MIN_SIZE = 2 * 1024;
+    public static final int DEFAULT_AVG_SIZE = 8 * 1024;
+    public static final int DEFAULT_MAX_SIZE = 64 * 1024;
+
+    // 固定种子，保证不同进程、不同版本切出的分块边界一致
+    private static final long[] GEAR = new long[256];
+
+    static {
+        Random random = new Random(0x6E632D6364634CL);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+    private final long maskSmall;
+    private final long maskLarge;
+
+    public ContentDefinedChunker() {
+        this(DEFAULT_MIN_SIZE, DEFAULT_AVG_SIZE, DEFAULT_MAX_SIZE);
+    }
+
+    public ContentDefinedChunker(int minSize, int avgSize, int maxSize) {
+        if (minSize <= 0 || minSize > avgSize || avgSize > maxSize || Integer.bitCount(avgSize) != 1) {
+            throw new IllegalArgumentException("Invalid chunk sizes: min=%d, avg=%d, max=%d, avg must be a power of 2"
+                    .formatted(minSize, avgSize, maxSize));
+        }
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+        int bits = Integer.numberOfTrailingZeros(avgSize);
+        // 取哈希的高位判断边界：未达到平均大小前多要求一位，更难切分；超过后少要求一位，更易切分
+        this.maskSmall = -1L << (64 - (bits + 1));
+        this.maskLarge = -1L << (64 - Math.max(1, bits - 1));
+    }
+
+    /**
+     * 切分数据，返回各分块的结束位置（不含）
+     */
+    public List<Integer> boundaries(byte[] data) {
+        List<Integer> ends = new ArrayList<>();
+        int offset = 0;
+        while (offset < data.length) {
+            offset += cut(data, offset, data.length - offset);
+            ends.add(offset);
+        }
+        return ends;
+    }
+
+    private int cut(byte[] data, int offset, int length) {
+        if (length <= minSize) {
+            return length;
+        }
+        int limit = Math.min(length, maxSize);
+        int normal = Math.min(avgSize, limit);
+        long fingerprint = 0;
+        int i = minSize;
+        for (; i < normal; i++) {
+            fingerprint = (fingerprint << 1) + GEAR[data[offset + i] & 0xff];
+            if ((fingerprint & maskSmall) == 0) {
+                return i;
+            }
+        }
+        for (; i < limit; i++) {
+            fingerprint = (fingerprint << 1) + GEAR[data[offset + i] & 0xff];
+            if ((fingerprint & maskLarge) == 0) {
+                return i;
+            }
+        }
+        return limit;
+    }
+}
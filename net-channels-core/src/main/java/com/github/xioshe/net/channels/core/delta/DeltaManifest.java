@@ -0,0 +1,156 @@
+package com.github.xioshe.net.channels.core.delta;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 增量传输清单：按内容定义分块后，接收端已持有的分块只传哈希引用，其余分块连同内容一起传输。
+ * <br/>
+ * 格式：版本号（1 字节）、分块数（varint），之后每个分块依次为类型（1 字节）、SHA-256 哈希（32 字节），
+ * 内联分块再跟长度（varint）和内容。接收端按顺序处理，同一清单中后出现的引用可以指向前面的内联分块。
+ */
+public final class DeltaManifest {
+    private static final byte VERSION = 1;
+    private static final byte REFERENCE = 0;
+    private static final byte INLINE = 1;
+    private static final int HASH_SIZE = 32;
+
+    private DeltaManifest() {
+    }
+
+    /**
+     * 生成清单，index 中已有的分块以及本次数据中重复出现的分块只写引用
+     */
+    public static Encoded encode(byte[] data, ContentDefinedChunker chunker, BlockIndex index) {
+        List<Integer> ends = chunker.boundaries(data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        out.write(VERSION);
+        writeVarint(out, ends.size());
+
+        Set<String> inlineHashes = new LinkedHashSet<>();
+        int start = 0;
+        for (int end : ends) {
+            byte[] hash = sha256(data, start, end - start);
+            String hex = HexFormat.of().formatHex(hash);
+            if (index.contains(hex) || inlineHashes.contains(hex)) {
+                out.write(REFERENCE);
+                out.write(hash, 0, HASH_SIZE);
+            } else {
+                out.write(INLINE);
+                out.write(hash, 0, HASH_SIZE);
+                writeVarint(out, end - start);
+                out.write(data, start, end - start);
+                inlineHashes.add(hex);
+            }
+            start = end;
+        }
+        return new Encoded(out.toByteArray(), ends.size(), List.copyOf(inlineHashes));
+    }
+
+    /**
+     * 按清单还原数据，内联分块校验哈希后写入 store
+     *
+     * @throws NetChannelsException 引用的分块在 store 中不存在时，异常信息中列出全部缺失的哈希
+     */
+    public static byte[] rebuild(byte[] manifest, BlockStore store) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(manifest);
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new NetChannelsException("Unsupported delta manifest version: " + version);
+            }
+            int blockCount = readVarint(buffer);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(manifest.length * 2);
+            List<String> missing = new ArrayList<>();
+            Set<String> stored = new HashSet<>();
+            for (int i = 0; i < blockCount; i++) {
+                byte kind = buffer.get();
+                byte[] hash = new byte[HASH_SIZE];
+                buffer.get(hash);
+                String hex = HexFormat.of().formatHex(hash);
+
+                if (kind == INLINE) {
+                    int length = readVarint(buffer);
+                    if (length < 0 || length > buffer.remaining()) {
+                        throw new NetChannelsException("Truncated delta manifest");
+                    }
+                    byte[] block = new byte[length];
+                    buffer.get(block);
+                    if (!MessageDigest.isEqual(hash, sha256(block, 0, block.length))) {
+                        throw new NetChannelsException("Block hash mismatch: " + hex);
+                    }
+                    if (stored.add(hex)) {
+                        store.put(hex, block);
+                    }
+                    out.write(block, 0, block.length);
+                } else if (kind == REFERENCE) {
+                    store.get(hex).ifPresentOrElse(block -> out.write(block, 0, block.length),
+                            () -> missing.add(hex));
+                } else {
+                    throw new NetChannelsException("Unknown block kind: " + kind);
+                }
+            }
+            if (!missing.isEmpty()) {
+                throw new NetChannelsException("Missing %d blocks: %s".formatted(missing.size(), missing));
+            }
+            return out.toByteArray();
+        } catch (BufferUnderflowException e) {
+            throw new NetChannelsException("Truncated delta manifest", e);
+        }
+    }
+
+    private static byte[] sha256(byte[] data, int offset, int length) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(data, offset, length);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new NetChannelsException("SHA-256 not available", e);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift <= 28; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new NetChannelsException("Malformed varint in delta manifest");
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Encoded {
+        private final byte[] manifest;
+        private final int totalBlocks;
+        /**
+         * 本次需要传输内容的分块哈希，传输后应加入发送端索引
+         */
+        private final List<String> inlineHashes;
+    }
+}
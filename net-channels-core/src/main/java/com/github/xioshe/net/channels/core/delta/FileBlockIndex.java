@@ -0,0 +1,69 @@
+package com.github.xioshe.net.channels.core.delta;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于文件的已发送分块索引，每行一个分块哈希，启动时整体加载到内存，新增时追加写入
+ */
+public class FileBlockIndex implements BlockIndex {
+    private final Path file;
+    private final Set<String> hashes = ConcurrentHashMap.newKeySet();
+
+    public FileBlockIndex(Path file) {
+        this.file = file;
+        try {
+            if (Files.exists(file)) {
+                try (var lines = Files.lines(file, StandardCharsets.US_ASCII)) {
+                    lines.filter(line -> !line.isBlank()).forEach(hashes::add);
+                }
+            } else if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+        } catch (IOException | UncheckedIOException e) {
+            throw new NetChannelsException("Failed to load block index: " + file, e);
+        }
+    }
+
+    @Override
+    public boolean contains(String hash) {
+        return hashes.contains(hash);
+    }
+
+    @Override
+    public synchronized void add(String hash) {
+        if (!hashes.add(hash)) {
+            return;
+        }
+        try {
+            Files.writeString(file, hash + "\n", StandardCharsets.US_ASCII,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            hashes.remove(hash);
+            throw new NetChannelsException("Failed to update block index: " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized void remove(String hash) {
+        if (!hashes.remove(hash)) {
+            return;
+        }
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, hashes, StandardCharsets.US_ASCII);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new NetChannelsException("Failed to update block index: " + file, e);
+        }
+    }
+}
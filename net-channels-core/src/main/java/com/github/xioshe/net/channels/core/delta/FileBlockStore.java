@@ -0,0 +1,65 @@
+package com.github.xioshe.net.channels.core.delta;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * 基于文件的分块存储，每个分块一个文件，按哈希前两位分目录。写入时先写临时文件再原子移动，避免残留半个分块。
+ */
+public class FileBlockStore implements BlockStore {
+    private final Path directory;
+
+    public FileBlockStore(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new NetChannelsException("Failed to create block store: " + directory, e);
+        }
+    }
+
+    @Override
+    public Optional<byte[]> get(String hash) {
+        try {
+            return Optional.of(Files.readAllBytes(path(hash)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new NetChannelsException("Failed to read block: " + hash, e);
+        }
+    }
+
+    @Override
+    public void put(String hash, byte[] block) {
+        Path target = path(hash);
+        if (Files.exists(target)) {
+            return;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            Files.write(temp, block);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new NetChannelsException("Failed to store block: " + hash, e);
+        }
+    }
+
+    @Override
+    public boolean contains(String hash) {
+        return Files.exists(path(hash));
+    }
+
+    private Path path(String hash) {
+        if (hash.length() < 3 || !hash.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+            throw new IllegalArgumentException("Invalid block hash: " + hash);
+        }
+        return directory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.xioshe.net.channels.core.fountain;
+
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 系统 LT 喷泉码的剥离（peeling）解码器。
+ * <br/>
+ * 每收到一个编码符号，先异或掉其中已还原的源分块；只剩一个未知源分块时即可直接还原，
+ * 并继续消解等待该分块的其他编码符号。编码符号的到达顺序和丢失情况不影响结果。
+ */
+public class FountainDecoder {
+    @Getter
+    private final int sourceBlocks;
+    @Getter
+    private final int symbolSize;
+    private final int totalSize;
+    private final RobustSoliton distribution;
+
+    private final byte[][] blocks;
+    private final List<PendingSymbol>[] waiting;
+    private final Set<Integer> receivedSymbols = new HashSet<>();
+    @Getter
+    private int recoveredBlocks;
+    private boolean claimed;
+
+    @SuppressWarnings("unchecked")
+    public FountainDecoder(int sourceBlocks, int symbolSize, int totalSize) {
+        if (symbolSize <= 0 || totalSize <= 0 || Math.ceilDiv(totalSize, symbolSize) != sourceBlocks) {
+            throw new IllegalArgumentException("Invalid fountain layout: blocks=%d, symbolSize=%d, totalSize=%d"
+                    .formatted(sourceBlocks, symbolSize, totalSize));
+        }
+        this.sourceBlocks = sourceBlocks;
+        this.symbolSize = symbolSize;
+        this.totalSize = totalSize;
+        this.distribution = new RobustSoliton(sourceBlocks);
+        this.blocks = new byte[sourceBlocks][];
+        this.waiting = new List[sourceBlocks];
+    }
+
+    /**
+     * 加入一个编码符号
+     *
+     * @param esi  编码符号序号
+     * @param data 编码符号数据，不超过 symbolSize，不足部分视为补零
+     * @return 因这个编码符号新还原的源分块序号，重复的符号或未能推进解码时为空
+     */
+    public synchronized List<Integer> add(int esi, byte[] data) {
+        if (esi < 0) {
+            throw new IllegalArgumentException("Invalid symbol id: " + esi);
+        }
+        if (data.length > symbolSize) {
+            throw new IllegalArgumentException("Symbol size %d exceeds %d".formatted(data.length, symbolSize));
+        }
+        if (isComplete() || !receivedSymbols.add(esi)) {
+            return List.of();
+        }
+
+        byte[] value = Arrays.copyOf(data, symbolSize);
+        int[] neighbors = distribution.neighbors(esi);
+        int[] unknown = new int[neighbors.length];
+        int unknownCount = 0;
+        for (int block : neighbors) {
+            if (blocks[block] != null) {
+                xor(value, blocks[block]);
+            } else {
+                unknown[unknownCount++] = block;
+            }
+        }
+
+        List<Integer> recovered = new ArrayList<>();
+        if (unknownCount == 1) {
+            recover(unknown[0], value, recovered);
+        } else if (unknownCount > 1) {
+            PendingSymbol pending = new PendingSymbol(Arrays.copyOf(unknown, unknownCount), value);
+            for (int i = 0; i < unknownCount; i++) {
+                if (waiting[unknown[i]] == null) {
+                    waiting[unknown[i]] = new ArrayList<>();
+                }
+                waiting[unknown[i]].add(pending);
+            }
+        }
+        return recovered;
+    }
+
+    public synchronized boolean isComplete() {
+        return recoveredBlocks == sourceBlocks;
+    }
+
+    /**
+     * 声明由当前线程组装还原后的数据，解码完成后只有第一次调用返回 true
+     */
+    public synchronized boolean claimCompletion() {
+        if (!isComplete() || claimed) {
+            return false;
+        }
+        claimed = true;
+        return true;
+    }
+
+    /**
+     * 还原后的完整数据，去除最后一个源分块的补零
+     */
+    public synchronized byte[] toByteArray() {
+        if (!isComplete()) {
+            throw new IllegalStateException("Decoding not complete: %d/%d"
+                    .formatted(recoveredBlocks, sourceBlocks));
+        }
+        byte[] result = new byte[totalSize];
+        for (int i = 0; i < sourceBlocks; i++) {
+            int offset = i * symbolSize;
+            System.arraycopy(blocks[i], 0, result, offset, Math.min(symbolSize, totalSize - offset));
+        }
+        return result;
+    }
+
+    private void recover(int block, byte[] value, List<Integer> recovered) {
+        Deque<Integer> queue = new ArrayDeque<>();
+        Deque<byte[]> values = new ArrayDeque<>();
+        queue.add(block);
+        values.add(value);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            byte[] data = values.poll();
+            if (blocks[current] != null) {
+                continue;
+            }
+            blocks[current] = data;
+            recoveredBlocks++;
+            recovered.add(current);
+
+            List<PendingSymbol> dependents = waiting[current];
+            waiting[current] = null;
+            if (dependents == null) {
+                continue;
+            }
+            for (PendingSymbol pending : dependents) {
+                if (pending.resolved) {
+                    continue;
+                }
+                xor(pending.data, data);
+                if (--pending.remaining == 1) {
+                    pending.resolved = true;
+                    for (int candidate : pending.blocks) {
+                        if (blocks[candidate] == null) {
+                            queue.add(candidate);
+                            values.add(pending.data);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void xor(byte[] target, byte[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] ^= source[i];
+        }
+    }
+
+    private static class PendingSymbol {
+        private final int[] blocks;
+        private final byte[] data;
+        private int remaining;
+        private boolean resolved;
+
+        PendingSymbol(int[] blocks, byte[] data) {
+            this.blocks = blocks;
+            this.data = data;
+            this.remaining = blocks.length;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.xioshe.net.channels.core.fountain;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * 系统 LT 喷泉码编码器。
+ * <br/>
+ * 数据按 symbolSize 切分为源分块（最后一块补零），序号小于源分块数的编码符号就是源分块本身，
+ * 之后的编码符号为若干源分块的异或，可以无限生成。接收端收到略多于源分块数的任意编码符号即可还原数据。
+ */
+public class FountainEncoder {
+    private final byte[] source;
+    @Getter
+    private final int symbolSize;
+    @Getter
+    private final int sourceBlocks;
+    private final RobustSoliton distribution;
+
+    public FountainEncoder(byte[] source, int symbolSize) {
+        if (source == null || source.length == 0) {
+            throw new IllegalArgumentException("Source data cannot be empty");
+        }
+        if (symbolSize <= 0) {
+            throw new IllegalArgumentException("symbolSize must be positive");
+        }
+        this.source = source;
+        this.symbolSize = symbolSize;
+        this.sourceBlocks = Math.ceilDiv(source.length, symbolSize);
+        this.distribution = new RobustSoliton(sourceBlocks);
+    }
+
+    /**
+     * 生成编码符号，写入 out 的前 symbolSize 个字节
+     *
+     * @param esi 编码符号序号
+     * @param out 输出缓冲区，长度不小于 symbolSize
+     */
+    public void symbol(int esi, byte[] out) {
+        if (esi < 0) {
+            throw new IllegalArgumentException("Invalid symbol id: " + esi);
+        }
+        Arrays.fill(out, 0, symbolSize, (byte) 0);
+        for (int block : distribution.neighbors(esi)) {
+            int offset = block * symbolSize;
+            int length = Math.min(symbolSize, source.length - offset);
+            for (int i = 0; i < length; i++) {
+                out[i] ^= source[offset + i];
+            }
+        }
+    }
+}
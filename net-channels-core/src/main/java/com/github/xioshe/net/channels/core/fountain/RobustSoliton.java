@@ -0,0 +1,87 @@
+package com.github.xioshe.net.channels.core.fountain;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * LT 码的鲁棒孤波分布，根据编码符号序号确定性地生成其关联的源分块。
+ * <br/>
+ * 编码端和解码端以相同的源分块数构造，同一个符号序号总能得到相同的源分块集合，因此包头中只需携带符号序号。
+ */
+final class RobustSoliton {
+    private static final double C = 0.1;
+    private static final double DELTA = 0.5;
+    private static final long SEED_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final int sourceBlocks;
+    /**
+     * 度分布的累积概率，cdf[d - 1] 为度不超过 d 的概率
+     */
+    private final double[] cdf;
+
+    RobustSoliton(int sourceBlocks) {
+        if (sourceBlocks <= 0) {
+            throw new IllegalArgumentException("sourceBlocks must be positive");
+        }
+        this.sourceBlocks = sourceBlocks;
+        this.cdf = buildCdf(sourceBlocks);
+    }
+
+    /**
+     * 编码符号关联的源分块序号，序号小于源分块数的符号即为对应的源分块本身
+     */
+    int[] neighbors(int esi) {
+        if (esi < sourceBlocks) {
+            return new int[]{esi};
+        }
+        Random random = new Random(esi * SEED_MULTIPLIER ^ sourceBlocks);
+        int degree = degree(random.nextDouble());
+        int[] neighbors = new int[degree];
+        BitSet selected = new BitSet(sourceBlocks);
+        for (int i = 0; i < degree; ) {
+            int candidate = random.nextInt(sourceBlocks);
+            if (!selected.get(candidate)) {
+                selected.set(candidate);
+                neighbors[i++] = candidate;
+            }
+        }
+        return neighbors;
+    }
+
+    private int degree(double p) {
+        int index = Arrays.binarySearch(cdf, p);
+        int degree = (index >= 0 ? index : -index - 1) + 1;
+        return Math.min(degree, sourceBlocks);
+    }
+
+    private static double[] buildCdf(int k) {
+        double r = C * Math.log(k / DELTA) * Math.sqrt(k);
+        int spike = (int) Math.max(1, Math.min(k, Math.round(k / r)));
+
+        double[] weights = new double[k];
+        double sum = 0;
+        for (int d = 1; d <= k; d++) {
+            // 理想孤波分布
+            double rho = d == 1 ? 1.0 / k : 1.0 / ((double) d * (d - 1));
+            // 鲁棒修正项，提高小度数和 k/R 处的概率，保证解码过程不易中断
+            double tau = 0;
+            if (d < spike) {
+                tau = r / ((double) d * k);
+            } else if (d == spike) {
+                tau = r * Math.log(r / DELTA) / k;
+            }
+            weights[d - 1] = rho + Math.max(0, tau);
+            sum += weights[d - 1];
+        }
+
+        double[] cdf = new double[k];
+        double acc = 0;
+        for (int i = 0; i < k; i++) {
+            acc += weights[i] / sum;
+            cdf[i] = acc;
+        }
+        cdf[k - 1] = 1.0;
+        return cdf;
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.xioshe.net.channels.core.job;
+
+/**
+ * 导出任务的优先级通道，排在前面的优先执行，同一通道内先进先出
+ */
+public enum JobPriority {
+    HIGH,       // 紧急的小数据
+    NORMAL,     // 普通数据
+    BULK        // 批量导出等大数据
+}
@@ -0,0 +1,9 @@
+package com.github.xioshe.net.channels.core.job;
+
+public enum JobState {
+    QUEUED,         // 排队中
+    RUNNING,        // 执行中
+    COMPLETED,      // 执行完成
+    FAILED,         // 执行失败
+    CANCELLED       // 已取消
+}
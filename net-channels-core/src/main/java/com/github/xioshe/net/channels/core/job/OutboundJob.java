@@ -0,0 +1,69 @@
+package com.github.xioshe.net.channels.core.job;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 导出任务句柄。任务 ID 即传输的 sessionId，提交后立即可用，可用于提前展示或查询会话。
+ * <br/>
+ * 取消 {@link #getFuture()} 会把尚未执行的任务移出队列；已在执行的任务不会被中断，但结果被丢弃，状态保持已取消。
+ */
+@Getter
+public class OutboundJob {
+    private final String sessionId;
+    private final JobPriority priority;
+    private final int size;
+    private final Instant submittedAt;
+    private final CompletableFuture<List<String>> future = new CompletableFuture<>();
+    private volatile Instant startedAt;
+
+    OutboundJob(String sessionId, JobPriority priority, int size) {
+        this.sessionId = sessionId;
+        this.priority = priority;
+        this.size = size;
+        this.submittedAt = Instant.now();
+    }
+
+    /**
+     * 在队列中的等待时间，尚未开始执行时为当前已等待的时间
+     */
+    public Duration getWaitTime() {
+        Instant start = startedAt;
+        return Duration.between(submittedAt, start != null ? start : Instant.now());
+    }
+
+    /**
+     * 任务状态，由 {@link #getFuture()} 的结果决定
+     */
+    public JobState getState() {
+        if (future.isCancelled()) {
+            return JobState.CANCELLED;
+        }
+        if (future.isCompletedExceptionally()) {
+            return JobState.FAILED;
+        }
+        if (future.isDone()) {
+            return JobState.COMPLETED;
+        }
+        return startedAt != null ? JobState.RUNNING : JobState.QUEUED;
+    }
+
+    void markStarted() {
+        startedAt = Instant.now();
+    }
+
+    /**
+     * @return 任务已被取消时返回 false，结果被丢弃
+     */
+    boolean complete(List<String> frames) {
+        return future.complete(frames);
+    }
+
+    boolean fail(Throwable e) {
+        return future.completeExceptionally(e);
+    }
+}
@@ -0,0 +1,230 @@
+package com.github.xioshe.net.channels.core.job;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.session.TimestampSessionIdGenerator;
+import com.github.xioshe.net.channels.core.transfer.DataSplitter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步导出任务执行器，压缩、加密、编码在有界的工作线程池中执行，不占用请求线程。
+ * <br/>
+ * 排队的任务按 {@link JobPriority} 出队，紧急的小数据可以越过排在前面的批量导出；同一优先级内先进先出。
+ * 排队的任务数达到容量上限时拒绝新任务，名额在任务开始执行或被取消移出队列时归还。
+ */
+@Slf4j
+public class OutboundJobExecutor implements Closeable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    // 未指定优先级时，达到该大小的数据进入 BULK 通道
+    public static final int DEFAULT_BULK_THRESHOLD = 1024 * 1024; // 1MB
+
+    private final DataSplitter splitter;
+    private final TimestampSessionIdGenerator sessionIdGenerator;
+    private final int queueCapacity;
+    private final int bulkThreshold;
+    private final ThreadPoolExecutor executor;
+    // 排队名额，提交时获取，出队时归还，并发提交也不会超过 queueCapacity
+    private final Semaphore queueSlots;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong totalSubmitted = new AtomicLong();
+    private final AtomicLong totalCompleted = new AtomicLong();
+    private final AtomicLong totalFailed = new AtomicLong();
+    private final AtomicLong totalRejected = new AtomicLong();
+    private final AtomicLong totalStarted = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
+    public OutboundJobExecutor(DataSplitter splitter, int workers) {
+        this(splitter, new TimestampSessionIdGenerator(), workers, false,
+                DEFAULT_QUEUE_CAPACITY, DEFAULT_BULK_THRESHOLD);
+    }
+
+    /**
+     * @param workers        最大并发执行的任务数
+     * @param virtualThreads 是否使用虚拟线程执行任务，并发数仍受 workers 限制
+     * @param queueCapacity  排队任务数上限
+     * @param bulkThreshold  未指定优先级时进入 BULK 通道的数据大小（字节）
+     */
+    public OutboundJobExecutor(DataSplitter splitter, TimestampSessionIdGenerator sessionIdGenerator,
+                               int workers, boolean virtualThreads, int queueCapacity, int bulkThreshold) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        this.splitter = splitter;
+        this.sessionIdGenerator = sessionIdGenerator;
+        this.queueCapacity = queueCapacity;
+        this.queueSlots = new Semaphore(queueCapacity);
+        this.bulkThreshold = bulkThreshold;
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), threadFactory(virtualThreads));
+    }
+
+    public OutboundJob submit(String data) {
+        return submit(data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 按数据大小选择优先级：达到 bulkThreshold 的进入 BULK 通道，其余进入 NORMAL 通道
+     */
+    public OutboundJob submit(byte[] data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data cannot be null or empty");
+        }
+        return submit(data, data.length >= bulkThreshold ? JobPriority.BULK : JobPriority.NORMAL);
+    }
+
+    public OutboundJob submit(byte[] data, JobPriority priority) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Data cannot be null or empty");
+        }
+        if (executor.isShutdown()) {
+            throw new NetChannelsException("Outbound job executor already closed");
+        }
+        if (!queueSlots.tryAcquire()) {
+            totalRejected.incrementAndGet();
+            throw new NetChannelsException("Outbound job queue is full: " + queueCapacity);
+        }
+
+        OutboundJob job = new OutboundJob(sessionIdGenerator.generate(), priority, data.length);
+        JobTask task = new JobTask(job, data, sequence.getAndIncrement());
+        job.getFuture().whenComplete((frames, e) -> {
+            if (e instanceof CancellationException && executor.remove(task)) {
+                queueSlots.release();
+            }
+        });
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            queueSlots.release();
+            throw new NetChannelsException("Outbound job executor already closed", e);
+        }
+        totalSubmitted.incrementAndGet();
+        log.debug("Submitted outbound job: {}, priority: {}, size: {}", job.getSessionId(), priority, data.length);
+        return job;
+    }
+
+    public OutboundJobStats getStats() {
+        Map<JobPriority, Integer> depthByPriority = new EnumMap<>(JobPriority.class);
+        for (JobPriority priority : JobPriority.values()) {
+            depthByPriority.put(priority, 0);
+        }
+        int depth = 0;
+        for (Runnable queued : executor.getQueue()) {
+            depthByPriority.merge(((JobTask) queued).job.getPriority(), 1, Integer::sum);
+            depth++;
+        }
+        long started = totalStarted.get();
+        return OutboundJobStats.builder()
+                .queueDepth(depth)
+                .queueDepthByPriority(depthByPriority)
+                .running(running.get())
+                .totalSubmitted(totalSubmitted.get())
+                .totalCompleted(totalCompleted.get())
+                .totalFailed(totalFailed.get())
+                .totalRejected(totalRejected.get())
+                .averageWaitMillis(started == 0 ? 0 : totalWaitMillis.get() / started)
+                .maxWaitMillis(maxWaitMillis.get())
+                .build();
+    }
+
+    /**
+     * 停止接收新任务，等待已提交的任务执行完成
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory threadFactory(boolean virtualThreads) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name("nc-outbound-", 0).factory();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, "nc-outbound-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private class JobTask implements Runnable, Comparable<JobTask> {
+        private final OutboundJob job;
+        private final byte[] data;
+        private final long sequence;
+
+        JobTask(OutboundJob job, byte[] data, long sequence) {
+            this.job = job;
+            this.data = data;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            queueSlots.release();
+            if (job.getFuture().isDone()) {
+                return;
+            }
+            job.markStarted();
+            recordWait(job.getWaitTime().toMillis());
+            running.incrementAndGet();
+            try {
+                List<String> frames = splitter.split(data, job.getSessionId());
+                // 先计数再完成，调用方拿到结果时统计已更新；执行期间被取消时撤销计数
+                totalCompleted.incrementAndGet();
+                if (!job.complete(frames)) {
+                    totalCompleted.decrementAndGet();
+                    log.debug("Outbound job cancelled while running, discard frames: {}", job.getSessionId());
+                }
+            } catch (Exception e) {
+                totalFailed.incrementAndGet();
+                if (job.fail(e)) {
+                    log.error("Outbound job failed: {}", job.getSessionId(), e);
+                } else {
+                    totalFailed.decrementAndGet();
+                }
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+
+        @Override
+        public int compareTo(JobTask other) {
+            int result = job.getPriority().compareTo(other.job.getPriority());
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private void recordWait(long waitMillis) {
+        totalStarted.incrementAndGet();
+        totalWaitMillis.addAndGet(waitMillis);
+        maxWaitMillis.accumulateAndGet(waitMillis, Math::max);
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.xioshe.net.channels.core.job;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class OutboundJobStats {
+    private final int queueDepth;
+    private final Map<JobPriority, Integer> queueDepthByPriority;
+    private final int running;
+    private final long totalSubmitted;
+    private final long totalCompleted;
+    private final long totalFailed;
+    private final long totalRejected;
+    /**
+     * 已开始执行的任务在队列中的平均等待时间
+     */
+    private final long averageWaitMillis;
+    private final long maxWaitMillis;
+}
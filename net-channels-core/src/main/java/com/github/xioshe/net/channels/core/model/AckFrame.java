@@ -0,0 +1,87 @@
+package com.github.xioshe.net.channels.core.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 接收端的确认帧：描述一个会话的接收状态，由内网侧显示为二维码，外网侧扫描后直接安排重传。
+ * <br/>
+ * 与 TCP 的累积确认加选择确认类似：base 之前的分片都已接收；[base, windowEnd) 内只有 missingChunks 未接收；
+ * windowEnd 之后的分片状态未知（确认帧容量有限时截断），发送端继续按原顺序播放。
+ */
+@Data
+@Builder
+public class AckFrame {
+    private final String sessionId;
+    private final int totalChunks;
+    /**
+     * 会话已完成，发送端可以停止播放
+     */
+    private final boolean complete;
+    /**
+     * 该序号之前的分片都已接收
+     */
+    private final int base;
+    /**
+     * 接收状态已知范围的上界（不含）
+     */
+    private final int windowEnd;
+    /**
+     * [base, windowEnd) 内未接收的分片，升序
+     */
+    private final List<Integer> missingChunks;
+
+    /**
+     * 分片是否已确认接收，窗口之外的分片返回 false
+     */
+    public boolean isReceived(int chunk) {
+        if (complete || chunk < base) {
+            return true;
+        }
+        return chunk < windowEnd && Collections.binarySearch(missingChunks, chunk) < 0;
+    }
+
+    /**
+     * 已确认接收的分片数，窗口之外的分片不计入
+     */
+    public int receivedCount() {
+        return complete ? totalChunks : windowEnd - missingChunks.size();
+    }
+
+    public static AckFrame completed(String sessionId, int totalChunks) {
+        return AckFrame.builder()
+                .sessionId(sessionId)
+                .totalChunks(totalChunks)
+                .complete(true)
+                .base(totalChunks)
+                .windowEnd(totalChunks)
+                .missingChunks(List.of())
+                .build();
+    }
+
+    /**
+     * 根据已接收分片的位图生成完整窗口的确认帧
+     */
+    public static AckFrame of(String sessionId, int totalChunks, BitSet received) {
+        int base = Math.min(received.nextClearBit(0), totalChunks);
+        if (base == totalChunks) {
+            return completed(sessionId, totalChunks);
+        }
+        List<Integer> missing = new ArrayList<>();
+        for (int i = base; i < totalChunks; i = received.nextClearBit(i + 1)) {
+            missing.add(i);
+        }
+        return AckFrame.builder()
+                .sessionId(sessionId)
+                .totalChunks(totalChunks)
+                .base(base)
+                .windowEnd(totalChunks)
+                .missingChunks(missing)
+                .build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.xioshe.net.channels.core.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 一次传输的分片布局，同一会话的所有分片共享，编码时与分片序号一起写入包头
+ */
+@Data
+@Builder
+public class ChunkLayout {
+    private final String sessionId;
+    private final byte flags;
+    private final int totalChunks;
+    private final int chunkSize;
+    private final int totalSize;
+
+    /**
+     * 分片在完整数据中的起始位置
+     */
+    public int offset(int chunkIndex) {
+        return chunkIndex * chunkSize;
+    }
+
+    /**
+     * 分片长度，最后一个分片可能小于 chunkSize
+     */
+    public int length(int chunkIndex) {
+        return Math.min(chunkSize, totalSize - offset(chunkIndex));
+    }
+}
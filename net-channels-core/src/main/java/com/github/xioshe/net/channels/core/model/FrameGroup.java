@@ -0,0 +1,56 @@
+package com.github.xioshe.net.channels.core.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 帧组：在同一幅画面中以网格形式同时展示的多个二维码，每个二维码仍是一个独立的分片。
+ * <br/>
+ * 摄像头类扫码设备可以从一帧画面中解码出整组二维码，交给
+ * {@link com.github.xioshe.net.channels.core.transfer.DataAssembler#assembleGroup(List)} 一次处理，
+ * 每帧画面传输的分片数是单码模式的 K 倍。
+ */
+@Data
+@Builder
+public class FrameGroup {
+    private final int index;
+    /**
+     * 组内各二维码的数据，按行优先顺序排列在网格中
+     */
+    private final List<String> codes;
+    /**
+     * 网格列数
+     */
+    private final int columns;
+
+    public int size() {
+        return codes.size();
+    }
+
+    public int rows() {
+        return (codes.size() + columns - 1) / columns;
+    }
+
+    /**
+     * 按顺序把帧每 groupSize 个分为一组，最后一组可能不足 groupSize 个。网格尽量接近正方形。
+     */
+    public static List<FrameGroup> partition(List<String> frames, int groupSize) {
+        if (groupSize <= 0) {
+            throw new IllegalArgumentException("Group size must be positive");
+        }
+        int columns = (int) Math.ceil(Math.sqrt(groupSize));
+        List<FrameGroup> groups = new ArrayList<>((frames.size() + groupSize - 1) / groupSize);
+        for (int from = 0; from < frames.size(); from += groupSize) {
+            List<String> codes = frames.subList(from, Math.min(frames.size(), from + groupSize));
+            groups.add(FrameGroup.builder()
+                    .index(groups.size())
+                    .codes(List.copyOf(codes))
+                    .columns(Math.min(columns, codes.size()))
+                    .build());
+        }
+        return groups;
+    }
+}
@@ -13,17 +13,50 @@ import java.nio.charset.StandardCharsets;
 @NoArgsConstructor
 @AllArgsConstructor
 public class PacketHeader {
-    private static final byte VERSION = 1;
+    public static final byte VERSION = 2;
+    // 版本 1 的包头没有 flags 字段，仍支持解析
+    private static final byte VERSION_1 = 1;
 
     //                          1 + // 版本号
+    //                          1 + // flags
     //                          9 + // sessionId 长度固定为 9
     //                          4 + // totalChunks
     //                          4 + // currentChunk
     //                          4 + // chunkSize
     //                          4 + // totalSize
     //                          8; // checksum 长度为 8 bytes
-    public static final int HEADER_SIZE = 34;
+    public static final int HEADER_SIZE = 35;
 
+    /**
+     * 喷泉码分片：totalChunks 为源分片数，currentChunk 为编码符号序号，可以大于等于 totalChunks
+     */
+    public static final byte FLAG_FOUNTAIN = 0x01;
+    /**
+     * 多记录会话：还原后的数据是 {@code RecordContainer} 格式的多条记录
+     */
+    public static final byte FLAG_RECORDS = 0x02;
+    /**
+     * 增量传输：还原后的数据是 {@code DeltaManifest}，需结合接收端的分块存储重建
+     */
+    public static final byte FLAG_DELTA = 0x04;
+    /**
+     * 未压缩：数据不可压缩（已压缩格式或高熵数据），加密前没有经过 gzip，接收端解密后不需要解压
+     */
+    public static final byte FLAG_RAW = 0x08;
+    /**
+     * 分段传输：会话数据是超大传输的一个分段，开头带有分段描述，接收端按 64 位偏移写入文件
+     */
+    public static final byte FLAG_SEGMENT = 0x10;
+    /**
+     * 多文件归档：还原后的数据是 {@code ArchiveContainer} 格式的目录，接收端解包到归档目录
+     */
+    public static final byte FLAG_ARCHIVE = 0x20;
+    /**
+     * 打包重传：数据是 {@code PackedSegments} 格式的多段加密数据，各段为任意字节范围，currentChunk 为第一段所在分片的序号
+     */
+    public static final byte FLAG_PACKED = 0x40;
+
+    private byte flags;            // 标志位，见 FLAG_* 常量
     private String sessionId;      // 会话ID，长度固定为 9 字节
     private int totalChunks;       // 总分片数
     private int currentChunk;      // 当前分片序号
@@ -50,6 +83,7 @@ public class PacketHeader {
 
         ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
         buffer.put(VERSION);
+        buffer.put(flags);
 
         // sessionId
         buffer.put(sessionIdBytes);
@@ -66,12 +100,26 @@ public class PacketHeader {
         return buffer.array();
     }
 
+    public boolean hasFlag(byte flag) {
+        return (flags & flag) != 0;
+    }
+
     public static PacketHeader fromBytes(byte[] bytes) {
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return read(ByteBuffer.wrap(bytes));
+    }
 
+    /**
+     * 从 buffer 的当前位置读取包头
+     */
+    public static PacketHeader read(ByteBuffer buffer) {
         // 读取版本号
         byte version = buffer.get();
-        if (version != VERSION) {
+        byte flags;
+        if (version == VERSION) {
+            flags = buffer.get();
+        } else if (version == VERSION_1) {
+            flags = 0;
+        } else {
             throw new IllegalArgumentException("Unsupported version: " + version);
         }
 
@@ -92,6 +140,7 @@ public class PacketHeader {
         String checksum = new String(checksumBytes, StandardCharsets.UTF_8);
 
         return PacketHeader.builder()
+                .flags(flags)
                 .sessionId(sessionId)
                 .totalChunks(totalChunks)
                 .currentChunk(currentChunk)
@@ -0,0 +1,83 @@
+package com.github.xioshe.net.channels.core.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 一段时间内的扫码观测：展示了多少帧，扫码设备识别出多少帧，其中多少是新分片。
+ * <br/>
+ * 接收端可以直接统计识别帧数和重复帧数；只有确认帧时用 {@link #between(AckFrame, AckFrame, List, Duration)}
+ * 按两次确认之间新增的分片和展示的分片推算。
+ */
+@Data
+@Builder
+public class ScanReport {
+    private final int framesShown;
+    /**
+     * 成功识别的帧数，包括重复的分片
+     */
+    private final int framesDecoded;
+    /**
+     * 新接收的分片数
+     */
+    private final int newChunks;
+    /**
+     * 观测时长，为空时按帧率推算
+     */
+    private final Duration elapsed;
+
+    /**
+     * 扫码成功率
+     */
+    public double scanSuccess() {
+        return framesShown == 0 ? 0 : Math.min(1.0, (double) framesDecoded / framesShown);
+    }
+
+    /**
+     * 识别出的帧中重复分片的比例
+     */
+    public double duplicateRatio() {
+        return framesDecoded == 0 ? 0 : 1.0 - Math.min(1.0, (double) newChunks / framesDecoded);
+    }
+
+    /**
+     * 展示的帧中没有带来新分片的比例，包括识别失败和重复
+     */
+    public double missRate() {
+        return framesShown == 0 ? 1.0 : 1.0 - Math.min(1.0, (double) newChunks / framesShown);
+    }
+
+    /**
+     * 根据同一会话的两次确认帧推算观测结果。
+     * <br/>
+     * 确认帧只反映新增的分片，识别帧数需要推算：确认有延迟时，轮播展示的帧中有一部分是接收端已经持有的分片，
+     * 这些帧即使识别成功也不会带来新分片。成功率按上一次确认时仍缺失的分片对应的帧计算，
+     * 识别帧数按该成功率折算全部展示的帧，其余为重复分片。
+     * 展示的分片在上一次确认时都已接收时无法推算，返回展示帧数为 0 的空观测。
+     *
+     * @param previous    上一次确认帧，为空时视为尚未接收任何分片
+     * @param shownChunks 两次确认之间展示的各帧对应的分片序号
+     */
+    public static ScanReport between(AckFrame previous, AckFrame current, List<Integer> shownChunks,
+                                     Duration elapsed) {
+        int before = previous != null ? previous.receivedCount() : 0;
+        int received = Math.max(0, current.receivedCount() - before);
+        long needed = shownChunks.stream()
+                .filter(chunk -> previous == null || !previous.isReceived(chunk))
+                .count();
+        if (needed == 0) {
+            return ScanReport.builder().elapsed(elapsed).build();
+        }
+        double success = Math.min(1.0, (double) received / needed);
+        int decoded = Math.max(received, (int) Math.round(success * shownChunks.size()));
+        return ScanReport.builder()
+                .framesShown(shownChunks.size())
+                .framesDecoded(decoded)
+                .newChunks(received)
+                .elapsed(elapsed)
+                .build();
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.xioshe.net.channels.core.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * 传输预估结果
+ */
+@Data
+@Builder
+public class TransferEstimate {
+    /**
+     * 原始数据大小
+     */
+    private long originalSize;
+    /**
+     * 是否会被压缩，不可压缩的数据直接加密传输
+     */
+    private boolean compressed;
+    /**
+     * 预估的压缩、加密后数据大小
+     */
+    private long payloadSize;
+    /**
+     * 预估的二维码帧数
+     */
+    private long totalFrames;
+    /**
+     * 估算耗时使用的扫码帧率
+     */
+    private double framesPerSecond;
+    /**
+     * 按扫码帧率展示全部帧的预估耗时，不含重传
+     */
+    private Duration duration;
+    /**
+     * 是否对完整数据做了压缩，为 false 时压缩后大小由采样推算
+     */
+    private boolean exact;
+}
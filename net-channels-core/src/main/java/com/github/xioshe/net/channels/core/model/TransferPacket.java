@@ -67,9 +67,7 @@ public class TransferPacket implements Serializable {
         ByteBuffer buffer = ByteBuffer.wrap(bytes);
 
         // 读取 header
-        byte[] headerBytes = new byte[PacketHeader.HEADER_SIZE];
-        buffer.get(headerBytes);
-        PacketHeader header = PacketHeader.fromBytes(headerBytes);
+        PacketHeader header = PacketHeader.read(buffer);
 
         // 读取 data
         int dataLength = buffer.getInt();
@@ -3,6 +3,7 @@ package com.github.xioshe.net.channels.core.model;
 import lombok.Builder;
 import lombok.Data;
 
+import java.nio.file.Path;
 import java.util.List;
 
 @Data
@@ -10,9 +11,25 @@ import java.util.List;
 public class TransferResult {
     private TransferStatus status;
     private String data;
+    /**
+     * 多记录会话还原出的各条记录，此时 data 为空
+     */
+    private List<String> records;
+    /**
+     * 分段传输的标识，非分段传输时为空
+     */
+    private String transferId;
+    /**
+     * 写入磁盘的结果：分段传输完成后的文件，或归档传输解包后的目录，此时 data 为空
+     */
+    private Path file;
     private double progress;
     private List<Integer> missingChunks;
     private String sessionId;
+    /**
+     * 会话的分片总数，用于生成确认帧
+     */
+    private int totalChunks;
     private String error;
 
     public enum TransferStatus {
@@ -0,0 +1,174 @@
+package com.github.xioshe.net.channels.core.playback;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.AckFrame;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 广播会话：一个展示端同时对多个接收端播放同一会话，例如每个内网区域各有一台扫码设备。
+ * <br/>
+ * 发送端为每个接收端记录一份接收位图，由各自的确认帧累积更新（已接收的分片不会因为较旧的确认帧变回缺失）。
+ * 补发时取所有接收端缺失分片的并集，按缺失该分片的接收端数从多到少排列，相同时按序号排列，
+ * 一轮补发同时服务所有接收端；所有接收端都已接收的分片不再循环播放，全部接收端完成后停止播放。
+ */
+@Slf4j
+public class BroadcastTracker {
+    private final Map<String, Broadcast> sessions = new HashMap<>();
+
+    /**
+     * 开始跟踪广播会话
+     *
+     * @param receivers 预期的接收端，尚未发来确认帧的接收端视为缺失全部分片
+     */
+    public synchronized void register(String sessionId, int totalChunks, Collection<String> receivers) {
+        if (totalChunks <= 0) {
+            throw new IllegalArgumentException("totalChunks must be positive");
+        }
+        if (receivers == null || receivers.isEmpty()) {
+            throw new IllegalArgumentException("Receivers cannot be null or empty");
+        }
+        Broadcast broadcast = new Broadcast(totalChunks);
+        receivers.forEach(receiver -> broadcast.receivers.put(receiver, new BitSet(totalChunks)));
+        if (sessions.putIfAbsent(sessionId, broadcast) != null) {
+            throw new NetChannelsException("Broadcast session already registered: " + sessionId);
+        }
+    }
+
+    /**
+     * 合并一个接收端的确认帧。未登记的接收端视为中途加入；会话未登记或已移除时忽略。
+     *
+     * @return 所有接收端是否都已完成
+     */
+    public synchronized boolean acknowledge(String receiverId, AckFrame ack) {
+        Broadcast broadcast = sessions.get(ack.getSessionId());
+        if (broadcast == null) {
+            log.debug("Ignore ack from {} for untracked session {}", receiverId, ack.getSessionId());
+            return false;
+        }
+        BitSet received = broadcast.receivers.computeIfAbsent(receiverId, id -> new BitSet(broadcast.totalChunks));
+        // 完成确认不携带分片明细，与 FrameCarousel 一样先处理，不依赖其中的分片数
+        if (ack.isComplete()) {
+            received.set(0, broadcast.totalChunks);
+            return broadcast.isComplete();
+        }
+        if (ack.getTotalChunks() != broadcast.totalChunks) {
+            throw new NetChannelsException("Ack of %d chunks does not match session %s of %d chunks"
+                    .formatted(ack.getTotalChunks(), ack.getSessionId(), broadcast.totalChunks));
+        }
+        BitSet acked = new BitSet(ack.getWindowEnd());
+        acked.set(0, ack.getWindowEnd());
+        ack.getMissingChunks().forEach(acked::clear);
+        received.or(acked);
+        return broadcast.isComplete();
+    }
+
+    /**
+     * 需要补发的分片：所有接收端缺失分片的并集，按缺失的接收端数从多到少排列
+     */
+    public synchronized List<Integer> retransmitOrder(String sessionId) {
+        Broadcast broadcast = broadcast(sessionId);
+        int receivers = broadcast.receivers.size();
+        int[] need = new int[broadcast.totalChunks];
+        for (BitSet received : broadcast.receivers.values()) {
+            for (int i = received.nextClearBit(0); i < broadcast.totalChunks; i = received.nextClearBit(i + 1)) {
+                need[i]++;
+            }
+        }
+        // 按缺失的接收端数分桶，桶内序号自然有序
+        List<List<Integer>> buckets = new ArrayList<>(receivers + 1);
+        for (int count = 0; count <= receivers; count++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (int chunk = 0; chunk < need.length; chunk++) {
+            if (need[chunk] > 0) {
+                buckets.get(need[chunk]).add(chunk);
+            }
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int count = receivers; count > 0; count--) {
+            order.addAll(buckets.get(count));
+        }
+        return order;
+    }
+
+    /**
+     * 合并后的确认帧：分片只有在所有接收端都已接收时才算已接收
+     */
+    public synchronized AckFrame combined(String sessionId) {
+        Broadcast broadcast = broadcast(sessionId);
+        return AckFrame.of(sessionId, broadcast.totalChunks, broadcast.receivedByAll());
+    }
+
+    /**
+     * 按当前的接收状态安排轮播：全部接收端完成时停止播放，否则替换补发队列为 {@link #retransmitOrder(String)}，
+     * 循环播放时跳过所有接收端都已接收的分片
+     */
+    public void schedule(FrameCarousel carousel, String sessionId) {
+        BitSet receivedByAll;
+        List<Integer> order;
+        synchronized (this) {
+            Broadcast broadcast = broadcast(sessionId);
+            if (broadcast.isComplete()) {
+                carousel.remove(sessionId);
+                return;
+            }
+            receivedByAll = broadcast.receivedByAll();
+            order = retransmitOrder(sessionId);
+        }
+        carousel.reschedule(sessionId, receivedByAll::get, order);
+    }
+
+    public synchronized boolean isComplete(String sessionId) {
+        return broadcast(sessionId).isComplete();
+    }
+
+    /**
+     * 各接收端已接收的分片数
+     */
+    public synchronized Map<String, Integer> getReceivedCounts(String sessionId) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        broadcast(sessionId).receivers.forEach((receiver, received) -> counts.put(receiver, received.cardinality()));
+        return counts;
+    }
+
+    public synchronized void remove(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    private Broadcast broadcast(String sessionId) {
+        Broadcast broadcast = sessions.get(sessionId);
+        if (broadcast == null) {
+            throw new NetChannelsException("Broadcast session not found: " + sessionId);
+        }
+        return broadcast;
+    }
+
+    private static class Broadcast {
+        private final int totalChunks;
+        // 接收端 -> 已接收分片的位图
+        private final Map<String, BitSet> receivers = new LinkedHashMap<>();
+
+        Broadcast(int totalChunks) {
+            this.totalChunks = totalChunks;
+        }
+
+        BitSet receivedByAll() {
+            BitSet all = new BitSet(totalChunks);
+            all.set(0, totalChunks);
+            receivers.values().forEach(all::and);
+            return all;
+        }
+
+        boolean isComplete() {
+            return receivedByAll().cardinality() == totalChunks;
+        }
+    }
+}
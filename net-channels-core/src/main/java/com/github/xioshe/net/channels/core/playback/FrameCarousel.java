@@ -0,0 +1,250 @@
+package com.github.xioshe.net.channels.core.playback;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.AckFrame;
+import com.github.xioshe.net.channels.core.protocol.ScannerProfile;
+import com.github.xioshe.net.channels.core.transfer.FountainFrameStream;
+import com.github.xioshe.net.channels.core.transfer.FrameStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * 二维码轮播调度器：按目标帧率把帧交给展示端，循环播放会话的全部分片，直到会话被移除。
+ * <br/>
+ * 每个会话内的出帧顺序：先补发接收端报告缺失的分片，再按顺序播放尚未展示过的分片，全部展示过后从头循环；
+ * 喷泉码会话不循环，持续生成新的编码帧。多个会话同时播放时按轮转方式交替出帧，每个会话获得相同的帧率份额。
+ */
+@Slf4j
+public class FrameCarousel implements Closeable {
+    private final Consumer<String> display;
+    private final long periodNanos;
+    private final Map<String, Playback> sessions = new HashMap<>();
+    // 轮转顺序，队首为下一个出帧的会话
+    private final ArrayDeque<Playback> rotation = new ArrayDeque<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 帧率取扫码设备档案的经验帧率
+     */
+    public FrameCarousel(ScannerProfile profile, Consumer<String> display) {
+        this(profile.getFramesPerSecond(), display);
+    }
+
+    /**
+     * @param framesPerSecond 目标帧率，所有会话共享
+     * @param display         展示一帧二维码数据，在调度线程中调用
+     */
+    public FrameCarousel(double framesPerSecond, Consumer<String> display) {
+        if (framesPerSecond <= 0) {
+            throw new IllegalArgumentException("framesPerSecond must be positive");
+        }
+        this.display = display;
+        this.periodNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / framesPerSecond));
+    }
+
+    public synchronized void add(String sessionId, List<String> frames) {
+        if (frames == null || frames.isEmpty()) {
+            throw new IllegalArgumentException("Frames cannot be null or empty");
+        }
+        add(new Playback(sessionId, frames::get, frames.size(), false));
+    }
+
+    public synchronized void add(FrameStream stream) {
+        add(new Playback(stream.getSessionId(), stream::frame, stream.getTotalChunks(), false));
+    }
+
+    public synchronized void add(FountainFrameStream stream) {
+        add(new Playback(stream.getSessionId(), stream::frame, stream.getTotalChunks(), true));
+    }
+
+    /**
+     * 按序号取帧的会话，供 {@link StripedCarousel} 把会话的一部分分片交给当前展示端
+     */
+    synchronized void add(String sessionId, IntFunction<String> frames, int size, boolean rateless) {
+        add(new Playback(sessionId, frames, size, rateless));
+    }
+
+    private void add(Playback playback) {
+        if (sessions.putIfAbsent(playback.sessionId, playback) != null) {
+            throw new NetChannelsException("Session already playing: " + playback.sessionId);
+        }
+        rotation.addLast(playback);
+        log.debug("Start playing session {} with {} frames", playback.sessionId, playback.size);
+    }
+
+    /**
+     * 接收端报告缺失的分片，在该会话下一次出帧时优先补发。会话不在播放中时忽略。
+     */
+    public synchronized void reportMissing(String sessionId, List<Integer> chunks) {
+        Playback playback = sessions.get(sessionId);
+        if (playback == null || playback.rateless) {
+            return;
+        }
+        for (Integer chunk : chunks) {
+            if (chunk == null || chunk < 0 || chunk >= playback.size) {
+                throw new NetChannelsException("Chunk %d not found".formatted(chunk));
+            }
+            if (!playback.queued.get(chunk)) {
+                playback.queued.set(chunk);
+                playback.missing.addLast(chunk);
+            }
+        }
+    }
+
+    /**
+     * 处理接收端的确认帧：会话已完成时停止播放；否则优先补发确认帧中的缺失分片，
+     * 循环播放时跳过已确认接收的分片。喷泉码会话只处理完成确认。
+     */
+    public synchronized void acknowledge(AckFrame ack) {
+        if (ack.isComplete()) {
+            remove(ack.getSessionId());
+            return;
+        }
+        acknowledge(ack.getSessionId(), ack::isReceived, ack.getMissingChunks());
+    }
+
+    /**
+     * @param received 按会话内序号判断分片是否已确认接收
+     * @param missing  需要优先补发的分片
+     */
+    synchronized void acknowledge(String sessionId, IntPredicate received, List<Integer> missing) {
+        Playback playback = sessions.get(sessionId);
+        if (playback == null || playback.rateless) {
+            return;
+        }
+        for (int i = 0; i < playback.size; i++) {
+            if (received.test(i)) {
+                playback.acked.set(i);
+            }
+        }
+        reportMissing(sessionId, missing);
+    }
+
+    /**
+     * 用新的补发顺序替换会话的补发队列，供 {@link BroadcastTracker} 按缺失的接收端数排序补发
+     */
+    synchronized void reschedule(String sessionId, IntPredicate received, List<Integer> ordered) {
+        Playback playback = sessions.get(sessionId);
+        if (playback == null || playback.rateless) {
+            return;
+        }
+        playback.missing.clear();
+        playback.queued.clear();
+        acknowledge(sessionId, received, ordered);
+    }
+
+    /**
+     * 停止播放会话，通常在接收端确认完成后调用
+     */
+    public synchronized void remove(String sessionId) {
+        Playback playback = sessions.remove(sessionId);
+        if (playback != null) {
+            rotation.remove(playback);
+            log.debug("Stop playing session {} after {} frames", sessionId, playback.shown);
+        }
+    }
+
+    public synchronized boolean isPlaying(String sessionId) {
+        return sessions.containsKey(sessionId);
+    }
+
+    public synchronized int getActiveSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * 按调度规则取出下一帧，没有播放中的会话时返回空
+     */
+    public synchronized Optional<String> nextFrame() {
+        Playback playback = rotation.pollFirst();
+        if (playback == null) {
+            return Optional.empty();
+        }
+        rotation.addLast(playback);
+        return Optional.of(playback.nextFrame());
+    }
+
+    /**
+     * 启动调度线程，按目标帧率出帧。没有播放中的会话时跳过该帧的时间片。
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "frame-carousel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::tick, 0, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void tick() {
+        try {
+            nextFrame().ifPresent(display);
+        } catch (Exception e) {
+            // 异常会终止周期任务，记录后继续播放
+            log.error("Failed to display frame", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private static class Playback {
+        private final String sessionId;
+        private final IntFunction<String> frames;
+        private final int size;
+        // 喷泉码会话：序号持续递增，不循环、不补发
+        private final boolean rateless;
+        private final ArrayDeque<Integer> missing = new ArrayDeque<>();
+        private final BitSet queued = new BitSet();
+        // 接收端已确认的分片，循环播放时跳过
+        private final BitSet acked = new BitSet();
+        private int cursor;
+        private long shown;
+
+        Playback(String sessionId, IntFunction<String> frames, int size, boolean rateless) {
+            this.sessionId = sessionId;
+            this.frames = frames;
+            this.size = size;
+            this.rateless = rateless;
+        }
+
+        String nextFrame() {
+            int index;
+            Integer chunk = missing.pollFirst();
+            if (chunk != null) {
+                queued.clear(chunk);
+                index = chunk;
+            } else {
+                if (!rateless && acked.cardinality() < size) {
+                    int next = acked.nextClearBit(cursor);
+                    cursor = next < size ? next : acked.nextClearBit(0);
+                }
+                index = cursor;
+                cursor = rateless ? cursor + 1 : (cursor + 1) % size;
+            }
+            shown++;
+            return frames.apply(index);
+        }
+    }
+}
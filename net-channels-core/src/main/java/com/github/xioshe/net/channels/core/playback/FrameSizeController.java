@@ -0,0 +1,236 @@
+package com.github.xioshe.net.channels.core.playback;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.ScanReport;
+import com.github.xioshe.net.channels.core.protocol.FrameSetting;
+import com.github.xioshe.net.channels.core.protocol.QRCodeCapacity;
+import com.github.xioshe.net.channels.core.protocol.ScannerProfile;
+import com.github.xioshe.net.channels.core.protocol.TransferProtocol;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 帧参数闭环控制：按扫码设备的观测结果上下调整二维码版本和纠错等级，目标是有效吞吐（每秒新接收的数据字节数）最大，
+ * 而不是每帧容量最大。
+ * <br/>
+ * 候选参数按每帧容量从小到大排成阶梯，每台设备独立记录各档位的成功率和有效吞吐（指数加权平均）：
+ * <ul>
+ *     <li>成功率低于 {@value #DOWN_THRESHOLD} 时降一档，换用更小的版本或更高的纠错等级</li>
+ *     <li>识别出的帧中重复分片的比例不低于 {@value #DUPLICATE_THRESHOLD} 时保持当前档位：
+ *     此时有效吞吐受轮播重复播放已接收分片的限制，不反映帧参数的效果，不计入该档位的有效吞吐</li>
+ *     <li>否则选择有效吞吐最高的档位；当前档位即为最优时，定期试探未试过或统计已过期的相邻档位：
+ *     展示的帧中没有带来新分片的比例不超过 1 - {@value #PROBE_THRESHOLD} 时试探上一档，有识别失败时试探下一档</li>
+ * </ul>
+ * 一个会话的分片大小在拆分时确定，新的参数从下一个会话开始生效；分段传输的每个分段是独立会话，可以用
+ * {@link com.github.xioshe.net.channels.core.transfer.SegmentedTransfer#segment(int, com.github.xioshe.net.channels.core.transfer.DataSplitter)}
+ * 在传输中途按新参数拆分后续分段。
+ */
+@Slf4j
+public class FrameSizeController {
+    // 成功率低于该值时降一档
+    static final double DOWN_THRESHOLD = 0.6;
+    // 展示的帧中带来新分片的比例高于该值时试探上一档
+    static final double PROBE_THRESHOLD = 0.9;
+    // 重复分片比例不低于该值时保持当前档位
+    static final double DUPLICATE_THRESHOLD = 0.5;
+    // 指数加权平均中新观测值的权重
+    private static final double EWMA_WEIGHT = 0.25;
+    // 档位的统计超过该次数未更新时视为过期，可以重新试探
+    static final int STALE_REPORTS = 10;
+
+    @Getter
+    private final List<FrameSetting> ladder;
+    private final int initialRung;
+    private final double framesPerSecond;
+    private final Map<String, DeviceState> devices = new ConcurrentHashMap<>();
+
+    /**
+     * @param protocol        传输协议，决定编码模式和每帧的有效载荷
+     * @param initialProfile  新设备的初始档位取不超过该档案容量的最大档位，默认 {@link ScannerProfile#BASIC}
+     * @param minVersion      最小二维码版本，默认 4
+     * @param maxVersion      最大二维码版本，默认 40
+     * @param versionStep     相邻版本的间隔，默认 3；同一版本提供纠错等级 M 和 L 两档
+     * @param framesPerSecond 观测结果没有时长时按该帧率推算，默认 {@link ScannerProfile} 的经验帧率
+     */
+    @Builder
+    private FrameSizeController(TransferProtocol protocol, ScannerProfile initialProfile, Integer minVersion,
+                                Integer maxVersion, Integer versionStep, Double framesPerSecond) {
+        ScannerProfile profile = initialProfile != null ? initialProfile : ScannerProfile.BASIC;
+        int min = minVersion != null ? minVersion : 4;
+        int max = maxVersion != null ? maxVersion : QRCodeCapacity.MAX_VERSION;
+        int step = versionStep != null ? versionStep : 3;
+        if (min < QRCodeCapacity.MIN_VERSION || max > QRCodeCapacity.MAX_VERSION || min > max || step <= 0) {
+            throw new IllegalArgumentException("Invalid QR version range [%d, %d] step %d".formatted(min, max, step));
+        }
+        this.ladder = buildLadder(protocol, profile, min, max, step);
+        int initial = 0;
+        for (int i = 0; i < ladder.size(); i++) {
+            if (ladder.get(i).getCapacity() <= profile.getCapacity(protocol.encodingMode())) {
+                initial = i;
+            }
+        }
+        this.initialRung = initial;
+        this.framesPerSecond = framesPerSecond != null ? framesPerSecond : profile.getFramesPerSecond();
+    }
+
+    private static List<FrameSetting> buildLadder(TransferProtocol protocol, ScannerProfile profile,
+                                                  int min, int max, int step) {
+        List<FrameSetting> candidates = new ArrayList<>();
+        for (int version = min; version <= max; version += step) {
+            candidates.add(FrameSetting.of(protocol, version, QRCodeCapacity.ErrorCorrectionLevel.M));
+            candidates.add(FrameSetting.of(protocol, version, QRCodeCapacity.ErrorCorrectionLevel.L));
+        }
+        // 设备档案本身的参数也作为一档，初始档位与档案完全一致
+        candidates.add(FrameSetting.of(protocol, profile.getQrVersion(), profile.getErrorCorrectionLevel()));
+        candidates.sort(Comparator.comparingInt(FrameSetting::getCapacity));
+
+        List<FrameSetting> ladder = new ArrayList<>(candidates.size());
+        for (FrameSetting setting : candidates) {
+            if (setting.getPayloadSize() <= 0) {
+                continue;
+            }
+            // 容量相同的参数只保留第一个（版本更小或纠错等级更高）
+            if (ladder.isEmpty() || ladder.get(ladder.size() - 1).getCapacity() < setting.getCapacity()) {
+                ladder.add(setting);
+            }
+        }
+        if (ladder.isEmpty()) {
+            throw new NetChannelsException("No QR version in range can hold a packet header");
+        }
+        return List.copyOf(ladder);
+    }
+
+    /**
+     * 设备当前应使用的帧参数，新设备为初始档位
+     */
+    public FrameSetting current(String deviceId) {
+        DeviceState state = devices.get(deviceId);
+        if (state == null) {
+            return ladder.get(initialRung);
+        }
+        synchronized (state) {
+            return ladder.get(state.current);
+        }
+    }
+
+    /**
+     * 记录设备在指定帧参数下的观测结果，返回之后应使用的帧参数
+     *
+     * @param setting 观测期间使用的帧参数，必须来自 {@link #getLadder()}
+     */
+    public FrameSetting record(String deviceId, FrameSetting setting, ScanReport report) {
+        int rung = ladder.indexOf(setting);
+        if (rung < 0) {
+            throw new NetChannelsException("Frame setting not in ladder: " + setting);
+        }
+        DeviceState state = devices.computeIfAbsent(deviceId, id -> new DeviceState(initialRung, ladder.size()));
+        if (report.getFramesShown() <= 0) {
+            return current(deviceId);
+        }
+        double seconds = report.getElapsed() != null
+                ? report.getElapsed().toNanos() / 1e9
+                : report.getFramesShown() / framesPerSecond;
+        double goodput = seconds > 0 ? (double) report.getNewChunks() * setting.getPayloadSize() / seconds : 0;
+
+        synchronized (state) {
+            state.reports++;
+            RungStats stats = state.stats[rung];
+            boolean duplicated = report.duplicateRatio() >= DUPLICATE_THRESHOLD;
+            stats.update(report.scanSuccess(), duplicated ? null : goodput, state.reports);
+
+            int previous = state.current;
+            state.current = decide(state, rung, report);
+            if (state.current != previous) {
+                log.info("Device {} frame setting {} -> {}, success {}, goodput {} B/s", deviceId,
+                        ladder.get(previous), ladder.get(state.current),
+                        "%.2f".formatted(stats.success), "%.0f".formatted(stats.goodput));
+            }
+            return ladder.get(state.current);
+        }
+    }
+
+    /**
+     * 清除设备的统计，例如更换扫码设备或调整环境光之后
+     */
+    public void reset(String deviceId) {
+        devices.remove(deviceId);
+    }
+
+    private int decide(DeviceState state, int rung, ScanReport report) {
+        RungStats observed = state.stats[rung];
+        if (observed.success < DOWN_THRESHOLD) {
+            return Math.max(0, rung - 1);
+        }
+        if (report.duplicateRatio() >= DUPLICATE_THRESHOLD) {
+            return rung;
+        }
+        int best = rung;
+        for (int i = 0; i < state.stats.length; i++) {
+            RungStats stats = state.stats[i];
+            if (stats.goodputSamples > 0 && stats.success >= DOWN_THRESHOLD
+                && stats.goodput > state.stats[best].goodput) {
+                best = i;
+            }
+        }
+        if (best == rung) {
+            // 几乎每帧都带来新分片时才向上试探；有识别失败时向下试探，较小的帧可能因识别率更高而吞吐更大
+            if (report.missRate() <= 1 - PROBE_THRESHOLD && shouldProbe(state, rung + 1)) {
+                return rung + 1;
+            }
+            if (observed.success < 1.0 && shouldProbe(state, rung - 1)) {
+                return rung - 1;
+            }
+        }
+        return best;
+    }
+
+    private boolean shouldProbe(DeviceState state, int rung) {
+        if (rung < 0 || rung >= ladder.size()) {
+            return false;
+        }
+        RungStats stats = state.stats[rung];
+        return stats.samples == 0 || state.reports - stats.lastReport >= STALE_REPORTS;
+    }
+
+    private static class DeviceState {
+        private final RungStats[] stats;
+        private int current;
+        private long reports;
+
+        DeviceState(int current, int rungs) {
+            this.current = current;
+            this.stats = new RungStats[rungs];
+            for (int i = 0; i < rungs; i++) {
+                stats[i] = new RungStats();
+            }
+        }
+    }
+
+    private static class RungStats {
+        private double success;
+        private double goodput;
+        private int samples;
+        private int goodputSamples;
+        private long lastReport;
+
+        /**
+         * @param goodput 有效吞吐，为空时不更新
+         */
+        void update(double success, Double goodput, long report) {
+            this.success = samples == 0 ? success : this.success + EWMA_WEIGHT * (success - this.success);
+            if (goodput != null) {
+                this.goodput = goodputSamples == 0 ? goodput : this.goodput + EWMA_WEIGHT * (goodput - this.goodput);
+                goodputSamples++;
+            }
+            samples++;
+            lastReport = report;
+        }
+    }
+}
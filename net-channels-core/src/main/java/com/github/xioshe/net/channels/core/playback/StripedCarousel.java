@@ -0,0 +1,150 @@
+package com.github.xioshe.net.channels.core.playback;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.AckFrame;
+import com.github.xioshe.net.channels.core.protocol.ScannerProfile;
+import com.github.xioshe.net.channels.core.transfer.FountainFrameStream;
+import com.github.xioshe.net.channels.core.transfer.FrameStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * 多通道轮播：把一个会话的帧按条带分配到多个展示端，每个展示端对应一台扫码设备，各通道以相同帧率并行播放。
+ * <br/>
+ * 第 i 个分片由通道 {@code i % N} 播放，各通道只循环自己的分片，N 个通道的总吞吐约为单通道的 N 倍。
+ * 喷泉码会话中各通道使用互不重叠的编码序号（通道 c 播放 c、c+N、c+2N ...），接收端收到的符号不会重复。
+ * <br/>
+ * 接收端的多个扫码输入可以同时把帧交给同一个 {@link com.github.xioshe.net.channels.core.transfer.DataAssembler}。
+ */
+@Slf4j
+public class StripedCarousel implements Closeable {
+    private final List<FrameCarousel> channels;
+
+    public StripedCarousel(ScannerProfile profile, List<Consumer<String>> displays) {
+        this(profile.getFramesPerSecond(), displays);
+    }
+
+    /**
+     * @param framesPerSecond 每个通道的目标帧率
+     * @param displays        各通道的展示端，在各自的调度线程中调用
+     */
+    public StripedCarousel(double framesPerSecond, List<Consumer<String>> displays) {
+        if (displays == null || displays.isEmpty()) {
+            throw new IllegalArgumentException("Displays cannot be null or empty");
+        }
+        List<FrameCarousel> list = new ArrayList<>(displays.size());
+        for (Consumer<String> display : displays) {
+            list.add(new FrameCarousel(framesPerSecond, display));
+        }
+        this.channels = List.copyOf(list);
+    }
+
+    public int getChannels() {
+        return channels.size();
+    }
+
+    public void add(String sessionId, List<String> frames) {
+        if (frames == null || frames.isEmpty()) {
+            throw new IllegalArgumentException("Frames cannot be null or empty");
+        }
+        stripe(sessionId, frames::get, frames.size(), false);
+    }
+
+    public void add(FrameStream stream) {
+        stripe(stream.getSessionId(), stream::frame, stream.getTotalChunks(), false);
+    }
+
+    public void add(FountainFrameStream stream) {
+        stripe(stream.getSessionId(), stream::frame, stream.getTotalChunks(), true);
+    }
+
+    private synchronized void stripe(String sessionId, IntFunction<String> frames, int size, boolean rateless) {
+        if (channels.get(0).isPlaying(sessionId)) {
+            throw new NetChannelsException("Session already playing: " + sessionId);
+        }
+        int n = channels.size();
+        for (int c = 0; c < n; c++) {
+            // 分片数少于通道数时，多出的通道不播放该会话（喷泉码会话不受限制）
+            int stripeSize = rateless ? size : (size - c + n - 1) / n;
+            if (stripeSize <= 0) {
+                break;
+            }
+            int channel = c;
+            channels.get(c).add(sessionId, index -> frames.apply(channel + index * n), stripeSize, rateless);
+        }
+        log.debug("Striped session {} with {} frames across {} channels", sessionId, size, n);
+    }
+
+    /**
+     * 接收端报告缺失的分片，按分片所在的通道转交补发
+     */
+    public synchronized void reportMissing(String sessionId, List<Integer> chunks) {
+        List<List<Integer>> perChannel = perChannel(chunks);
+        for (int c = 0; c < channels.size(); c++) {
+            if (!perChannel.get(c).isEmpty()) {
+                channels.get(c).reportMissing(sessionId, perChannel.get(c));
+            }
+        }
+    }
+
+    /**
+     * 处理接收端的确认帧，按分片所在的通道转交
+     */
+    public synchronized void acknowledge(AckFrame ack) {
+        if (ack.isComplete()) {
+            remove(ack.getSessionId());
+            return;
+        }
+        int n = channels.size();
+        List<List<Integer>> perChannel = perChannel(ack.getMissingChunks());
+        for (int c = 0; c < n; c++) {
+            int channel = c;
+            channels.get(c).acknowledge(ack.getSessionId(),
+                    index -> ack.isReceived(channel + index * n), perChannel.get(c));
+        }
+    }
+
+    /**
+     * 把分片序号换算为各通道内的序号
+     */
+    private List<List<Integer>> perChannel(List<Integer> chunks) {
+        int n = channels.size();
+        List<List<Integer>> perChannel = new ArrayList<>(n);
+        for (int c = 0; c < n; c++) {
+            perChannel.add(new ArrayList<>());
+        }
+        for (Integer chunk : chunks) {
+            if (chunk == null || chunk < 0) {
+                throw new NetChannelsException("Chunk %d not found".formatted(chunk));
+            }
+            perChannel.get(chunk % n).add(chunk / n);
+        }
+        return perChannel;
+    }
+
+    public synchronized void remove(String sessionId) {
+        channels.forEach(channel -> channel.remove(sessionId));
+    }
+
+    public boolean isPlaying(String sessionId) {
+        return channels.get(0).isPlaying(sessionId);
+    }
+
+    public void start() {
+        channels.forEach(FrameCarousel::start);
+    }
+
+    @Override
+    public void close() {
+        channels.forEach(FrameCarousel::close);
+    }
+
+    FrameCarousel channel(int index) {
+        return channels.get(index);
+    }
+}
@@ -0,0 +1,258 @@
+package com.github.xioshe.net.channels.core.protocol;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.AckFrame;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 确认帧的二维码编码。
+ * <br/>
+ * 格式：前缀 {@value #PREFIX} 加 Base64 URL（无填充）编码的字节，依次为版本号、标志位、会话 ID（长度 1 字节 + ASCII）、
+ * 总分片数、base、windowEnd（varint），之后按标志位二选一：
+ * <ul>
+ *     <li>区间：区间数，每个缺失区间记录与上一区间末尾的间隔和长度减一（varint），适合少量成段的缺失</li>
+ *     <li>位图：[base, windowEnd) 每个分片 1 位，1 表示缺失，适合零散的缺失</li>
+ * </ul>
+ * 编码时选择覆盖窗口更大、其次字节数更少的一种；超出容量时截断窗口，剩余分片在下一次确认中报告。
+ */
+public final class AckFrameCodec {
+    public static final String PREFIX = "ACK:";
+    /**
+     * 默认的确认帧最大字符数，对应版本 13 左右的二维码，显示和识别都比较快
+     */
+    public static final int DEFAULT_MAX_CHARS = 512;
+
+    private static final byte VERSION = 1;
+    private static final byte FLAG_COMPLETE = 0x01;
+    private static final byte FLAG_BITMAP = 0x02;
+
+    private AckFrameCodec() {
+    }
+
+    public static boolean isAckFrame(String qrCodeData) {
+        return qrCodeData != null && qrCodeData.startsWith(PREFIX);
+    }
+
+    public static String encode(AckFrame ack) {
+        return encode(ack, DEFAULT_MAX_CHARS);
+    }
+
+    /**
+     * @param maxChars 二维码数据的最大字符数
+     */
+    public static String encode(AckFrame ack, int maxChars) {
+        byte[] sessionId = ack.getSessionId().getBytes(StandardCharsets.US_ASCII);
+        if (sessionId.length > Byte.MAX_VALUE) {
+            throw new NetChannelsException("Session id too long: " + ack.getSessionId());
+        }
+        int budget = (maxChars - PREFIX.length()) * 3 / 4 - headerSize(sessionId.length, ack);
+        if (budget < 1) {
+            throw new NetChannelsException("Ack frame capacity %d is too small".formatted(maxChars));
+        }
+
+        ByteArrayOutputStream body;
+        byte flags;
+        int windowEnd;
+        if (ack.isComplete()) {
+            body = new ByteArrayOutputStream();
+            flags = FLAG_COMPLETE;
+            windowEnd = ack.getTotalChunks();
+        } else {
+            ByteArrayOutputStream ranges = new ByteArrayOutputStream();
+            int rangesEnd = writeRanges(ack, budget, ranges);
+            int bitmapEnd = (int) Math.min(ack.getWindowEnd(), ack.getBase() + budget * 8L);
+            byte[] bitmap = bitmap(ack, bitmapEnd);
+            if (bitmapEnd > rangesEnd || (bitmapEnd == rangesEnd && bitmap.length < ranges.size())) {
+                body = new ByteArrayOutputStream();
+                body.writeBytes(bitmap);
+                flags = FLAG_BITMAP;
+                windowEnd = bitmapEnd;
+            } else {
+                body = ranges;
+                flags = 0;
+                windowEnd = rangesEnd;
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + body.size());
+        out.write(VERSION);
+        out.write(flags);
+        out.write(sessionId.length);
+        out.write(sessionId, 0, sessionId.length);
+        writeVarint(out, ack.getTotalChunks());
+        writeVarint(out, ack.getBase());
+        writeVarint(out, windowEnd);
+        out.writeBytes(body.toByteArray());
+        return PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    public static AckFrame decode(String qrCodeData) {
+        if (!isAckFrame(qrCodeData)) {
+            throw new NetChannelsException("Not an ack frame");
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(qrCodeData.substring(PREFIX.length())));
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new NetChannelsException("Unsupported ack frame version: " + version);
+            }
+            byte flags = buffer.get();
+            byte[] sessionId = new byte[buffer.get()];
+            buffer.get(sessionId);
+            int totalChunks = readVarint(buffer);
+            int base = readVarint(buffer);
+            int windowEnd = readVarint(buffer);
+            if (base > windowEnd || windowEnd > totalChunks) {
+                throw new NetChannelsException("Invalid ack window [%d, %d) of %d".formatted(base, windowEnd, totalChunks));
+            }
+            String id = new String(sessionId, StandardCharsets.US_ASCII);
+            if ((flags & FLAG_COMPLETE) != 0) {
+                return AckFrame.completed(id, totalChunks);
+            }
+            List<Integer> missing = (flags & FLAG_BITMAP) != 0
+                    ? readBitmap(buffer, base, windowEnd)
+                    : readRanges(buffer, base, windowEnd);
+            return AckFrame.builder()
+                    .sessionId(id)
+                    .totalChunks(totalChunks)
+                    .base(base)
+                    .windowEnd(windowEnd)
+                    .missingChunks(missing)
+                    .build();
+        } catch (IllegalArgumentException | BufferUnderflowException | NegativeArraySizeException e) {
+            throw new NetChannelsException("Malformed ack frame", e);
+        }
+    }
+
+    private static int headerSize(int sessionIdLength, AckFrame ack) {
+        // windowEnd 截断后不会变长，按完整窗口估算
+        return 3 + sessionIdLength + varintSize(ack.getTotalChunks()) + varintSize(ack.getBase())
+               + varintSize(ack.getWindowEnd());
+    }
+
+    /**
+     * 在预算内写入尽可能多的缺失区间
+     *
+     * @return 写入的区间覆盖到的窗口上界
+     */
+    private static int writeRanges(AckFrame ack, int budget, ByteArrayOutputStream out) {
+        List<Integer> missing = ack.getMissingChunks();
+        ByteArrayOutputStream ranges = new ByteArrayOutputStream();
+        int count = 0;
+        int previousEnd = ack.getBase();
+        int windowEnd = ack.getWindowEnd();
+        for (int i = 0; i < missing.size(); ) {
+            int start = missing.get(i);
+            int end = start + 1;
+            while (i + end - start < missing.size() && missing.get(i + end - start) == end) {
+                end++;
+            }
+            int size = varintSize(start - previousEnd) + varintSize(end - start - 1);
+            if (varintSize(count + 1) + ranges.size() + size > budget) {
+                // 之后的区间放不下，窗口截断到该区间开始处
+                windowEnd = start;
+                break;
+            }
+            writeVarint(ranges, start - previousEnd);
+            writeVarint(ranges, end - start - 1);
+            count++;
+            i += end - start;
+            previousEnd = end;
+        }
+        writeVarint(out, count);
+        out.writeBytes(ranges.toByteArray());
+        return windowEnd;
+    }
+
+    private static byte[] bitmap(AckFrame ack, int windowEnd) {
+        int base = ack.getBase();
+        byte[] bitmap = new byte[(windowEnd - base + 7) / 8];
+        for (int chunk : ack.getMissingChunks()) {
+            if (chunk >= windowEnd) {
+                break;
+            }
+            int bit = chunk - base;
+            bitmap[bit >>> 3] |= (byte) (0x80 >>> (bit & 7));
+        }
+        return bitmap;
+    }
+
+    private static List<Integer> readRanges(ByteBuffer buffer, int base, int windowEnd) {
+        int count = readVarint(buffer);
+        // 每个区间至少 2 字节
+        if (count > buffer.remaining() / 2) {
+            throw new NetChannelsException("Ack range count %d exceeds frame size".formatted(count));
+        }
+        List<Integer> missing = new ArrayList<>();
+        int previousEnd = base;
+        for (int r = 0; r < count; r++) {
+            // 按 long 计算，避免恶意的间隔或长度溢出为负数
+            long start = (long) previousEnd + readVarint(buffer);
+            long end = start + readVarint(buffer) + 1;
+            if (end > windowEnd) {
+                throw new NetChannelsException("Ack range exceeds window: " + end);
+            }
+            for (int chunk = (int) start; chunk < end; chunk++) {
+                missing.add(chunk);
+            }
+            previousEnd = (int) end;
+        }
+        return missing;
+    }
+
+    private static List<Integer> readBitmap(ByteBuffer buffer, int base, int windowEnd) {
+        int length = (int) ((windowEnd - (long) base + 7) / 8);
+        // 先检查剩余字节，避免按伪造的窗口分配大数组
+        if (length > buffer.remaining()) {
+            throw new NetChannelsException("Ack bitmap of %d bytes exceeds frame size".formatted(length));
+        }
+        List<Integer> missing = new ArrayList<>();
+        byte[] bitmap = new byte[length];
+        buffer.get(bitmap);
+        for (int bit = 0; bit < windowEnd - base; bit++) {
+            if ((bitmap[bit >>> 3] & (0x80 >>> (bit & 7))) != 0) {
+                missing.add(base + bit);
+            }
+        }
+        return missing;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7f) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = buffer.get() & 0xff;
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new NetChannelsException("Malformed varint in ack frame");
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.xioshe.net.channels.core.protocol;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Base45 编码（RFC 9285），输出字符全部属于二维码字母数字模式的字符集。
+ * <br/>
+ * 每 2 个字节编码为 3 个字符，剩余 1 个字节编码为 2 个字符。字母数字模式下每个字符占 5.5 位，
+ * 每字节数据占 8.25 位；Base64 在字节模式下每字节数据占 10.67 位。
+ */
+public final class Base45 {
+    private static final byte[] ALPHABET =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private Base45() {
+    }
+
+    /**
+     * length 个字节编码后的字符数
+     */
+    public static int encodedLength(int length) {
+        return length / 2 * 3 + length % 2 * 2;
+    }
+
+    /**
+     * 容纳 chars 个字符时最多可编码的字节数
+     */
+    public static int maxDecodedLength(int chars) {
+        return chars / 3 * 2 + (chars % 3 == 2 ? 1 : 0);
+    }
+
+    public static String encode(byte[] src) {
+        byte[] dst = new byte[encodedLength(src.length)];
+        encode(src, src.length, dst);
+        return new String(dst, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 把 src 的前 length 个字节编码为 ASCII 字符写入 dst
+     *
+     * @return 写入的字符数
+     */
+    public static int encode(byte[] src, int length, byte[] dst) {
+        int sp = 0;
+        int dp = 0;
+        int pairs = length / 2 * 2;
+        while (sp < pairs) {
+            int n = (src[sp++] & 0xff) << 8 | (src[sp++] & 0xff);
+            dst[dp++] = ALPHABET[n % 45];
+            dst[dp++] = ALPHABET[n / 45 % 45];
+            dst[dp++] = ALPHABET[n / 2025];
+        }
+        if (sp < length) {
+            int n = src[sp] & 0xff;
+            dst[dp++] = ALPHABET[n % 45];
+            dst[dp++] = ALPHABET[n / 45];
+        }
+        return dp;
+    }
+
+    public static byte[] decode(String encoded) {
+        int length = encoded.length();
+        if (length % 3 == 1) {
+            throw new IllegalArgumentException("Invalid Base45 length: " + length);
+        }
+        byte[] dst = new byte[maxDecodedLength(length)];
+        int dp = 0;
+        for (int sp = 0; sp < length; sp += 3) {
+            int n = digit(encoded, sp) + digit(encoded, sp + 1) * 45;
+            if (sp + 2 < length) {
+                n += digit(encoded, sp + 2) * 2025;
+                if (n > 0xffff) {
+                    throw new IllegalArgumentException("Invalid Base45 group at " + sp);
+                }
+                dst[dp++] = (byte) (n >>> 8);
+            } else if (n > 0xff) {
+                throw new IllegalArgumentException("Invalid Base45 group at " + sp);
+            }
+            dst[dp++] = (byte) n;
+        }
+        return dst;
+    }
+
+    private static int digit(String encoded, int index) {
+        char c = encoded.charAt(index);
+        int value = c < DECODE.length ? DECODE[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid Base45 character '%s' at %d".formatted(c, index));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.xioshe.net.channels.core.protocol;
+
+import com.github.xioshe.net.channels.core.model.ChunkLayout;
+import com.github.xioshe.net.channels.core.model.PacketHeader;
+
+/**
+ * 使用 Base45 编码数据包的协议，二维码数据只包含字母数字模式的字符，生成二维码时应使用字母数字模式
+ * （ZXing 等库会根据内容自动选择）。
+ * <br/>
+ * 版本 40、纠错等级 L 的二维码在字母数字模式下可容纳 4296 个字符，约 2864 字节数据；
+ * 字节模式下 Base64 编码只能容纳约 2214 字节。包格式、校验方式与 {@link QRCodeProtocol} 相同，
+ * 发送端和接收端需要使用同一种编码。
+ */
+public class Base45QRCodeProtocol extends QRCodeProtocol {
+    private final PacketEncoder encoder = new PacketEncoder();
+
+    @Override
+    public String chunkToQRCode(ChunkLayout layout, int currentChunk, byte[] source, int offset, int length) {
+        if (source == null) {
+            throw new IllegalArgumentException("Packet data cannot be null");
+        }
+        String result = encoder.encodeBase45(layout, currentChunk, source, offset, length);
+        checkCapacity(result);
+        return result;
+    }
+
+    @Override
+    public int maxChunkSize(int qrCapacity) {
+        // Base45：每 3 个字符 2 字节，剩余 2 个字符 1 字节
+        int capacity = Math.min(qrCapacity, maxQRDataSize());
+        return Base45.maxDecodedLength(capacity) - PacketHeader.HEADER_SIZE - LENGTH_FIELD_SIZE;
+    }
+
+    @Override
+    public QRCodeCapacity.EncodingMode encodingMode() {
+        return QRCodeCapacity.EncodingMode.ALPHANUMERIC;
+    }
+
+    @Override
+    protected String encode(byte[] packetBytes) {
+        return Base45.encode(packetBytes);
+    }
+
+    @Override
+    protected byte[] decode(String qrCodeData) {
+        return Base45.decode(qrCodeData);
+    }
+
+    @Override
+    protected int maxQRDataSize() {
+        return QRCodeCapacity.MAX_ALPHANUMERIC_CAPACITY;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.xioshe.net.channels.core.protocol;
+
+import com.github.xioshe.net.channels.core.model.ChunkLayout;
+import com.github.xioshe.net.channels.core.model.PacketHeader;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 不做文本编码的协议：数据包的每个字节按 ISO-8859-1 对应为二维码数据中的一个字符，二维码使用字节模式。
+ * <br/>
+ * 省去 Base64 的 33% 膨胀，版本 40、纠错等级 L 的二维码可容纳 2953 字节的数据包。
+ * 要求扫码设备原样输出字节模式的内容（ISO-8859-1 透传或支持二进制的 HID POS），
+ * 生成二维码时也需要按 ISO-8859-1 写入字节，不能转为 UTF-8。
+ */
+public class BinaryQRCodeProtocol extends QRCodeProtocol {
+    private final PacketEncoder encoder = new PacketEncoder();
+
+    @Override
+    public String chunkToQRCode(ChunkLayout layout, int currentChunk, byte[] source, int offset, int length) {
+        if (source == null) {
+            throw new IllegalArgumentException("Packet data cannot be null");
+        }
+        String result = encoder.encodeBinary(layout, currentChunk, source, offset, length);
+        checkCapacity(result);
+        return result;
+    }
+
+    @Override
+    public int maxChunkSize(int qrCapacity) {
+        int capacity = Math.min(qrCapacity, maxQRDataSize());
+        return capacity - PacketHeader.HEADER_SIZE - LENGTH_FIELD_SIZE;
+    }
+
+    @Override
+    protected String encode(byte[] packetBytes) {
+        return new String(packetBytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    protected byte[] decode(String qrCodeData) {
+        // getBytes 会把超出 ISO-8859-1 的字符替换为 '?'，先检查，避免扫码设备转码后的数据被误读
+        for (int i = 0; i < qrCodeData.length(); i++) {
+            if (qrCodeData.charAt(i) > 0xff) {
+                throw new IllegalArgumentException("Non ISO-8859-1 character at " + i
+                                                   + ", scanner may have re-encoded binary content");
+            }
+        }
+        return qrCodeData.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.xioshe.net.channels.core.protocol;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 帧参数：二维码版本和纠错等级，以及由此确定的每帧容量和分片数据大小。
+ * <br/>
+ * 拆分端按 {@link #getCapacity()} 拆分，渲染端按相同的版本和纠错等级渲染。
+ */
+@Data
+@Builder
+public class FrameSetting {
+    private final int qrVersion;
+    private final QRCodeCapacity.ErrorCorrectionLevel errorCorrectionLevel;
+    /**
+     * 每帧二维码可容纳的字符数
+     */
+    private final int capacity;
+    /**
+     * 每帧容纳的加密数据字节数，即有效载荷
+     */
+    private final int payloadSize;
+
+    public static FrameSetting of(TransferProtocol protocol, int qrVersion,
+                                  QRCodeCapacity.ErrorCorrectionLevel errorCorrectionLevel) {
+        int capacity = protocol.encodingMode().capacity(qrVersion, errorCorrectionLevel);
+        return FrameSetting.builder()
+                .qrVersion(qrVersion)
+                .errorCorrectionLevel(errorCorrectionLevel)
+                .capacity(capacity)
+                .payloadSize(protocol.maxChunkSize(capacity))
+                .build();
+    }
+
+    @Override
+    public String toString() {
+        return "v%d-%s(%d)".formatted(qrVersion, errorCorrectionLevel, capacity);
+    }
+}
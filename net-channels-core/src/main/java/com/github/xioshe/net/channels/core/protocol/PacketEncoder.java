@@ -0,0 +1,176 @@
+package com.github.xioshe.net.channels.core.protocol;
+
+import com.github.xioshe.net.channels.core.model.ChunkLayout;
+import com.github.xioshe.net.channels.core.model.PacketHeader;
+import org.apache.commons.codec.digest.PureJavaCrc32C;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 分片数据的直接编码器，输出与 {@code TransferPacket#toBytes()} + Base64 URL 编码的结果一致。
+ * <br/>
+ * 包头和分片数据直接写入线程复用的字节缓冲区，再 Base64 编码到另一个复用缓冲区，
+ * 编码一个分片时唯一的内存分配是最终返回的字符串。
+ */
+public class PacketEncoder {
+    private static final byte[] BASE64_URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final int SESSION_ID_LENGTH = 9;
+    private static final int CHECKSUM_LENGTH = 8;
+    private static final int LENGTH_FIELD_SIZE = 4;
+
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * 编码一个分片
+     *
+     * @param layout 分片布局，提供包头中除分片序号和校验和以外的字段
+     * @param source 分片所在的数据，通常是完整的加密数据
+     * @param offset 分片在 source 中的起始位置
+     * @param length 分片长度
+     * @return Base64 URL 编码（无填充）的二维码数据
+     */
+    public String encode(ChunkLayout layout, int currentChunk, byte[] source, int offset, int length) {
+        Buffers buf = buffers.get();
+        int packetLength = writePacket(buf, layout, currentChunk, source, offset, length);
+        byte[] encoded = buf.encoded(encodedLength(packetLength));
+        int encodedLength = encodeBase64(buf.packet, packetLength, encoded);
+        return new String(encoded, 0, encodedLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 编码一个分片，参数同 {@link #encode}
+     *
+     * @return Base45 编码的二维码数据，适用于字母数字模式
+     */
+    public String encodeBase45(ChunkLayout layout, int currentChunk, byte[] source, int offset, int length) {
+        Buffers buf = buffers.get();
+        int packetLength = writePacket(buf, layout, currentChunk, source, offset, length);
+        byte[] encoded = buf.encoded(Base45.encodedLength(packetLength));
+        int encodedLength = Base45.encode(buf.packet, packetLength, encoded);
+        return new String(encoded, 0, encodedLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 编码一个分片，参数同 {@link #encode}
+     *
+     * @return 每个字符对应一个数据包字节（ISO-8859-1）的二维码数据，适用于字节模式原样透传的扫码设备
+     */
+    public String encodeBinary(ChunkLayout layout, int currentChunk, byte[] source, int offset, int length) {
+        Buffers buf = buffers.get();
+        int packetLength = writePacket(buf, layout, currentChunk, source, offset, length);
+        return new String(buf.packet, 0, packetLength, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 把包头和分片数据写入复用的包缓冲区
+     *
+     * @return 数据包的字节数
+     */
+    private static int writePacket(Buffers buf, ChunkLayout layout, int currentChunk,
+                                   byte[] source, int offset, int length) {
+        int packetLength = PacketHeader.HEADER_SIZE + LENGTH_FIELD_SIZE + length;
+        byte[] packet = buf.packet(packetLength);
+
+        int pos = 0;
+        packet[pos++] = PacketHeader.VERSION;
+        packet[pos++] = layout.getFlags();
+        pos = putSessionId(packet, pos, layout.getSessionId());
+        pos = putInt(packet, pos, layout.getTotalChunks());
+        pos = putInt(packet, pos, currentChunk);
+        pos = putInt(packet, pos, layout.getChunkSize());
+        pos = putInt(packet, pos, layout.getTotalSize());
+        pos = putChecksum(packet, pos, buf.crc, source, offset, length);
+        pos = putInt(packet, pos, length);
+        System.arraycopy(source, offset, packet, pos, length);
+        return packetLength;
+    }
+
+    /**
+     * 无填充 Base64 编码后的长度
+     */
+    public static int encodedLength(int length) {
+        return (length / 3) * 4 + (length % 3 == 0 ? 0 : length % 3 + 1);
+    }
+
+    private static int putSessionId(byte[] dst, int pos, String sessionId) {
+        if (sessionId == null || sessionId.length() != SESSION_ID_LENGTH) {
+            throw new IllegalArgumentException("sessionId length must be " + SESSION_ID_LENGTH);
+        }
+        for (int i = 0; i < SESSION_ID_LENGTH; i++) {
+            char c = sessionId.charAt(i);
+            if (c >= 0x80) {
+                throw new IllegalArgumentException("sessionId must be ASCII: " + sessionId);
+            }
+            dst[pos++] = (byte) c;
+        }
+        return pos;
+    }
+
+    private static int putInt(byte[] dst, int pos, int value) {
+        dst[pos++] = (byte) (value >>> 24);
+        dst[pos++] = (byte) (value >>> 16);
+        dst[pos++] = (byte) (value >>> 8);
+        dst[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int putChecksum(byte[] dst, int pos, PureJavaCrc32C crc,
+                                   byte[] source, int offset, int length) {
+        crc.reset();
+        crc.update(source, offset, length);
+        long value = crc.getValue();
+        // 与 String.format("%08x", value) 相同
+        for (int shift = (CHECKSUM_LENGTH - 1) * 4; shift >= 0; shift -= 4) {
+            dst[pos++] = HEX[(int) (value >>> shift) & 0xF];
+        }
+        return pos;
+    }
+
+    private static int encodeBase64(byte[] src, int length, byte[] dst) {
+        int sp = 0;
+        int dp = 0;
+        int fullGroups = length / 3 * 3;
+        while (sp < fullGroups) {
+            int bits = (src[sp++] & 0xff) << 16 | (src[sp++] & 0xff) << 8 | (src[sp++] & 0xff);
+            dst[dp++] = BASE64_URL[(bits >>> 18) & 0x3f];
+            dst[dp++] = BASE64_URL[(bits >>> 12) & 0x3f];
+            dst[dp++] = BASE64_URL[(bits >>> 6) & 0x3f];
+            dst[dp++] = BASE64_URL[bits & 0x3f];
+        }
+        int remaining = length - sp;
+        if (remaining > 0) {
+            int b0 = src[sp++] & 0xff;
+            dst[dp++] = BASE64_URL[b0 >> 2];
+            if (remaining == 1) {
+                dst[dp++] = BASE64_URL[(b0 << 4) & 0x3f];
+            } else {
+                int b1 = src[sp] & 0xff;
+                dst[dp++] = BASE64_URL[(b0 << 4) & 0x3f | (b1 >> 4)];
+                dst[dp++] = BASE64_URL[(b1 << 2) & 0x3f];
+            }
+        }
+        return dp;
+    }
+
+    private static class Buffers {
+        private final PureJavaCrc32C crc = new PureJavaCrc32C();
+        private byte[] packet = new byte[4096];
+        private byte[] encoded = new byte[encodedLength(4096)];
+
+        byte[] packet(int length) {
+            if (packet.length < length) {
+                packet = new byte[length];
+            }
+            return packet;
+        }
+
+        byte[] encoded(int length) {
+            if (encoded.length < length) {
+                encoded = new byte[length];
+            }
+            return encoded;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.xioshe.net.channels.core.protocol;
+
+/**
+ * 二维码容量表，根据 QR 版本和纠错等级计算可容纳的数据量。
+ * <br/>
+ * 容量由 ISO/IEC 18004 中各版本、纠错等级的数据码字数推算，扣除模式指示符和字符计数指示符的开销。
+ */
+public final class QRCodeCapacity {
+    public static final int MIN_VERSION = 1;
+    public static final int MAX_VERSION = 40;
+    /**
+     * 字节模式下的最大容量（版本 40，纠错等级 L）
+     */
+    public static final int MAX_BYTE_CAPACITY = 2953;
+    /**
+     * 字母数字模式下的最大容量（版本 40，纠错等级 L）
+     */
+    public static final int MAX_ALPHANUMERIC_CAPACITY = 4296;
+
+    private static final int MODE_INDICATOR_BITS = 4;
+
+    // 各版本的数据码字数，依次为 L、M、Q、H
+    private static final int[][] DATA_CODEWORDS = {
+            {19, 16, 13, 9}, {34, 28, 22, 16}, {55, 44, 34, 26}, {80, 64, 48, 36},
+            {108, 86, 62, 46}, {136, 108, 76, 60}, {156, 124, 88, 66}, {194, 154, 110, 86},
+            {232, 182, 132, 100}, {274, 216, 154, 122}, {324, 254, 180, 140}, {370, 290, 206, 158},
+            {428, 334, 244, 180}, {461, 365, 261, 197}, {523, 415, 295, 223}, {589, 453, 325, 253},
+            {647, 507, 367, 283}, {721, 563, 397, 313}, {795, 627, 445, 341}, {861, 669, 485, 385},
+            {932, 714, 512, 406}, {1006, 782, 568, 442}, {1094, 860, 614, 464}, {1174, 914, 664, 514},
+            {1276, 1000, 718, 538}, {1370, 1062, 754, 596}, {1468, 1128, 808, 628}, {1531, 1193, 871, 661},
+            {1631, 1267, 911, 701}, {1735, 1373, 985, 745}, {1843, 1455, 1033, 793}, {1955, 1541, 1115, 845},
+            {2071, 1631, 1171, 901}, {2191, 1725, 1231, 961}, {2306, 1812, 1286, 986}, {2434, 1914, 1354, 1054},
+            {2566, 1992, 1426, 1096}, {2702, 2102, 1502, 1142}, {2812, 2216, 1582, 1222}, {2956, 2334, 1666, 1276}
+    };
+
+    private QRCodeCapacity() {
+    }
+
+    /**
+     * 字节模式下可容纳的字节数
+     */
+    public static int byteCapacity(int version, ErrorCorrectionLevel level) {
+        int countBits = version <= 9 ? 8 : 16;
+        return (dataBits(version, level) - MODE_INDICATOR_BITS - countBits) / 8;
+    }
+
+    /**
+     * 字母数字模式下可容纳的字符数，每 2 个字符占 11 位，剩余 1 个字符占 6 位
+     */
+    public static int alphanumericCapacity(int version, ErrorCorrectionLevel level) {
+        int countBits = version <= 9 ? 9 : version <= 26 ? 11 : 13;
+        int bits = dataBits(version, level) - MODE_INDICATOR_BITS - countBits;
+        return bits / 11 * 2 + (bits % 11 >= 6 ? 1 : 0);
+    }
+
+    private static int dataBits(int version, ErrorCorrectionLevel level) {
+        if (version < MIN_VERSION || version > MAX_VERSION) {
+            throw new IllegalArgumentException("Invalid QR version: " + version);
+        }
+        return DATA_CODEWORDS[version - 1][level.ordinal()] * 8;
+    }
+
+    /**
+     * 纠错等级，可恢复的码字比例依次约为 7%、15%、25%、30%
+     */
+    public enum ErrorCorrectionLevel {
+        L, M, Q, H
+    }
+
+    /**
+     * 二维码数据的编码模式
+     */
+    public enum EncodingMode {
+        /**
+         * 字节模式，每个字符 8 位
+         */
+        BYTE,
+        /**
+         * 字母数字模式，字符集为 0-9、A-Z 和 " $%*+-./:" 共 45 个字符
+         */
+        ALPHANUMERIC;
+
+        public int capacity(int version, ErrorCorrectionLevel level) {
+            return this == ALPHANUMERIC ? alphanumericCapacity(version, level) : byteCapacity(version, level);
+        }
+    }
+}
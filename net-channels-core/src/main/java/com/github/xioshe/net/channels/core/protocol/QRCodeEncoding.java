@@ -0,0 +1,27 @@
+package com.github.xioshe.net.channels.core.protocol;
+
+/**
+ * 数据包到二维码数据的编码方式，发送端和接收端需要一致
+ */
+public enum QRCodeEncoding {
+    /**
+     * Base64 URL 编码，二维码使用字节模式
+     */
+    BASE64,
+    /**
+     * Base45 编码，二维码使用字母数字模式，每帧多容纳约 30% 的数据
+     */
+    BASE45,
+    /**
+     * 不编码，数据包字节按 ISO-8859-1 原样作为二维码数据，要求扫码设备原样输出字节模式内容
+     */
+    BINARY;
+
+    public TransferProtocol createProtocol() {
+        return switch (this) {
+            case BASE64 -> new QRCodeProtocol();
+            case BASE45 -> new Base45QRCodeProtocol();
+            case BINARY -> new BinaryQRCodeProtocol();
+        };
+    }
+}
@@ -1,30 +1,32 @@
 package com.github.xioshe.net.channels.core.protocol;
 
 import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.ChunkLayout;
+import com.github.xioshe.net.channels.core.model.PacketHeader;
 import com.github.xioshe.net.channels.core.model.TransferPacket;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.PureJavaCrc32C;
 
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 
 /**
  * 使用 MessagePack 进行序列化，以减小包大小
  */
 @Slf4j
 public class QRCodeProtocol implements TransferProtocol {
-    private static final int MAX_QR_DATA_SIZE = 2953; // QR 码最大容量
+    private static final int MAX_QR_DATA_SIZE = QRCodeCapacity.MAX_BYTE_CAPACITY; // QR 码最大容量
+    protected static final int LENGTH_FIELD_SIZE = 4;
+    private final PacketEncoder encoder = new PacketEncoder();
 
     @Override
     public String packetToQRCode(TransferPacket packet) {
         validatePacketBeforeConversion(packet);
         try {
             byte[] bytes = packet.toBytes();
-            String result = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
-            if (result.length() > MAX_QR_DATA_SIZE) {
-                throw new NetChannelsException(
-                        String.format("Packet size %d exceeds maximum QR code capacity %d",
-                                result.length(), MAX_QR_DATA_SIZE));
-            }
+            String result = encode(bytes);
+            checkCapacity(result);
             return result;
         } catch (Throwable e) {
             log.error("Failed to serialize packet: {}", e.getMessage());
@@ -32,11 +34,21 @@ public class QRCodeProtocol implements TransferProtocol {
         }
     }
 
+    @Override
+    public String chunkToQRCode(ChunkLayout layout, int currentChunk, byte[] source, int offset, int length) {
+        if (source == null) {
+            throw new IllegalArgumentException("Packet data cannot be null");
+        }
+        String result = encoder.encode(layout, currentChunk, source, offset, length);
+        checkCapacity(result);
+        return result;
+    }
+
     @Override
     public TransferPacket qrCodeToPacket(String qrCodeData) {
         validateQRCodeData(qrCodeData);
         try {
-            byte[] bytes = Base64.getUrlDecoder().decode(qrCodeData);
+            byte[] bytes = decode(qrCodeData);
             TransferPacket packet = TransferPacket.fromBytes(bytes);
             if (!validatePacket(packet)) {
                 throw new NetChannelsException("Packet validation failed");
@@ -48,6 +60,52 @@ public class QRCodeProtocol implements TransferProtocol {
         }
     }
 
+    @Override
+    public List<TransferPacket> qrCodesToPackets(List<String> qrCodes) {
+        List<TransferPacket> packets = new ArrayList<>(qrCodes.size());
+        for (String qrCode : qrCodes) {
+            try {
+                packets.add(qrCodeToPacket(qrCode));
+            } catch (NetChannelsException | IllegalArgumentException e) {
+                log.warn("Skipping invalid QR code in frame group: {}", e.getMessage());
+            }
+        }
+        return packets;
+    }
+
+    @Override
+    public int maxChunkSize(int qrCapacity) {
+        // 无填充 Base64：n 字节编码后为 ceil(4n/3) 个字符，容量内最多容纳 floor(3c/4) 字节
+        int capacity = Math.min(qrCapacity, maxQRDataSize());
+        return capacity * 3 / 4 - PacketHeader.HEADER_SIZE - LENGTH_FIELD_SIZE;
+    }
+
+    /**
+     * 数据包字节到二维码文本的编码，子类可以替换为其他编码
+     */
+    protected String encode(byte[] packetBytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(packetBytes);
+    }
+
+    protected byte[] decode(String qrCodeData) {
+        return Base64.getUrlDecoder().decode(qrCodeData);
+    }
+
+    /**
+     * 二维码数据的最大字符数
+     */
+    protected int maxQRDataSize() {
+        return MAX_QR_DATA_SIZE;
+    }
+
+    protected void checkCapacity(String qrCodeData) {
+        if (qrCodeData.length() > maxQRDataSize()) {
+            throw new NetChannelsException(
+                    String.format("Packet size %d exceeds maximum QR code capacity %d",
+                            qrCodeData.length(), maxQRDataSize()));
+        }
+    }
+
     @Override
     public String calculateChecksum(byte[] data) {
         if (data == null) {
@@ -71,10 +129,11 @@ public class QRCodeProtocol implements TransferProtocol {
             return false;
         }
 
-        // 验证分片信息
+        // 验证分片信息，喷泉码分片的序号可以超过源分片数
         if (packet.getHeader().getCurrentChunk() < 0 ||
             packet.getHeader().getTotalChunks() <= 0 ||
-            packet.getHeader().getCurrentChunk() >= packet.getHeader().getTotalChunks()) {
+            (!packet.getHeader().hasFlag(PacketHeader.FLAG_FOUNTAIN) &&
+             packet.getHeader().getCurrentChunk() >= packet.getHeader().getTotalChunks())) {
             return false;
         }
 
@@ -99,10 +158,10 @@ public class QRCodeProtocol implements TransferProtocol {
         if (qrCodeData == null || qrCodeData.isEmpty()) {
             throw new IllegalArgumentException("QR code data cannot be null or empty");
         }
-        if (qrCodeData.length() > MAX_QR_DATA_SIZE) {
+        if (qrCodeData.length() > maxQRDataSize()) {
             throw new IllegalArgumentException(
                     String.format("QR code data size %d exceeds maximum capacity %d",
-                            qrCodeData.length(), MAX_QR_DATA_SIZE));
+                            qrCodeData.length(), maxQRDataSize()));
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.github.xioshe.net.channels.core.protocol;
+
+import lombok.Getter;
+
+/**
+ * 扫码设备档案，描述设备能稳定识别的二维码版本和纠错等级，用于确定每帧二维码的容量。
+ * <br/>
+ * 商业扫码枪一般能识别 500-800 字节，工业级扫码器可达 2900 字节以上，根据实际设备选择。
+ */
+@Getter
+public enum ScannerProfile {
+    /**
+     * 手机摄像头、低端扫码枪，版本 10，纠错等级 M，约 4 帧/秒
+     */
+    BASIC(10, QRCodeCapacity.ErrorCorrectionLevel.M, 4),
+    /**
+     * 商业扫码枪，版本 20，纠错等级 M，约 6 帧/秒
+     */
+    COMMERCIAL(20, QRCodeCapacity.ErrorCorrectionLevel.M, 6),
+    /**
+     * 高分辨率商业扫码枪，版本 22，纠错等级 L，约 8 帧/秒
+     */
+    COMMERCIAL_HD(22, QRCodeCapacity.ErrorCorrectionLevel.L, 8),
+    /**
+     * 工业级扫码器，版本 40，纠错等级 L，约 10 帧/秒
+     */
+    INDUSTRIAL(40, QRCodeCapacity.ErrorCorrectionLevel.L, 10);
+
+    private final int qrVersion;
+    private final QRCodeCapacity.ErrorCorrectionLevel errorCorrectionLevel;
+    /**
+     * 设备连续识别二维码的经验帧率，用于估算传输耗时
+     */
+    private final int framesPerSecond;
+
+    ScannerProfile(int qrVersion, QRCodeCapacity.ErrorCorrectionLevel errorCorrectionLevel, int framesPerSecond) {
+        this.qrVersion = qrVersion;
+        this.errorCorrectionLevel = errorCorrectionLevel;
+        this.framesPerSecond = framesPerSecond;
+    }
+
+    /**
+     * 每帧二维码可容纳的字符数（字节模式）
+     */
+    public int getCapacity() {
+        return QRCodeCapacity.byteCapacity(qrVersion, errorCorrectionLevel);
+    }
+
+    /**
+     * 每帧二维码在指定编码模式下可容纳的字符数
+     */
+    public int getCapacity(QRCodeCapacity.EncodingMode mode) {
+        return mode.capacity(qrVersion, errorCorrectionLevel);
+    }
+}
@@ -1,19 +1,63 @@
 package com.github.xioshe.net.channels.core.protocol;
 
 
+import com.github.xioshe.net.channels.core.model.ChunkLayout;
+import com.github.xioshe.net.channels.core.model.PacketHeader;
 import com.github.xioshe.net.channels.core.model.TransferPacket;
 
+import java.util.Arrays;
+import java.util.List;
+
 public interface TransferProtocol {
     /**
      * 将数据包转换为二维码数据
      */
     String packetToQRCode(TransferPacket packet);
 
+    /**
+     * 按分片布局将 source 中的一段数据作为一个分片直接转换为二维码数据，结果与构造 {@link TransferPacket} 后
+     * 调用 {@link #packetToQRCode(TransferPacket)} 相同。实现类可以覆盖此方法以避免中间对象的分配。
+     */
+    default String chunkToQRCode(ChunkLayout layout, int currentChunk, byte[] source, int offset, int length) {
+        byte[] chunk = Arrays.copyOfRange(source, offset, offset + length);
+        PacketHeader header = PacketHeader.builder()
+                .flags(layout.getFlags())
+                .sessionId(layout.getSessionId())
+                .currentChunk(currentChunk)
+                .totalChunks(layout.getTotalChunks())
+                .chunkSize(layout.getChunkSize())
+                .totalSize(layout.getTotalSize())
+                .checksum(calculateChecksum(chunk))
+                .build();
+        return packetToQRCode(TransferPacket.builder()
+                .header(header)
+                .data(chunk)
+                .build());
+    }
+
     /**
      * 从二维码数据解析数据包
      */
     TransferPacket qrCodeToPacket(String qrCodeData);
 
+    /**
+     * 解析一次扫描得到的整组二维码数据，见 {@link com.github.xioshe.net.channels.core.model.FrameGroup}。
+     * 无法解析或校验失败的二维码被跳过，对应的分片会在之后的轮播中重新发送。
+     */
+    List<TransferPacket> qrCodesToPackets(List<String> qrCodes);
+
+    /**
+     * 二维码数据使用的编码模式，决定每帧可容纳的字符数
+     */
+    default QRCodeCapacity.EncodingMode encodingMode() {
+        return QRCodeCapacity.EncodingMode.BYTE;
+    }
+
+    /**
+     * 二维码容量为 qrCapacity 个字符时，单个分片最多能携带的数据字节数（已扣除包头开销）
+     */
+    int maxChunkSize(int qrCapacity);
+
     /**
      * 计算数据校验和
      */
@@ -0,0 +1,236 @@
+package com.github.xioshe.net.channels.core.render;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.protocol.FrameSetting;
+import com.github.xioshe.net.channels.core.transfer.FrameStream;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * 帧归档：把一个会话渲染好的全部帧写入单个文件，展示端内存映射后按分片序号直接取图像，不再重复获取和渲染。
+ * <br/>
+ * 文件格式（大端）：
+ * <ul>
+ *     <li>文件头：魔数 {@code NCFA}、版本号（1 字节）、图像格式（1 字节）、会话 ID 长度（2 字节）、分片数、
+ *     最大帧长度（各 4 字节），之后是会话 ID（ASCII）</li>
+ *     <li>索引：每个分片 16 字节，依次为数据偏移（8 字节）、数据长度和图像边长（各 4 字节）</li>
+ *     <li>数据：按分片序号依次排列的图像数据，格式见 {@link RenderedFrame.Format}</li>
+ * </ul>
+ * 读取第 i 帧只需读索引的第 i 项，再切出对应的数据区，重传的帧也是一次索引查找。
+ * 数据区按 1GB 的窗口分别映射，相邻窗口重叠一个最大帧长度，任何一帧都完整落在某个窗口内。
+ * 打开后只读，可以被多个线程同时访问。
+ */
+@Slf4j
+public class FrameArchive {
+    private static final int MAGIC = 0x4E434641; // NCFA
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int INDEX_ENTRY_SIZE = 16;
+    // 写入时每批渲染的帧数，内存中最多保留一批图像
+    private static final int WRITE_BATCH = 256;
+    static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+
+    @Getter
+    private final String sessionId;
+    @Getter
+    private final int totalChunks;
+    @Getter
+    private final RenderedFrame.Format format;
+    private final ByteBuffer index;
+    private final MappedByteBuffer[] windows;
+    private final long windowSize;
+
+    private FrameArchive(String sessionId, int totalChunks, RenderedFrame.Format format, ByteBuffer index,
+                         MappedByteBuffer[] windows, long windowSize) {
+        this.sessionId = sessionId;
+        this.totalChunks = totalChunks;
+        this.format = format;
+        this.index = index;
+        this.windows = windows;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * 渲染流式拆分的全部帧并写入归档文件
+     */
+    public static void write(Path file, QRCodeRenderer renderer, FrameStream stream) {
+        write(file, renderer, stream.getSessionId(), stream::frame, stream.getTotalChunks(), null);
+    }
+
+    /**
+     * 按拆分时使用的帧参数渲染流式拆分的全部帧并写入归档文件
+     */
+    public static void write(Path file, QRCodeRenderer renderer, FrameStream stream, FrameSetting setting) {
+        write(file, renderer, stream.getSessionId(), stream::frame, stream.getTotalChunks(), setting);
+    }
+
+    public static void write(Path file, QRCodeRenderer renderer, String sessionId, List<String> frames) {
+        write(file, renderer, sessionId, frames::get, frames.size(), null);
+    }
+
+    /**
+     * 分批并行渲染并顺序写入数据区，全部写完后再写文件头和索引。先写入临时文件，完成后替换目标文件，
+     * 正在映射旧文件的展示端不会读到写了一半的数据。
+     */
+    private static void write(Path file, QRCodeRenderer renderer, String sessionId, IntFunction<String> frames,
+                              int totalChunks, FrameSetting setting) {
+        if (totalChunks <= 0) {
+            throw new IllegalArgumentException("Frames cannot be null or empty");
+        }
+        byte[] id = sessionId.getBytes(StandardCharsets.US_ASCII);
+        long dataOffset = HEADER_SIZE + id.length + (long) totalChunks * INDEX_ENTRY_SIZE;
+        ByteBuffer index = ByteBuffer.allocate(totalChunks * INDEX_ENTRY_SIZE);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        RenderedFrame.Format format = null;
+        int maxFrameLength = 0;
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = dataOffset;
+            for (int from = 0; from < totalChunks; from += WRITE_BATCH) {
+                int to = Math.min(from + WRITE_BATCH, totalChunks);
+                RenderedFrame[] batch = renderer.drawRange(sessionId, frames, from, to, setting);
+                ByteBuffer[] buffers = new ByteBuffer[batch.length];
+                long batchPosition = position;
+                for (int i = 0; i < batch.length; i++) {
+                    byte[] data = batch[i].getData();
+                    format = batch[i].getFormat();
+                    maxFrameLength = Math.max(maxFrameLength, data.length);
+                    index.putLong(position).putInt(data.length).putInt(batch[i].getWidth());
+                    position += data.length;
+                    buffers[i] = ByteBuffer.wrap(data);
+                }
+                writeFully(channel, buffers, batchPosition);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + id.length)
+                    .putInt(MAGIC)
+                    .put(VERSION)
+                    .put((byte) format.ordinal())
+                    .putShort((short) id.length)
+                    .putInt(totalChunks)
+                    .putInt(maxFrameLength)
+                    .put(id);
+            writeFully(channel, new ByteBuffer[]{header.flip(), index.flip()}, 0);
+            channel.force(false);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new NetChannelsException("Failed to write frame archive: " + file, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new NetChannelsException("Failed to write frame archive: " + file, e);
+        }
+        log.info("Wrote {} frames of session {} to archive {}", totalChunks, sessionId, file);
+    }
+
+    /**
+     * 内存映射归档文件，文件内容不会复制到堆内
+     */
+    public static FrameArchive open(Path file) {
+        return open(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    static FrameArchive open(Path file, long windowSize) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new NetChannelsException("Not a frame archive: " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new NetChannelsException("Not a frame archive: " + file);
+            }
+            byte version = header.get();
+            if (version != VERSION) {
+                throw new NetChannelsException("Unsupported frame archive version: " + version);
+            }
+            RenderedFrame.Format format = RenderedFrame.Format.values()[header.get()];
+            int idLength = header.getShort();
+            int totalChunks = header.getInt();
+            int maxFrameLength = header.getInt();
+            long indexOffset = HEADER_SIZE + idLength;
+            long indexSize = (long) totalChunks * INDEX_ENTRY_SIZE;
+            if (indexOffset + indexSize > size) {
+                throw new NetChannelsException("Truncated frame archive: " + file);
+            }
+            byte[] id = new byte[idLength];
+            channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, idLength).get(id);
+            ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, indexSize);
+
+            MappedByteBuffer[] windows = new MappedByteBuffer[Math.toIntExact(Math.ceilDiv(size, windowSize))];
+            for (int w = 0; w < windows.length; w++) {
+                long start = w * windowSize;
+                long end = Math.min(size, start + windowSize + maxFrameLength);
+                windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            }
+            // 映射建立后关闭文件不影响访问
+            return new FrameArchive(new String(id, StandardCharsets.US_ASCII), totalChunks, format, index,
+                    windows, windowSize);
+        } catch (IOException | IndexOutOfBoundsException e) {
+            throw new NetChannelsException("Failed to open frame archive: " + file, e);
+        }
+    }
+
+    /**
+     * 指定分片的图像数据，返回映射区域的只读视图，不复制数据
+     */
+    public ByteBuffer slice(int chunk) {
+        if (chunk < 0 || chunk >= totalChunks) {
+            throw new NetChannelsException("Chunk %d not found".formatted(chunk));
+        }
+        int entry = chunk * INDEX_ENTRY_SIZE;
+        long offset = index.getLong(entry);
+        int length = index.getInt(entry + 8);
+        MappedByteBuffer window = windows[(int) (offset / windowSize)];
+        return window.slice((int) (offset % windowSize), length).asReadOnlyBuffer();
+    }
+
+    /**
+     * 复制指定分片的图像数据
+     */
+    public RenderedFrame frame(int chunk) {
+        ByteBuffer slice = slice(chunk);
+        byte[] data = new byte[slice.remaining()];
+        slice.get(data);
+        int width = index.getInt(chunk * INDEX_ENTRY_SIZE + 12);
+        return new RenderedFrame(sessionId, chunk, format, width, width, data);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer[] buffers, long position) throws IOException {
+        channel.position(position);
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary archive: {}", file, e);
+        }
+    }
+}
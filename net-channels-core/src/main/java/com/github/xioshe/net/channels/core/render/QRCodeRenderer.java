@@ -0,0 +1,293 @@
+package com.github.xioshe.net.channels.core.render;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.protocol.FrameSetting;
+import com.github.xioshe.net.channels.core.protocol.QRCodeCapacity;
+import com.github.xioshe.net.channels.core.transfer.FrameStream;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+
+/**
+ * 服务端二维码渲染器，把 {@link com.github.xioshe.net.channels.core.transfer.DataSplitter} 输出的二维码数据渲染为图像。
+ * <br/>
+ * 批量渲染按 CPU 数分批并行；每个线程复用自己的图像缓冲区和 PNG 输出缓冲区。渲染结果按会话、分片序号、
+ * 纠错等级、版本和二维码数据缓存，按总字节数淘汰，重传和循环播放时直接返回缓存的图像。
+ * 同一序号的数据可能变化（如合并重传帧以首个分片为序号、帧参数随会话调整），因此缓存键包含完整的二维码数据。
+ * <br/>
+ * 二维码数据按 ISO-8859-1 写入字节模式，ZXing 会为只含字母数字字符的数据（Base45）自动选择字母数字模式。
+ */
+@Slf4j
+public class QRCodeRenderer {
+    public static final long DEFAULT_MAX_CACHE_BYTES = 64 * 1024 * 1024; // 64MB
+    // 缓存条目除图像数据外的估算开销
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final ErrorCorrectionLevel errorCorrectionLevel;
+    /**
+     * 固定的二维码版本，0 表示按数据量自动选择
+     */
+    private final int qrVersion;
+    private final int moduleSize;
+    private final int margin;
+    private final RenderedFrame.Format format;
+    private final Executor executor;
+    private final Cache<FrameKey, RenderedFrame> cache;
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * @param errorCorrectionLevel 纠错等级，默认 L
+     * @param qrVersion            固定的二维码版本，默认按数据量自动选择；固定版本可以让各帧尺寸一致
+     * @param moduleSize           每个模块的像素数，默认 4
+     * @param margin               四周空白区的模块数，默认 4（标准要求的最小值）
+     * @param format               输出格式，默认 PNG
+     * @param maxCacheBytes        缓存的图像数据总字节数上限，0 表示不缓存
+     * @param executor             批量渲染使用的线程池，为空时使用 {@link ForkJoinPool#commonPool()}
+     */
+    @Builder
+    private QRCodeRenderer(QRCodeCapacity.ErrorCorrectionLevel errorCorrectionLevel, Integer qrVersion,
+                           Integer moduleSize, Integer margin, RenderedFrame.Format format,
+                           Long maxCacheBytes, Executor executor) {
+        this.errorCorrectionLevel = ErrorCorrectionLevel.valueOf(
+                (errorCorrectionLevel != null ? errorCorrectionLevel : QRCodeCapacity.ErrorCorrectionLevel.L).name());
+        this.qrVersion = qrVersion != null ? qrVersion : 0;
+        this.moduleSize = moduleSize != null ? moduleSize : 4;
+        this.margin = margin != null ? margin : 4;
+        this.format = format != null ? format : RenderedFrame.Format.PNG;
+        this.executor = executor != null ? executor : ForkJoinPool.commonPool();
+        if (this.qrVersion < 0 || this.qrVersion > QRCodeCapacity.MAX_VERSION) {
+            throw new IllegalArgumentException("Invalid QR version: " + this.qrVersion);
+        }
+        if (this.moduleSize <= 0 || this.margin < 0) {
+            throw new IllegalArgumentException("Module size must be positive and margin non-negative");
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxCacheBytes != null ? maxCacheBytes : DEFAULT_MAX_CACHE_BYTES)
+                .weigher((FrameKey key, RenderedFrame frame) ->
+                        frame.getData().length + key.qrCode.length() + ENTRY_OVERHEAD)
+                .build();
+    }
+
+    /**
+     * 渲染一帧，已缓存时直接返回
+     */
+    public RenderedFrame render(String sessionId, int chunk, String qrCode) {
+        return render(sessionId, chunk, qrCode, errorCorrectionLevel, qrVersion);
+    }
+
+    /**
+     * 按指定的帧参数渲染一帧，用于帧参数随会话调整的场景
+     */
+    public RenderedFrame render(String sessionId, int chunk, String qrCode, FrameSetting setting) {
+        return render(sessionId, chunk, qrCode, level(setting), setting.getQrVersion());
+    }
+
+    private RenderedFrame render(String sessionId, int chunk, String qrCode, ErrorCorrectionLevel level, int version) {
+        return cache.get(new FrameKey(sessionId, chunk, level, version, qrCode),
+                key -> draw(sessionId, chunk, qrCode, level, version));
+    }
+
+    /**
+     * 并行渲染会话的全部帧，结果按分片序号排列
+     */
+    public List<RenderedFrame> renderAll(String sessionId, List<String> frames) {
+        return renderAll(sessionId, frames::get, frames.size(), errorCorrectionLevel, qrVersion);
+    }
+
+    /**
+     * 并行渲染流式拆分的全部帧，结果按分片序号排列
+     */
+    public List<RenderedFrame> renderAll(FrameStream stream) {
+        return renderAll(stream.getSessionId(), stream::frame, stream.getTotalChunks(),
+                errorCorrectionLevel, qrVersion);
+    }
+
+    /**
+     * 按拆分时使用的帧参数并行渲染流式拆分的全部帧
+     */
+    public List<RenderedFrame> renderAll(FrameStream stream, FrameSetting setting) {
+        return renderAll(stream.getSessionId(), stream::frame, stream.getTotalChunks(),
+                level(setting), setting.getQrVersion());
+    }
+
+    private List<RenderedFrame> renderAll(String sessionId, IntFunction<String> frames, int totalChunks,
+                                          ErrorCorrectionLevel level, int version) {
+        RenderedFrame[] rendered = renderRange(sessionId, frames, 0, totalChunks, level, version, true);
+        log.debug("Rendered {} frames for session {}, {} frames cached", totalChunks, sessionId, cache.estimatedSize());
+        return Arrays.asList(rendered);
+    }
+
+    /**
+     * 并行渲染 [from, to) 范围内的帧，不经过缓存，用于一次性导出大量帧
+     *
+     * @param setting 拆分时使用的帧参数，为空时使用渲染器的配置
+     */
+    RenderedFrame[] drawRange(String sessionId, IntFunction<String> frames, int from, int to, FrameSetting setting) {
+        return setting != null
+                ? renderRange(sessionId, frames, from, to, level(setting), setting.getQrVersion(), false)
+                : renderRange(sessionId, frames, from, to, errorCorrectionLevel, qrVersion, false);
+    }
+
+    private RenderedFrame[] renderRange(String sessionId, IntFunction<String> frames, int from, int to,
+                                        ErrorCorrectionLevel level, int version, boolean cached) {
+        int count = to - from;
+        RenderedFrame[] rendered = new RenderedFrame[count];
+        // 每个任务处理一段连续分片，任务数略多于 CPU 数以平衡负载
+        int batches = Math.max(1, Math.min(count, Runtime.getRuntime().availableProcessors() * 4));
+        int batchSize = (count + batches - 1) / batches;
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(batches);
+        for (int offset = 0; offset < count; offset += batchSize) {
+            int start = offset;
+            int end = Math.min(offset + batchSize, count);
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int i = start; i < end; i++) {
+                    int chunk = from + i;
+                    String qrCode = frames.apply(chunk);
+                    rendered[i] = cached
+                            ? render(sessionId, chunk, qrCode, level, version)
+                            : draw(sessionId, chunk, qrCode, level, version);
+                }
+            }, executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (Exception e) {
+            throw new NetChannelsException("Failed to render frames for session: " + sessionId, e);
+        }
+        return rendered;
+    }
+
+    /**
+     * 移除会话的缓存帧，通常在会话完成后调用
+     */
+    public void evict(String sessionId) {
+        cache.asMap().keySet().removeIf(key -> key.sessionId.equals(sessionId));
+    }
+
+    public long getCachedFrames() {
+        return cache.estimatedSize();
+    }
+
+    private RenderedFrame draw(String sessionId, int chunk, String qrCode, ErrorCorrectionLevel level, int version) {
+        ByteMatrix matrix = encode(qrCode, level, version);
+        int modules = matrix.getWidth() + 2 * margin;
+        int size = modules * moduleSize;
+        byte[] data = format == RenderedFrame.Format.PNG ? drawPng(matrix, size) : drawGray(matrix, size);
+        return new RenderedFrame(sessionId, chunk, format, size, size, data);
+    }
+
+    private static ErrorCorrectionLevel level(FrameSetting setting) {
+        return ErrorCorrectionLevel.valueOf(setting.getErrorCorrectionLevel().name());
+    }
+
+    private ByteMatrix encode(String qrCode, ErrorCorrectionLevel level, int version) {
+        Map<EncodeHintType, Object> hints = new EnumMap<>(EncodeHintType.class);
+        if (version > 0) {
+            hints.put(EncodeHintType.QR_VERSION, version);
+        }
+        try {
+            return Encoder.encode(qrCode, level, hints).getMatrix();
+        } catch (WriterException e) {
+            throw new NetChannelsException("Failed to encode QR code of %d characters".formatted(qrCode.length()), e);
+        }
+    }
+
+    private byte[] drawGray(ByteMatrix matrix, int size) {
+        byte[] pixels = new byte[size * size];
+        Arrays.fill(pixels, (byte) 0xff);
+        int offset = margin * moduleSize;
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            int top = offset + y * moduleSize;
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                if (matrix.get(x, y) == 1) {
+                    int left = offset + x * moduleSize;
+                    for (int row = top; row < top + moduleSize; row++) {
+                        Arrays.fill(pixels, row * size + left, row * size + left + moduleSize, (byte) 0);
+                    }
+                }
+            }
+        }
+        return pixels;
+    }
+
+    private byte[] drawPng(ByteMatrix matrix, int size) {
+        Buffers buf = buffers.get();
+        BufferedImage image = buf.image(size);
+        // TYPE_BYTE_BINARY：每行按字节对齐，每像素 1 位，0 为黑、1 为白
+        byte[] bits = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        int stride = (size + 7) / 8;
+        Arrays.fill(bits, (byte) 0xff);
+        int offset = margin * moduleSize;
+        for (int y = 0; y < matrix.getHeight(); y++) {
+            int top = offset + y * moduleSize;
+            for (int x = 0; x < matrix.getWidth(); x++) {
+                if (matrix.get(x, y) != 1) {
+                    continue;
+                }
+                int left = offset + x * moduleSize;
+                for (int px = left; px < left + moduleSize; px++) {
+                    int mask = ~(0x80 >>> (px & 7));
+                    for (int row = top; row < top + moduleSize; row++) {
+                        bits[row * stride + (px >>> 3)] &= (byte) mask;
+                    }
+                }
+            }
+        }
+        try {
+            buf.png.reset();
+            ImageIO.write(image, "png", buf.png);
+            return buf.png.toByteArray();
+        } catch (IOException e) {
+            throw new NetChannelsException("Failed to write PNG", e);
+        }
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static class FrameKey {
+        private final String sessionId;
+        private final int chunk;
+        private final ErrorCorrectionLevel level;
+        private final int version;
+        private final String qrCode;
+    }
+
+    private static class Buffers {
+        private final ByteArrayOutputStream png = new ByteArrayOutputStream(16 * 1024);
+        private BufferedImage image;
+
+        /**
+         * 尺寸相同时复用上一帧的图像
+         */
+        BufferedImage image(int size) {
+            if (image == null || image.getWidth() != size) {
+                image = new BufferedImage(size, size, BufferedImage.TYPE_BYTE_BINARY);
+            }
+            return image;
+        }
+    }
+}
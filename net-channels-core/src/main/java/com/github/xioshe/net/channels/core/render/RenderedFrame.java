@@ -0,0 +1,32 @@
+package com.github.xioshe.net.channels.core.render;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 渲染好的一帧二维码图像
+ */
+@Getter
+@AllArgsConstructor
+public class RenderedFrame {
+    private final String sessionId;
+    private final int chunk;
+    private final Format format;
+    private final int width;
+    private final int height;
+    /**
+     * 图像数据，格式见 {@link Format}
+     */
+    private final byte[] data;
+
+    public enum Format {
+        /**
+         * 1 位黑白 PNG
+         */
+        PNG,
+        /**
+         * 8 位灰度位图，按行优先排列，每个像素一个字节，0 为深色、255 为浅色，没有文件头
+         */
+        GRAY
+    }
+}
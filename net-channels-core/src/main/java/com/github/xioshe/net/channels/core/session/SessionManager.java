@@ -6,6 +6,9 @@ import com.github.xioshe.net.channels.core.exception.SessionStateException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
@@ -45,9 +48,20 @@ public class SessionManager {
                 .orElseThrow(() -> new NetChannelsException("Session not found: " + sessionId));
     }
 
+    public Optional<TransferSession> findSession(String sessionId) {
+        return sessionStorage.getSession(sessionId);
+    }
+
     public TransferSession getOrCreateSession(String sessionId, int totalChunks, int totalSize) {
-        return sessionStorage.getSession(sessionId)
-                .orElseGet(() -> createSession(sessionId, totalChunks, totalSize));
+        Optional<TransferSession> existing = sessionStorage.getSession(sessionId);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        // 多个扫码输入可能同时收到新会话的首帧，再次检查，保证只创建一次
+        synchronized (this) {
+            return sessionStorage.getSession(sessionId)
+                    .orElseGet(() -> createSession(sessionId, totalChunks, totalSize));
+        }
     }
 
     /**
@@ -55,19 +69,39 @@ public class SessionManager {
      */
     @WithLock(key = "'session:' + #sessionId")
     public void updateSession(String sessionId, int chunkIndex) {
+        update(sessionId, List.of(chunkIndex));
+    }
+
+    /**
+     * 批量更新会话状态，用于一次扫描解码出的整组分片：全部分片一次标记，会话只保存一次
+     */
+    @WithLock(key = "'session:' + #sessionId")
+    public void updateSession(String sessionId, Collection<Integer> chunkIndexes) {
+        update(sessionId, chunkIndexes);
+    }
+
+    private void update(String sessionId, Collection<Integer> chunkIndexes) {
         TransferSession session = getSession(sessionId);
 
         try {
             validateSessionState(session);
-            validateChunkIndex(session, chunkIndex);
-
-            session.markChunkReceived(chunkIndex);
+            for (int chunkIndex : chunkIndexes) {
+                validateChunkIndex(session, chunkIndex);
+            }
 
-            if (session.isComplete()) {
-                completeSession(session);
-            } else {
-                session.setState(SessionState.IN_PROGRESS);
-                sessionStorage.saveSession(session);
+            // 同一会话的分片可能来自多个扫码输入，标记、完成和保存需要互斥，
+            // 避免重复完成，或在会话完成移除后又被保存回存储
+            synchronized (session) {
+                boolean completed = false;
+                for (int chunkIndex : chunkIndexes) {
+                    completed |= session.markChunkReceived(chunkIndex);
+                }
+                if (completed) {
+                    completeSession(session);
+                } else if (!session.isComplete()) {
+                    session.setState(SessionState.IN_PROGRESS);
+                    sessionStorage.saveSession(session);
+                }
             }
         } catch (SessionStateException e) {
             // 已经是终态的异常，直接抛出
@@ -177,8 +211,12 @@ public class SessionManager {
         }
     }
 
+    /**
+     * 标记会话失败。会话已完成移除或尚未创建时忽略，避免掩盖调用方的原始异常
+     */
     public void markSessionFailed(String sessionId, Throwable e) {
-        TransferSession session = getSession(sessionId);
-        markSessionFailed(session, e);
+        sessionStorage.getSession(sessionId).ifPresentOrElse(
+                session -> markSessionFailed(session, e),
+                () -> log.warn("Session not found when marking failed: {}, cause: {}", sessionId, e.getMessage()));
     }
 }
\ No newline at end of file
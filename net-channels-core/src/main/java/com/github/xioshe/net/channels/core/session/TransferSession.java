@@ -29,26 +29,40 @@ public class TransferSession {
         this.receivedCount = 0;
     }
 
-    public void markChunkReceived(int chunkIndex) {
-        if (!receivedChunks.get(chunkIndex)) {
-            receivedChunks.set(chunkIndex);
-            receivedCount++;
-            lastUpdatedAt = Instant.now();
+    /**
+     * 标记分片已接收。多个扫码输入可能同时更新同一会话，标记和判断完成需要同步
+     *
+     * @return 本次标记使会话完成时返回 true，重复的分片或会话已完成时返回 false
+     */
+    public synchronized boolean markChunkReceived(int chunkIndex) {
+        if (receivedChunks.get(chunkIndex)) {
+            return false;
         }
+        receivedChunks.set(chunkIndex);
+        receivedCount++;
+        lastUpdatedAt = Instant.now();
+        return receivedCount == totalChunks;
     }
 
-    public boolean isComplete() {
+    public synchronized boolean isComplete() {
         return receivedCount == totalChunks;
     }
 
-    public double getProgress() {
+    public synchronized double getProgress() {
         return (double) receivedCount / totalChunks;
     }
 
+    /**
+     * 已接收分片位图的副本
+     */
+    public synchronized BitSet getReceivedSnapshot() {
+        return (BitSet) receivedChunks.clone();
+    }
+
     /**
      * 获取所有未接收的分片索引
      */
-    public List<Integer> getMissingChunks() {
+    public synchronized List<Integer> getMissingChunks() {
         List<Integer> missing = new ArrayList<>();
         for (int i = 0; i < totalChunks; i++) {
             if (!receivedChunks.get(i)) {
@@ -62,7 +76,7 @@ public class TransferSession {
      * 获取连续的未接收分片范围
      * 返回格式：[开始索引, 结束索引]的列表
      */
-    public List<int[]> getMissingRanges() {
+    public synchronized List<int[]> getMissingRanges() {
         List<int[]> ranges = new ArrayList<>();
         int start = -1;
 
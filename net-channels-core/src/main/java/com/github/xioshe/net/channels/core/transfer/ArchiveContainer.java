@@ -0,0 +1,362 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * 多文件归档容器格式，用于在一个会话中传输整个目录。
+ * <br/>
+ * 格式：版本号（1 字节），之后是若干批次，每批依次为条目数（varint，0 表示结束）、各条目的元数据
+ * （类型 1 字节、路径长度 varint、UTF-8 相对路径、大小 varint、修改时间毫秒 varint），以及本批各文件的内容。
+ * 元数据按批集中存放，大量小文件共享一次会话和一次压缩，每个文件只多出十几个字节。
+ * <br/>
+ * 发送端按需打开文件，边读边输出；接收端边读边写入目标目录，都不需要在内存或磁盘上保留完整的归档。
+ */
+@Slf4j
+public final class ArchiveContainer {
+    private static final byte VERSION = 1;
+    private static final byte FILE = 0;
+    private static final byte DIRECTORY = 1;
+    // 每批最多的条目数和文件内容字节数
+    private static final int MAX_BATCH_ENTRIES = 1024;
+    private static final long MAX_BATCH_BYTES = 1024 * 1024;
+    // 条目路径的最大字节数，与常见文件系统的 PATH_MAX 一致
+    private static final int MAX_NAME_LENGTH = 4096;
+    private static final int BUFFER_SIZE = 8192;
+
+    private ArchiveContainer() {
+    }
+
+    /**
+     * 以流的形式输出目录（或单个文件）的归档数据，读取时才打开各文件。不跟随符号链接。
+     */
+    public static InputStream open(Path root) {
+        List<Entry> entries = scan(root);
+        List<List<Entry>> batches = batch(entries);
+        log.debug("Archiving {} entries in {} batches from {}", entries.size(), batches.size(), root);
+
+        Iterator<InputStream> parts = new Iterator<>() {
+            private final Iterator<List<Entry>> batchIterator = batches.iterator();
+            private Iterator<Entry> files = List.<Entry>of().iterator();
+            private boolean started;
+            private boolean finished;
+
+            @Override
+            public boolean hasNext() {
+                return !finished;
+            }
+
+            @Override
+            public InputStream next() {
+                if (finished) {
+                    throw new NoSuchElementException();
+                }
+                if (!started) {
+                    started = true;
+                    return new ByteArrayInputStream(new byte[]{VERSION});
+                }
+                if (files.hasNext()) {
+                    return files.next().open();
+                }
+                if (batchIterator.hasNext()) {
+                    List<Entry> batch = batchIterator.next();
+                    files = batch.stream().filter(entry -> entry.kind == FILE).iterator();
+                    return new ByteArrayInputStream(metadata(batch));
+                }
+                // 结束标记
+                finished = true;
+                return new ByteArrayInputStream(new byte[]{0});
+            }
+        };
+        return new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return parts.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return parts.next();
+            }
+        });
+    }
+
+    /**
+     * 读取归档数据并写入目标目录，边读边写
+     *
+     * @return 写入的文件数
+     */
+    public static int extract(InputStream in, Path target) {
+        try {
+            Files.createDirectories(target);
+            Path root = target.toAbsolutePath().normalize();
+            int version = in.read();
+            if (version != VERSION) {
+                throw new NetChannelsException("Unsupported archive version: " + version);
+            }
+
+            int files = 0;
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = readBatchSize(in)) > 0) {
+                List<Entry> batch = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    batch.add(readEntry(in));
+                }
+                for (Entry entry : batch) {
+                    Path path = resolve(root, entry.name);
+                    if (entry.kind == DIRECTORY) {
+                        Files.createDirectories(path);
+                        continue;
+                    }
+                    Files.createDirectories(path.getParent());
+                    try (OutputStream out = Files.newOutputStream(path)) {
+                        copy(in, out, entry.size, buffer);
+                    }
+                    Files.setLastModifiedTime(path, FileTime.fromMillis(entry.lastModified));
+                    files++;
+                }
+            }
+            return files;
+        } catch (IOException e) {
+            throw new NetChannelsException("Failed to extract archive", e);
+        }
+    }
+
+    private static List<Entry> scan(Path root) {
+        if (Files.isRegularFile(root)) {
+            return List.of(Entry.of(root, root.getFileName().toString()));
+        }
+        if (!Files.isDirectory(root)) {
+            throw new NetChannelsException("Not a file or directory: " + root);
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(path -> !path.equals(root))
+                    .filter(path -> Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)
+                                    || Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS))
+                    .sorted()
+                    .map(path -> Entry.of(path, relativeName(root, path)))
+                    .toList();
+        } catch (IOException | UncheckedIOException e) {
+            throw new NetChannelsException("Failed to scan directory: " + root, e);
+        }
+    }
+
+    private static String relativeName(Path root, Path path) {
+        List<String> names = new ArrayList<>();
+        for (Path name : root.relativize(path)) {
+            names.add(name.toString());
+        }
+        return String.join("/", names);
+    }
+
+    private static List<List<Entry>> batch(List<Entry> entries) {
+        List<List<Entry>> batches = new ArrayList<>();
+        List<Entry> current = new ArrayList<>();
+        long bytes = 0;
+        for (Entry entry : entries) {
+            if (!current.isEmpty()
+            && (current.size() >= MAX_BATCH_ENTRIES || bytes + entry.size > MAX_BATCH_BYTES)) {
+                batches.add(current);
+                current = new ArrayList<>();
+                bytes = 0;
+            }
+            current.add(entry);
+            bytes += entry.size;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    private static byte[] metadata(List<Entry> batch) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(batch.size() * 48);
+        writeVarint(out, batch.size());
+        for (Entry entry : batch) {
+            byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+            if (name.length > MAX_NAME_LENGTH) {
+                throw new NetChannelsException("Archive entry path too long: " + entry.name);
+            }
+            out.write(entry.kind);
+            writeVarint(out, name.length);
+            out.write(name, 0, name.length);
+            writeVarint(out, entry.size);
+            writeVarint(out, entry.lastModified);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 读取一批的条目数，0 表示归档结束。条目数由发送端按 {@value #MAX_BATCH_ENTRIES} 限制，超出说明数据损坏
+     */
+    private static int readBatchSize(InputStream in) throws IOException {
+        long count = readVarint(in);
+        if (count < 0 || count > MAX_BATCH_ENTRIES) {
+            throw new NetChannelsException("Invalid archive batch size: " + count);
+        }
+        return (int) count;
+    }
+
+    private static Entry readEntry(InputStream in) throws IOException {
+        int kind = in.read();
+        if (kind != FILE && kind != DIRECTORY) {
+            throw new NetChannelsException("Unknown archive entry kind: " + kind);
+        }
+        long nameLength = readVarint(in);
+        if (nameLength <= 0 || nameLength > MAX_NAME_LENGTH) {
+            throw new NetChannelsException("Invalid archive entry name length: " + nameLength);
+        }
+        byte[] name = in.readNBytes((int) nameLength);
+        if (name.length != nameLength) {
+            throw new EOFException("Truncated archive entry name");
+        }
+        long size = readVarint(in);
+        if (size < 0) {
+            throw new NetChannelsException("Invalid archive entry size: " + size);
+        }
+        return new Entry(null, (byte) kind, new String(name, StandardCharsets.UTF_8), size, readVarint(in));
+    }
+
+    /**
+     * 解析条目在目标目录下的路径，拒绝绝对路径和 ".." 等指向目录外的路径
+     */
+    private static Path resolve(Path root, String name) {
+        Path path = root.resolve(name).normalize();
+        if (name.isEmpty() || !path.startsWith(root) || path.equals(root)) {
+            throw new NetChannelsException("Invalid archive entry path: " + name);
+        }
+        return path;
+    }
+
+    private static void copy(InputStream in, OutputStream out, long size, byte[] buffer) throws IOException {
+        long remaining = size;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Truncated archive content");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift <= 63; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated archive");
+            }
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new NetChannelsException("Malformed varint in archive");
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final Path path;
+        private final byte kind;
+        private final String name;
+        private final long size;
+        private final long lastModified;
+
+        static Entry of(Path path, String name) {
+            try {
+                boolean directory = Files.isDirectory(path);
+                return new Entry(path, directory ? DIRECTORY : FILE, name,
+                        directory ? 0 : Files.size(path),
+                        Files.getLastModifiedTime(path).toMillis());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 打开文件内容，输出的字节数固定为扫描时的大小：文件变长时截断，变短时补零，保证归档格式不被破坏
+         */
+        InputStream open() {
+            try {
+                return new FixedLengthInputStream(Files.newInputStream(path), size, name);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class FixedLengthInputStream extends InputStream {
+        private final InputStream in;
+        private final String name;
+        private long remaining;
+        private boolean padding;
+
+        FixedLengthInputStream(InputStream in, long size, String name) {
+            this.in = in;
+            this.remaining = size;
+            this.name = name;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int toRead = (int) Math.min(len, remaining);
+            int read = padding ? -1 : in.read(b, off, toRead);
+            if (read < 0) {
+                if (!padding) {
+                    log.warn("File {} shrank during archiving, padding {} bytes", name, remaining);
+                    padding = true;
+                }
+                Arrays.fill(b, off, off + toRead, (byte) 0);
+                read = toRead;
+            }
+            remaining -= read;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -4,30 +4,79 @@ import com.github.xioshe.net.channels.common.lock.template.LockTemplate;
 import com.github.xioshe.net.channels.core.cache.TransferDataCache;
 import com.github.xioshe.net.channels.core.compress.DataCompressor;
 import com.github.xioshe.net.channels.core.crypto.AESCipher;
+import com.github.xioshe.net.channels.core.delta.BlockStore;
+import com.github.xioshe.net.channels.core.delta.DeltaManifest;
 import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.fountain.FountainDecoder;
+import com.github.xioshe.net.channels.core.model.AckFrame;
 import com.github.xioshe.net.channels.core.model.PacketHeader;
 import com.github.xioshe.net.channels.core.model.TransferPacket;
 import com.github.xioshe.net.channels.core.model.TransferResult;
-import com.github.xioshe.net.channels.core.protocol.QRCodeProtocol;
+import com.github.xioshe.net.channels.core.protocol.AckFrameCodec;
+import com.github.xioshe.net.channels.core.protocol.TransferProtocol;
 import com.github.xioshe.net.channels.core.session.SessionManager;
+import com.github.xioshe.net.channels.core.session.SessionState;
 import com.github.xioshe.net.channels.core.session.TransferSession;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 
 @Slf4j
 @Builder
 public class DataAssembler {
+    private static final int RECENTLY_COMPLETED_LIMIT = 1024;
     private final SessionManager sessionManager;
-    private final QRCodeProtocol protocol;
+    private final TransferProtocol protocol;
     private final DataCompressor compressor;
     private final AESCipher cipher;
     private final TransferDataCache<ByteBufferDataBuffer> dataCache;
+    /**
+     * 喷泉码模式下各会话的解码器，未配置时不接收喷泉码分片
+     */
+    private final TransferDataCache<FountainDecoder> fountainCache;
+    /**
+     * 增量传输的分块存储，未配置时不接收增量传输
+     */
+    private final BlockStore blockStore;
+    /**
+     * 分段传输的文件写入器，未配置时不接收分段传输
+     */
+    private final SegmentWriter segmentWriter;
+    /**
+     * 多文件归档的解包目录，未配置时不接收归档传输
+     */
+    private final Path archiveDirectory;
     private final LockTemplate lockTemplate;
+    /**
+     * 最近完成的会话及其分片总数。展示端在收到确认帧之前会继续播放，完成后到达的分片不应重新创建会话再组装一次
+     */
+    @Builder.Default
+    private final Map<String, Integer> recentlyCompleted = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                    return size() > RECENTLY_COMPLETED_LIMIT;
+                }
+            });
 
 
     public TransferResult assemble(String qrCodeData) {
@@ -39,6 +88,16 @@ public class DataAssembler {
 
         PacketHeader packetHeader = packet.getHeader();
         String sessionId = packet.getHeader().getSessionId();
+        if (packetHeader.hasFlag(PacketHeader.FLAG_FOUNTAIN)) {
+            return assembleFountain(packet);
+        }
+        if (packetHeader.hasFlag(PacketHeader.FLAG_PACKED)) {
+            // 打包重传的帧携带多段数据，按整组处理
+            return assembleGroup(packetHeader, List.of(), PackedSegments.unpack(packet));
+        }
+        if (recentlyCompleted.containsKey(sessionId)) {
+            return completedElsewhere(sessionId);
+        }
 
         try {
             TransferSession session = sessionManager.getOrCreateSession(sessionId,
@@ -49,54 +108,387 @@ public class DataAssembler {
             ByteBufferDataBuffer buffer = dataCache.get(sessionId,
                     () -> new ByteBufferDataBuffer(packetHeader.getTotalSize()));
 
-            lockTemplate.execute("nc:assembler:" + sessionId, () -> {
+            // 各分片写入不重叠的位置，不需要加锁，多个扫码输入可以同时写入同一会话
+            insertChunkData(buffer, packet);
+
+            // 更新会话状态，会话已由其他扫码输入完成时当前分片只是重复分片
+            if (!markReceived(sessionId, () -> sessionManager.updateSession(sessionId, packetHeader.getCurrentChunk()))) {
+                return completedElsewhere(sessionId);
+            }
+
+            // 检查是否所有分片都已接收，多个线程同时看到完成时只由一个线程组装
+            if (session.isComplete() && claimCompletion(packetHeader, buffer::claimCompletion)) {
+                return completed(packetHeader, buffer.toByteArray());
+            }
+
+            return inProgress(session);
+        } catch (Exception e) {
+            sessionManager.markSessionFailed(sessionId, e);
+            throw new NetChannelsException("Failed to process QR code", e);
+        }
+    }
+
+    /**
+     * 处理一次扫描解码出的整组二维码（见 {@link com.github.xioshe.net.channels.core.model.FrameGroup}）。
+     * 同一会话的分片一次写入、一次更新会话状态，只检查一次是否完成；无法解析的二维码被跳过。
+     *
+     * @return 组内各会话的处理结果，按会话在组内首次出现的顺序排列
+     */
+    public List<TransferResult> assembleGroup(List<String> qrCodes) {
+        Map<String, List<TransferPacket>> bySession = new LinkedHashMap<>();
+        for (TransferPacket packet : protocol.qrCodesToPackets(qrCodes)) {
+            bySession.computeIfAbsent(packet.getHeader().getSessionId(), id -> new ArrayList<>()).add(packet);
+        }
+        List<TransferResult> results = new ArrayList<>(bySession.size());
+        bySession.forEach((sessionId, packets) -> results.add(assembleGroup(sessionId, packets)));
+        return results;
+    }
+
+    private TransferResult assembleGroup(String sessionId, List<TransferPacket> packets) {
+        PacketHeader packetHeader = packets.get(0).getHeader();
+        if (packetHeader.hasFlag(PacketHeader.FLAG_FOUNTAIN)) {
+            TransferResult result = null;
+            for (TransferPacket packet : packets) {
+                result = assembleFountain(packet);
+                if (result.isCompleted()) {
+                    break;
+                }
+            }
+            return result;
+        }
+        List<TransferPacket> chunks = new ArrayList<>(packets.size());
+        List<PackedSegments.Segment> segments = new ArrayList<>();
+        for (TransferPacket packet : packets) {
+            if (!packet.getHeader().hasFlag(PacketHeader.FLAG_PACKED)) {
+                chunks.add(packet);
+                continue;
+            }
+            try {
+                segments.addAll(PackedSegments.unpack(packet));
+            } catch (NetChannelsException e) {
+                log.warn("Skipping invalid packed frame in frame group: {}", e.getMessage());
+            }
+        }
+        return assembleGroup(packetHeader, chunks, segments);
+    }
+
+    /**
+     * 写入整组分片和打包帧的各段。各段只写入分片的一部分时不标记该分片，分片的全部字节都写入后才算接收
+     */
+    private TransferResult assembleGroup(PacketHeader packetHeader, List<TransferPacket> chunks,
+                                         List<PackedSegments.Segment> segments) {
+        String sessionId = packetHeader.getSessionId();
+        if (recentlyCompleted.containsKey(sessionId)) {
+            return completedElsewhere(sessionId);
+        }
+
+        try {
+            TransferSession session = sessionManager.getOrCreateSession(sessionId,
+                    packetHeader.getTotalChunks(),
+                    packetHeader.getTotalSize());
+            ByteBufferDataBuffer buffer = dataCache.get(sessionId,
+                    () -> new ByteBufferDataBuffer(packetHeader.getTotalSize()));
+
+            List<Integer> chunkIndexes = new ArrayList<>(chunks.size() + segments.size());
+            for (TransferPacket packet : chunks) {
                 insertChunkData(buffer, packet);
+                chunkIndexes.add(packet.getHeader().getCurrentChunk());
+            }
+            for (PackedSegments.Segment segment : segments) {
+                if (segment.end() > buffer.capacity()) {
+                    throw new NetChannelsException("Segment [%d, %d) exceeds total size %d"
+                            .formatted(segment.getOffset(), segment.end(), buffer.capacity()));
+                }
+                chunkIndexes.addAll(buffer.insertSegment(segment.getOffset(), segment.getData(),
+                        packetHeader.getChunkSize()));
+            }
+            if (!markReceived(sessionId, () -> sessionManager.updateSession(sessionId, chunkIndexes))) {
+                return completedElsewhere(sessionId);
+            }
+
+            if (session.isComplete() && claimCompletion(packetHeader, buffer::claimCompletion)) {
+                return completed(packetHeader, buffer.toByteArray());
+            }
+
+            return inProgress(session);
+        } catch (Exception e) {
+            sessionManager.markSessionFailed(sessionId, e);
+            throw new NetChannelsException("Failed to process QR code group", e);
+        }
+    }
+
+    /**
+     * 生成确认帧的二维码数据，由内网侧显示给外网侧扫描，外网侧据此安排重传或停止播放
+     *
+     * @param result {@link #assemble(String)} 返回的处理结果
+     */
+    public String acknowledge(TransferResult result) {
+        return acknowledge(result, AckFrameCodec.DEFAULT_MAX_CHARS);
+    }
+
+    /**
+     * @param maxChars 确认帧二维码的最大字符数，缺失分片过多时截断确认窗口
+     */
+    public String acknowledge(TransferResult result, int maxChars) {
+        String sessionId = result.getSessionId();
+        // 分段传输的结果在分段会话完成后才返回，对该会话而言已经完成
+        if (result.isCompleted() || result.getTransferId() != null) {
+            return AckFrameCodec.encode(AckFrame.completed(sessionId, result.getTotalChunks()), maxChars);
+        }
+        // 会话可能在本次组装之后被其他扫描输入完成并移除
+        Integer completedChunks = recentlyCompleted.get(sessionId);
+        if (completedChunks != null) {
+            return AckFrameCodec.encode(AckFrame.completed(sessionId, completedChunks), maxChars);
+        }
+        // 会话已过期、从未创建或已失败时报告没有接收任何分片，发送端继续播放
+        Optional<TransferSession> session = sessionManager.findSession(sessionId);
+        int totalChunks = session.map(TransferSession::getTotalChunks).orElse(result.getTotalChunks());
+        if (totalChunks <= 0) {
+            throw new NetChannelsException("Unknown chunk count of session: " + sessionId);
+        }
+        BitSet received = session.filter(s -> s.getState() != SessionState.FAILED)
+                .map(TransferSession::getReceivedSnapshot)
+                .orElseGet(BitSet::new);
+        return AckFrameCodec.encode(AckFrame.of(sessionId, totalChunks, received), maxChars);
+    }
+
+    /**
+     * 喷泉码分片：编码符号交给会话的解码器，每还原一个源分块就标记对应分片已接收，
+     * 全部源分块还原后按普通传输的流程解密、解压。
+     */
+    private TransferResult assembleFountain(TransferPacket packet) {
+        PacketHeader packetHeader = packet.getHeader();
+        String sessionId = packetHeader.getSessionId();
+        if (fountainCache == null) {
+            throw new NetChannelsException("Fountain transfer is not enabled");
+        }
+        if (recentlyCompleted.containsKey(sessionId)) {
+            return completedElsewhere(sessionId);
+        }
+
+        try {
+            TransferSession session = sessionManager.getOrCreateSession(sessionId,
+                    packetHeader.getTotalChunks(),
+                    packetHeader.getTotalSize());
+
+            FountainDecoder decoder = fountainCache.get(sessionId,
+                    () -> new FountainDecoder(packetHeader.getTotalChunks(),
+                            packetHeader.getChunkSize(), packetHeader.getTotalSize()));
+
+            // 解码和完成声明在同一把锁内，多个扫码输入同时还原最后一个源分块时只由一个线程组装
+            List<Integer> recovered = new ArrayList<>();
+            boolean claimed = lockTemplate.execute("nc:assembler:" + sessionId, () -> {
+                recovered.addAll(decoder.add(packetHeader.getCurrentChunk(), packet.getData()));
+                return claimCompletion(packetHeader, decoder::claimCompletion);
             });
+            boolean marked = recovered.isEmpty()
+                             || markReceived(sessionId, () -> sessionManager.updateSession(sessionId, recovered));
 
-            // 更新会话状态
-            sessionManager.updateSession(sessionId, packetHeader.getCurrentChunk());
-
-            // 检查是否所有分片都已接收
-            if (session.isComplete()) {
-                return TransferResult.builder()
-                        .sessionId(sessionId)
-                        .status(TransferResult.TransferStatus.COMPLETED)
-                        .data(assembleCompleteData(sessionId, buffer))
-                        .progress(1.0)
-                        .build();
-            }
-
-            // 返回进度信息
-            List<Integer> missing = session.getMissingChunks();
-            return TransferResult.builder()
-                    .status(TransferResult.TransferStatus.IN_PROGRESS)
-                    .sessionId(sessionId)
-                    .missingChunks(missing)
-                    .progress(session.getProgress())
-                    .build();
+            if (claimed) {
+                return completed(packetHeader, decoder.toByteArray());
+            }
+            if (!marked || decoder.isComplete()) {
+                return completedElsewhere(sessionId);
+            }
+
+            return inProgress(session);
         } catch (Exception e) {
             sessionManager.markSessionFailed(sessionId, e);
             throw new NetChannelsException("Failed to process QR code", e);
         }
     }
 
+    /**
+     * 标记分片已接收。会话已被其他扫码输入完成并移除时返回 false，这些分片按重复分片处理
+     */
+    private boolean markReceived(String sessionId, Runnable update) {
+        try {
+            update.run();
+            return true;
+        } catch (NetChannelsException e) {
+            boolean completed = sessionManager.findSession(sessionId)
+                    .map(session -> session.getState() == SessionState.COMPLETED)
+                    .orElse(true);
+            if (!completed) {
+                throw e;
+            }
+            log.debug("Session {} already completed, ignore duplicate chunks", sessionId);
+            return false;
+        }
+    }
+
+    /**
+     * 声明由当前线程组装会话。会话完成后到达的分片可能重新创建了缓冲区或解码器，
+     * 只有会话第一次完成时返回 true
+     */
+    private boolean claimCompletion(PacketHeader packetHeader, BooleanSupplier claim) {
+        String sessionId = packetHeader.getSessionId();
+        return !recentlyCompleted.containsKey(sessionId) && claim.getAsBoolean()
+               && recentlyCompleted.putIfAbsent(sessionId, packetHeader.getTotalChunks()) == null;
+    }
+
+    /**
+     * 会话已由其他扫码输入完成，完整数据在那次调用的结果中返回，这里只报告没有缺失的分片
+     */
+    private TransferResult completedElsewhere(String sessionId) {
+        return TransferResult.builder()
+                .status(TransferResult.TransferStatus.IN_PROGRESS)
+                .sessionId(sessionId)
+                .totalChunks(recentlyCompleted.getOrDefault(sessionId, 0))
+                .missingChunks(List.of())
+                .progress(1.0)
+                .build();
+    }
+
+    /**
+     * 会话的全部分片已接收：解密、解压并按传输模式还原数据，成功后清理会话。
+     * <br/>
+     * 解密失败、增量清单引用了缺失的分块等情况下已接收的数据无法再还原：释放完成声明并丢弃会话，
+     * 之后的确认帧报告没有接收任何分片，由发送端重新发送，不会确认未交付的数据
+     */
+    private TransferResult completed(PacketHeader packetHeader, byte[] assembledData) {
+        String sessionId = packetHeader.getSessionId();
+        try {
+            return restore(packetHeader, assembledData);
+        } catch (RuntimeException e) {
+            recentlyCompleted.remove(sessionId);
+            cleanup(sessionId);
+            throw e;
+        }
+    }
+
+    private TransferResult restore(PacketHeader packetHeader, byte[] assembledData) {
+        String sessionId = packetHeader.getSessionId();
+        if (packetHeader.hasFlag(PacketHeader.FLAG_ARCHIVE)) {
+            return archiveCompleted(packetHeader, assembledData);
+        }
+        byte[] data = assembleCompleteData(sessionId, assembledData,
+                !packetHeader.hasFlag(PacketHeader.FLAG_RAW));
+        TransferResult result;
+        if (packetHeader.hasFlag(PacketHeader.FLAG_SEGMENT)) {
+            result = segmentCompleted(packetHeader, data);
+        } else {
+            if (packetHeader.hasFlag(PacketHeader.FLAG_DELTA)) {
+                if (blockStore == null) {
+                    throw new NetChannelsException("Delta transfer is not enabled");
+                }
+                data = DeltaManifest.rebuild(data, blockStore);
+            }
+            result = dataCompleted(packetHeader, data);
+        }
+        cleanup(sessionId);
+        return result;
+    }
+
+    private TransferResult dataCompleted(PacketHeader packetHeader, byte[] data) {
+        var result = TransferResult.builder()
+                .sessionId(packetHeader.getSessionId())
+                .totalChunks(packetHeader.getTotalChunks())
+                .status(TransferResult.TransferStatus.COMPLETED)
+                .progress(1.0);
+        // 多记录会话逐条返回，不拼接为单个字符串
+        if (packetHeader.hasFlag(PacketHeader.FLAG_RECORDS)) {
+            return result.records(RecordContainer.unpack(data).stream()
+                            .map(record -> new String(record, StandardCharsets.UTF_8))
+                            .toList())
+                    .build();
+        }
+        return result.data(new String(data, StandardCharsets.UTF_8)).build();
+    }
+
+    /**
+     * 归档会话完成：解密后流式解压，边解压边写入 {@code <archiveDirectory>/<sessionId>.part}，
+     * 不在内存中保留解压后的归档，全部写入后重命名为 {@code <archiveDirectory>/<sessionId>}
+     */
+    private TransferResult archiveCompleted(PacketHeader packetHeader, byte[] assembledData) {
+        String sessionId = packetHeader.getSessionId();
+        if (archiveDirectory == null) {
+            throw new NetChannelsException("Archive transfer is not enabled");
+        }
+        if (!sessionId.matches("[A-Za-z0-9_-]+")) {
+            throw new NetChannelsException("Invalid session id for archive: " + sessionId);
+        }
+        Path part = archiveDirectory.resolve(sessionId + ".part");
+        Path target = archiveDirectory.resolve(sessionId);
+        try {
+            InputStream decrypted = new ByteArrayInputStream(cipher.decrypt(assembledData));
+            int files;
+            try (InputStream in = packetHeader.hasFlag(PacketHeader.FLAG_RAW)
+                    ? decrypted : compressor.decompressStream(decrypted)) {
+                files = ArchiveContainer.extract(in, part);
+            }
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Extracted {} files for session {} to {}", files, sessionId, target);
+        } catch (IOException e) {
+            throw new NetChannelsException("Failed to extract archive", e);
+        }
+        cleanup(sessionId);
+        return TransferResult.builder()
+                .sessionId(sessionId)
+                .totalChunks(packetHeader.getTotalChunks())
+                .status(TransferResult.TransferStatus.COMPLETED)
+                .progress(1.0)
+                .file(target)
+                .build();
+    }
+
+    /**
+     * 分段会话完成：写入分段文件，全部分段写入后返回完成状态和文件路径，否则按已完成的分段数返回进度
+     */
+    private TransferResult segmentCompleted(PacketHeader packetHeader, byte[] segment) {
+        String sessionId = packetHeader.getSessionId();
+        if (segmentWriter == null) {
+            throw new NetChannelsException("Segmented transfer is not enabled");
+        }
+        SegmentWriter.Progress progress = segmentWriter.write(segment);
+        var result = TransferResult.builder()
+                .sessionId(sessionId)
+                .totalChunks(packetHeader.getTotalChunks())
+                .transferId(progress.getTransferId());
+        if (progress.isComplete()) {
+            return result.status(TransferResult.TransferStatus.COMPLETED)
+                    .progress(1.0)
+                    .file(progress.getFile())
+                    .build();
+        }
+        return result.status(TransferResult.TransferStatus.IN_PROGRESS)
+                .progress((double) progress.getReceivedSegments() / progress.getTotalSegments())
+                .missingChunks(List.of())
+                .build();
+    }
+
+    private TransferResult inProgress(TransferSession session) {
+        // 返回进度信息
+        List<Integer> missing = session.getMissingChunks();
+        return TransferResult.builder()
+                .status(TransferResult.TransferStatus.IN_PROGRESS)
+                .sessionId(session.getSessionId())
+                .totalChunks(session.getTotalChunks())
+                .missingChunks(missing)
+                .progress(session.getProgress())
+                .build();
+    }
+
     private void insertChunkData(ByteBufferDataBuffer buffer, TransferPacket packet) {
-        int position = packet.getHeader().getCurrentChunk() *
-                       packet.getHeader().getChunkSize();
-        buffer.insertChunk(position, packet.getData());
+        // 用 long 计算偏移，避免分片序号较大时 int 乘法溢出写到错误的位置
+        long position = (long) packet.getHeader().getCurrentChunk() *
+                        packet.getHeader().getChunkSize();
+        if (position + packet.getData().length > buffer.capacity()) {
+            throw new NetChannelsException("Chunk %d exceeds total size %d"
+                    .formatted(packet.getHeader().getCurrentChunk(), buffer.capacity()));
+        }
+        buffer.insertChunk((int) position, packet.getData());
     }
 
-    private String assembleCompleteData(String sessionId, ByteBufferDataBuffer buffer) {
+    private byte[] assembleCompleteData(String sessionId, byte[] assembledData, boolean compressed) {
         try {
-            byte[] assembledData = buffer.toByteArray();
             // 解密
             byte[] decryptedData = cipher.decrypt(assembledData);
-            // 解压
-            byte[] decompressedData = compressor.decompress(decryptedData);
+            // 解压，发送端判断不可压缩的数据没有经过 gzip
+            byte[] decompressedData = compressed ? compressor.decompress(decryptedData) : decryptedData;
 
             log.info("Successfully assembled data for session: {}", sessionId);
-            cleanup(sessionId);
-            return new String(decompressedData, StandardCharsets.UTF_8);
+            return decompressedData;
         } catch (Exception e) {
             throw new NetChannelsException("Failed to assemble data", e);
         }
@@ -104,6 +496,9 @@ public class DataAssembler {
 
     private void cleanup(String sessionId) {
         dataCache.remove(sessionId);
+        if (fountainCache != null) {
+            fountainCache.remove(sessionId);
+        }
         try {
             sessionManager.removeSession(sessionId);
         } catch (Exception e) {
@@ -113,21 +508,76 @@ public class DataAssembler {
 
     /**
      * 使用 ByteBuffer 在组装数据时保存临时数据。如果数据量特别大，可以考虑使用 MappedByteBuffer。
+     * <br/>
+     * 分片按绝对位置写入，不修改 buffer 的 position，不同分片可以并发写入。
      */
     public static class ByteBufferDataBuffer {
         private final ByteBuffer buffer;
+        private final AtomicBoolean completed = new AtomicBoolean();
+        /**
+         * 只写入了一部分字节的分片及其已写入的字节
+         */
+        private final Map<Integer, BitSet> partialChunks = new HashMap<>();
 
         public ByteBufferDataBuffer(int totalSize) {
             this.buffer = ByteBuffer.allocate(totalSize);
         }
 
-        public synchronized void insertChunk(int position, byte[] data) {
-            buffer.position(position);
-            buffer.put(data);
+        public void insertChunk(int position, byte[] data) {
+            buffer.put(position, data);
+        }
+
+        /**
+         * 写入从 position 开始的一段数据，返回因此全部写入的分片序号。
+         * <br/>
+         * 只覆盖分片一部分的段记录已写入的字节，其余字节可以来自其他帧；重复写入同一范围不会重复计数
+         */
+        public List<Integer> insertSegment(int position, byte[] data, int chunkSize) {
+            buffer.put(position, data);
+            int end = position + data.length;
+            List<Integer> filled = new ArrayList<>();
+            for (int chunk = position / chunkSize; (long) chunk * chunkSize < end; chunk++) {
+                int chunkStart = chunk * chunkSize;
+                int chunkEnd = (int) Math.min((long) chunkStart + chunkSize, capacity());
+                int from = Math.max(position, chunkStart);
+                int to = Math.min(end, chunkEnd);
+                if (cover(chunk, from - chunkStart, to - chunkStart, chunkEnd - chunkStart)) {
+                    filled.add(chunk);
+                }
+            }
+            return filled;
+        }
+
+        private boolean cover(int chunk, int from, int to, int length) {
+            synchronized (partialChunks) {
+                if (from == 0 && to == length) {
+                    partialChunks.remove(chunk);
+                    return true;
+                }
+                BitSet covered = partialChunks.computeIfAbsent(chunk, k -> new BitSet(length));
+                covered.set(from, to);
+                if (covered.cardinality() < length) {
+                    return false;
+                }
+                partialChunks.remove(chunk);
+                return true;
+            }
+        }
+
+        /**
+         * 声明由当前线程组装完整数据，只有第一次调用返回 true
+         */
+        public boolean claimCompletion() {
+            return completed.compareAndSet(false, true);
+        }
+
+        public int capacity() {
+            return buffer.capacity();
         }
 
         public byte[] toByteArray() {
-            return Arrays.copyOf(buffer.array(), buffer.position());
+            // 分片可能乱序到达，按容量而不是最后写入的位置截取
+            return Arrays.copyOf(buffer.array(), buffer.capacity());
         }
     }
 }
\ No newline at end of file
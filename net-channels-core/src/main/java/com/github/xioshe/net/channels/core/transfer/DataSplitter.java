@@ -1,38 +1,114 @@
 package com.github.xioshe.net.channels.core.transfer;
 
 import com.github.xioshe.net.channels.core.cache.TransferDataCache;
+import com.github.xioshe.net.channels.core.compress.CompressionProbe;
 import com.github.xioshe.net.channels.core.compress.DataCompressor;
 import com.github.xioshe.net.channels.core.crypto.AESCipher;
+import com.github.xioshe.net.channels.core.delta.BlockIndex;
+import com.github.xioshe.net.channels.core.delta.ContentDefinedChunker;
+import com.github.xioshe.net.channels.core.delta.DeltaManifest;
 import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.fountain.FountainEncoder;
+import com.github.xioshe.net.channels.core.model.AckFrame;
+import com.github.xioshe.net.channels.core.model.ChunkLayout;
 import com.github.xioshe.net.channels.core.model.PacketHeader;
 import com.github.xioshe.net.channels.core.model.TransferPacket;
-import com.github.xioshe.net.channels.core.protocol.QRCodeProtocol;
+import com.github.xioshe.net.channels.core.protocol.ScannerProfile;
+import com.github.xioshe.net.channels.core.protocol.TransferProtocol;
 import com.github.xioshe.net.channels.core.session.SessionManager;
 import com.github.xioshe.net.channels.core.session.TimestampSessionIdGenerator;
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 @Slf4j
-@Builder
+@Builder(toBuilder = true)
 public class DataSplitter {
-    // 商业扫码枪 500-800 字节，工业级 2900-3000 字节，根据实际设备调整
-    private static final int DEFAULT_CHUNK_SIZE = 1024; // 1KB
+    // 加密后数据达到该大小时并行编码分片
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1024 * 1024; // 1MB
+    // 流式拆分时预读该大小的数据判断是否需要压缩
+    static final int STREAM_PROBE_SIZE = 64 * 1024;
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024; // 64MB
     private final SessionManager sessionManager;
-    private final QRCodeProtocol protocol;
+    private final TransferProtocol protocol;
     private final DataCompressor compressor;
     private final AESCipher cipher;
     private final TimestampSessionIdGenerator sessionIdGenerator;
     private final int maxQRDataSize;
+    /**
+     * 扫码设备档案，设置后按设备的二维码容量确定分片大小，覆盖 maxQRDataSize
+     */
+    private final ScannerProfile scannerProfile;
+    /**
+     * 流式拆分时暂存加密数据的目录，为空时使用系统临时目录
+     */
+    private final Path spoolDirectory;
+    /**
+     * 并行编码分片使用的线程池，为空时使用 {@link ForkJoinPool#commonPool()}
+     */
+    private final Executor splitExecutor;
+    /**
+     * 并行编码阈值（字节），加密后数据小于该值时在调用线程中顺序编码
+     */
+    @Builder.Default
+    private final int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
 
-    private final ConcurrentMap<String, String> processedDataCache = new ConcurrentHashMap<>();
+    /**
+     * 内容寻址缓存：原始数据摘要 -> 加密数据。相同的数据再次导出时跳过压缩和加密，
+     * 只按新的 sessionId 重新编码分片。为空时不去重
+     */
+    private final TransferDataCache<byte[]> digestCache;
     private final TransferDataCache<List<String>> dataCache;
+    /**
+     * {@link RetransmitMode#REGENERATE} 模式下缓存加密数据及分片参数
+     */
+    private final TransferDataCache<OutboundPayload> payloadCache;
+    @Builder.Default
+    private final RetransmitMode retransmitMode = RetransmitMode.CACHE_FRAMES;
+    /**
+     * 增量传输的已发送分块索引，为空时不支持 {@link #splitDelta(byte[], String)}
+     */
+    private final BlockIndex blockIndex;
+    /**
+     * 增量会话内联发送、尚未被接收端确认的分块：sessionId -> 分块哈希。
+     * 复制出的拆分器（{@link #withFrameCapacity(int)}）共享同一份
+     */
+    @Builder.Default
+    private final Map<String, List<String>> pendingBlocks = new ConcurrentHashMap<>();
+    @Builder.Default
+    private final ContentDefinedChunker chunker = new ContentDefinedChunker();
+    /**
+     * 分段传输时每个分段的原始数据大小
+     */
+    @Builder.Default
+    private final int segmentSize = DEFAULT_SEGMENT_SIZE;
 
     public List<String> split(byte[] data) {
         return split(data, sessionIdGenerator.generate());
@@ -43,59 +119,307 @@ public class DataSplitter {
     }
 
     public List<String> split(byte[] data, String sessionId) {
+        return split(data, sessionId, (byte) 0);
+    }
+
+    public List<String> splitRecords(List<byte[]> records) {
+        return splitRecords(records, sessionIdGenerator.generate());
+    }
+
+    /**
+     * 将多条记录打包为一个会话发送，接收端在 {@link com.github.xioshe.net.channels.core.model.TransferResult#getRecords()}
+     * 中逐条返回。多条小消息共享一次会话、一次压缩和尽量少的帧。
+     */
+    public List<String> splitRecords(List<byte[]> records, String sessionId) {
+        if (records == null || records.isEmpty()) {
+            throw new IllegalArgumentException("Records cannot be null or empty");
+        }
+        return split(RecordContainer.pack(records), sessionId, PacketHeader.FLAG_RECORDS);
+    }
+
+    public List<String> splitDelta(byte[] data) {
+        return splitDelta(data, sessionIdGenerator.generate());
+    }
+
+    /**
+     * 增量拆分：按内容定义分块，接收端已持有的分块（记录在 blockIndex 中）只发送哈希引用。
+     * <br/>
+     * 本次内联发送的分块先挂在会话上，收到该会话完成的确认帧（{@link #confirm(AckFrame)}）后才加入 blockIndex；
+     * 未展示、被放弃或失败的会话不会让后续增量传输引用接收端并不持有的分块。
+     */
+    public List<String> splitDelta(byte[] data, String sessionId) {
         if (data == null || data.length == 0) {
             throw new IllegalArgumentException("Data cannot be null or empty");
         }
+        if (blockIndex == null) {
+            throw new NetChannelsException("Delta transfer is not enabled");
+        }
+        purgeExpiredBlocks();
+        DeltaManifest.Encoded encoded = DeltaManifest.encode(data, chunker, blockIndex);
+        List<String> frames = split(encoded.getManifest(), sessionId, PacketHeader.FLAG_DELTA);
+        if (!encoded.getInlineHashes().isEmpty()) {
+            pendingBlocks.put(sessionId, encoded.getInlineHashes());
+        }
+        log.info("Delta split {} blocks, {} sent inline, sessionId: {}",
+                encoded.getTotalBlocks(), encoded.getInlineHashes().size(), sessionId);
+        return frames;
+    }
 
-        try {
-            // 压缩原始数据
-            byte[] compressedData = compressor.compress(data);
-            // 加密压缩后的数据
-            byte[] encryptedData = cipher.encrypt(compressedData);
-
-            // 计算分片
-            int totalSize = encryptedData.length;
-            int chunkSize = calculateOptimalChunkSize(totalSize);
-            int totalChunks = (int) Math.ceil((double) totalSize / chunkSize);
+    /**
+     * 处理接收端的确认帧：会话已完成时，把该会话内联发送的分块加入 blockIndex
+     *
+     * @return 确认帧是否表明会话已完成
+     */
+    public boolean confirm(AckFrame ack) {
+        if (!ack.isComplete()) {
+            return false;
+        }
+        List<String> hashes = pendingBlocks.remove(ack.getSessionId());
+        if (hashes != null) {
+            hashes.forEach(blockIndex::add);
+            log.debug("Committed {} delta blocks of session {}", hashes.size(), ack.getSessionId());
+        }
+        return true;
+    }
 
-            sessionManager.createSession(sessionId, totalChunks, totalSize);
-            List<String> packets = new ArrayList<>(totalChunks);
+    /**
+     * 发送端会话过期后接收端不会再确认，丢弃其待确认的分块
+     */
+    private void purgeExpiredBlocks() {
+        pendingBlocks.keySet().removeIf(sessionId -> sessionManager.findSession(sessionId).isEmpty());
+    }
 
-            // 分片处理
-            for (int i = 0; i < totalChunks; i++) {
-                int start = i * chunkSize;
-                int end = Math.min(start + chunkSize, totalSize);
+    private List<String> split(byte[] data, String sessionId, byte flags) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Data cannot be null or empty");
+        }
 
-                byte[] chunk = Arrays.copyOfRange(encryptedData, start, end);
+        try {
+            boolean compressible = CompressionProbe.isCompressible(data);
+            byte[] encryptedData = encrypt(data, compressible);
+            if (!compressible) {
+                flags |= PacketHeader.FLAG_RAW;
+            }
 
-                TransferPacket packet = createPacket(sessionId, i, totalChunks,
-                        chunkSize, totalSize, chunk);
+            // 计算分片
+            ChunkLayout layout = planLayout(sessionId, flags, encryptedData.length);
+            int totalChunks = layout.getTotalChunks();
 
-                String qrCode = protocol.packetToQRCode(packet);
+            sessionManager.createSession(sessionId, totalChunks, layout.getTotalSize());
 
-                // 验证数据包大小是否超过二维码容量
-                if (qrCode.length() > maxQRDataSize) {
-                    throw new NetChannelsException("Packet size exceeds QR code capacity");
-                }
-                packets.add(qrCode);
+            // 分片处理，结果按分片序号写入数组，并行时也能保证顺序
+            String[] frames = new String[totalChunks];
+            if (layout.getTotalSize() < parallelThreshold || totalChunks < 2) {
+                encodeChunks(frames, 0, totalChunks, layout, encryptedData);
+            } else {
+                encodeChunksInParallel(frames, layout, encryptedData);
             }
+            List<String> packets = new ArrayList<>(Arrays.asList(frames));
 
             // 缓存处理后的数据用于重传
-            dataCache.store(sessionId, packets);
+            if (retransmitMode == RetransmitMode.REGENERATE) {
+                payloadCache.store(sessionId, OutboundPayload.builder()
+                        .sessionId(sessionId)
+                        .flags(flags)
+                        .encryptedData(encryptedData)
+                        .chunkSize(layout.getChunkSize())
+                        .totalChunks(totalChunks)
+                        .build());
+            } else {
+                dataCache.store(sessionId, packets);
+            }
 
             log.info("Split data into {} chunks, sessionId: {}", totalChunks, sessionId);
             return packets;
         } catch (Exception e) {
-            processedDataCache.remove(sessionId);
             sessionManager.markSessionFailed(sessionId, e);
             throw new NetChannelsException("Failed to split data", e);
         }
     }
 
+    public FrameStream split(InputStream input) {
+        return split(input, sessionIdGenerator.generate());
+    }
+
+    public FrameStream split(ReadableByteChannel channel) {
+        return split(Channels.newInputStream(channel), sessionIdGenerator.generate());
+    }
+
+    /**
+     * 流式拆分：压缩、加密后的数据暂存到磁盘，返回按需生成二维码数据的 {@link FrameStream}。
+     * <br/>
+     * 内存中不保留完整数据和全部二维码数据，适合大数据量导出。分片数据不写入重传缓存，
+     * 展示过程中的重传通过 {@link FrameStream#frame(int)} 完成。
+     */
+    public FrameStream split(InputStream input, String sessionId) {
+        return split(input, sessionId, (byte) 0);
+    }
+
+    private FrameStream split(InputStream input, String sessionId, byte flags) {
+        if (input == null) {
+            throw new IllegalArgumentException("Input cannot be null");
+        }
+
+        Path spoolFile = null;
+        boolean sessionCreated = false;
+        try {
+            spoolFile = spoolDirectory == null
+                    ? Files.createTempFile("nc-" + sessionId + "-", ".spool")
+                    : Files.createTempFile(spoolDirectory, "nc-" + sessionId + "-", ".spool");
+
+            // 预读开头的数据判断是否需要压缩，再拼回原始流
+            byte[] head = input.readNBytes(STREAM_PROBE_SIZE);
+            boolean compressible = CompressionProbe.isCompressible(head);
+            InputStream probed = new SequenceInputStream(new ByteArrayInputStream(head), input);
+
+            // 压缩后直接加密写入暂存文件，不可压缩的数据直接加密
+            long rawSize;
+            try (OutputStream out = cipher.encrypt(
+                    new BufferedOutputStream(Files.newOutputStream(spoolFile)))) {
+                rawSize = compressible ? compressor.compress(probed, out) : probed.transferTo(out);
+            }
+            if (rawSize == 0) {
+                throw new IllegalArgumentException("Data cannot be null or empty");
+            }
+
+            long encryptedSize = Files.size(spoolFile);
+            if (encryptedSize > Integer.MAX_VALUE) {
+                throw new NetChannelsException("Data too large: " + encryptedSize);
+            }
+            if (!compressible) {
+                flags |= PacketHeader.FLAG_RAW;
+            }
+            ChunkLayout layout = planLayout(sessionId, flags, (int) encryptedSize);
+
+            sessionManager.createSession(sessionId, layout.getTotalChunks(), layout.getTotalSize());
+            sessionCreated = true;
+
+            FileChannel channel = FileChannel.open(spoolFile,
+                    StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+            log.info("Split stream into {} chunks, sessionId: {}", layout.getTotalChunks(), sessionId);
+            return new FrameStream(layout, channel,
+                    (index, source, offset, length) -> encodeChunk(layout, index, source, offset, length));
+        } catch (IllegalArgumentException e) {
+            deleteQuietly(spoolFile);
+            throw e;
+        } catch (Exception e) {
+            deleteQuietly(spoolFile);
+            if (sessionCreated) {
+                sessionManager.markSessionFailed(sessionId, e);
+            }
+            throw new NetChannelsException("Failed to split stream", e);
+        }
+    }
+
+    /**
+     * 分段拆分：文件按 {@link #segmentSize} 切成多个分段，每个分段作为独立会话流式拆分。
+     * <br/>
+     * 用于超过 2GB 或不适合整体放入内存的数据，接收端需要配置分段目录，按 64 位偏移将各分段写入文件。
+     */
+    public SegmentedTransfer splitSegments(Path file) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            if (channel.size() == 0) {
+                throw new IllegalArgumentException("Data cannot be null or empty");
+            }
+            String transferId = sessionIdGenerator.generate();
+            SegmentedTransfer transfer = new SegmentedTransfer(transferId, channel, segmentSize, this::splitSegment);
+            log.info("Split {} bytes into {} segments, transferId: {}",
+                    transfer.getTotalSize(), transfer.getSegmentCount(), transferId);
+            return transfer;
+        } catch (IllegalArgumentException e) {
+            closeQuietly(channel);
+            throw e;
+        } catch (Exception e) {
+            closeQuietly(channel);
+            throw new NetChannelsException("Failed to split file: " + file, e);
+        }
+    }
+
+    /**
+     * 拆分一个分段的数据（含分段头），每次调用创建新的会话
+     */
+    FrameStream splitSegment(InputStream input) {
+        return split(input, sessionIdGenerator.generate(), PacketHeader.FLAG_SEGMENT);
+    }
+
+    public FrameStream splitArchive(Path root) {
+        return splitArchive(root, sessionIdGenerator.generate());
+    }
+
+    /**
+     * 归档拆分：把目录（或单个文件）以 {@link ArchiveContainer} 格式流式写入一个会话，不需要事先打包。
+     * <br/>
+     * 所有文件共享一次会话和一次压缩，接收端需要配置归档目录，完成后解包到以 sessionId 命名的子目录。
+     */
+    public FrameStream splitArchive(Path root, String sessionId) {
+        if (root == null) {
+            throw new IllegalArgumentException("Root cannot be null");
+        }
+        try (InputStream archive = ArchiveContainer.open(root)) {
+            return split(archive, sessionId, PacketHeader.FLAG_ARCHIVE);
+        } catch (IOException e) {
+            throw new NetChannelsException("Failed to close archive: " + root, e);
+        }
+    }
+
+    public FountainFrameStream splitFountain(byte[] data) {
+        return splitFountain(data, sessionIdGenerator.generate());
+    }
+
+    /**
+     * 喷泉码拆分：压缩、加密后的数据作为源分块，返回可无限生成编码帧的 {@link FountainFrameStream}。
+     * <br/>
+     * 接收端收到任意足够数量的帧即可还原数据，不依赖特定分片，无需重传。每帧数据固定为 chunkSize 字节，
+     * 最后一个源分块补零，接收端按 totalSize 截断。
+     */
+    public FountainFrameStream splitFountain(byte[] data, String sessionId) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Data cannot be null or empty");
+        }
+
+        boolean sessionCreated = false;
+        try {
+            boolean compressible = CompressionProbe.isCompressible(data);
+            byte[] encryptedData = encrypt(data, compressible);
+            byte flags = compressible ? PacketHeader.FLAG_FOUNTAIN
+                    : PacketHeader.FLAG_FOUNTAIN | PacketHeader.FLAG_RAW;
+            ChunkLayout layout = planLayout(sessionId, flags, encryptedData.length);
+            FountainEncoder encoder = new FountainEncoder(encryptedData, layout.getChunkSize());
+
+            sessionManager.createSession(sessionId, layout.getTotalChunks(), layout.getTotalSize());
+            sessionCreated = true;
+
+            log.info("Split data into {} fountain source blocks, sessionId: {}", layout.getTotalChunks(), sessionId);
+            return new FountainFrameStream(layout, encoder,
+                    (index, source, offset, length) -> encodeChunk(layout, index, source, offset, length));
+        } catch (Exception e) {
+            if (sessionCreated) {
+                sessionManager.markSessionFailed(sessionId, e);
+            }
+            throw new NetChannelsException("Failed to split data", e);
+        }
+    }
+
+    /**
+     * 按接收端确认帧中的缺失分片重传，会话已完成时返回空列表，并按 {@link #confirm(AckFrame)} 处理
+     */
+    public List<String> retransmit(AckFrame ack) {
+        if (confirm(ack)) {
+            return List.of();
+        }
+        return retransmit(ack.getSessionId(), ack.getMissingChunks());
+    }
+
     public List<String> retransmit(String sessionId, List<Integer> chunks) {
         // 确保会话仍然有效
         sessionManager.getSession(sessionId);
 
+        if (retransmitMode == RetransmitMode.REGENERATE) {
+            return regenerate(sessionId, chunks);
+        }
+
         List<String> processedData = dataCache.get(sessionId)
                 .orElseThrow(() -> new NetChannelsException("Session data not found: " + sessionId));
 
@@ -113,36 +437,328 @@ public class DataSplitter {
         return packets;
     }
 
-    private TransferPacket createPacket(String sessionId, int currentChunk,
-                                        int totalChunks, int chunkSize, int totalSize, byte[] chunk) {
-        PacketHeader header = PacketHeader.builder()
+    /**
+     * 按确认帧打包重传，见 {@link #pack(List, int)}，会话已完成时返回空列表
+     */
+    public List<String> retransmitPacked(AckFrame ack, int frameCapacity) {
+        if (confirm(ack)) {
+            return List.of();
+        }
+        return retransmitPacked(ack.getSessionId(), ack.getMissingChunks(), frameCapacity);
+    }
+
+    public List<String> retransmitPacked(String sessionId, List<Integer> chunks, int frameCapacity) {
+        if (retransmitMode != RetransmitMode.REGENERATE) {
+            // 只缓存了二维码数据，分片数据需要从缓存的帧中取回
+            return pack(retransmit(sessionId, chunks), frameCapacity);
+        }
+        // 确保会话仍然有效
+        sessionManager.getSession(sessionId);
+        OutboundPayload payload = payloadCache.get(sessionId)
+                .orElseThrow(() -> new NetChannelsException("Session data not found: " + sessionId));
+        ChunkLayout layout = payloadLayout(sessionId, payload);
+        // 按分片序号排序并去重，连续的分片直接取为一段
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Integer chunkIndex : chunks) {
+            checkChunkIndex(layout, chunkIndex);
+            indexes.add(chunkIndex);
+        }
+        List<PackedSegments.Segment> segments = new ArrayList<>();
+        int maxLength = 0;
+        for (int first : indexes) {
+            maxLength = Math.max(maxLength, layout.length(first));
+            if (indexes.contains(first - 1)) {
+                continue;
+            }
+            int last = first;
+            while (indexes.contains(last + 1)) {
+                last++;
+            }
+            int offset = layout.offset(first);
+            segments.add(new PackedSegments.Segment(offset, Arrays.copyOfRange(payload.getEncryptedData(),
+                    offset, layout.offset(last) + layout.length(last))));
+        }
+        List<List<PackedSegments.Segment>> plan = PackedSegments.plan(segments, protocol.maxChunkSize(frameCapacity));
+        if (plainIsSmaller(plan, indexes.size(), maxLength, frameCapacity)) {
+            return checkCapacity(regenerate(sessionId, List.copyOf(indexes)), frameCapacity);
+        }
+        return packFrames(layout, plan, frameCapacity);
+    }
+
+    /**
+     * 打包重传：把同一会话的多个分片重新划分为尽量少的帧。连续的分片合并为一段，帧装满后剩余的字节从下一帧继续，
+     * 每帧带有各段在加密数据中的偏移和长度，见 {@link PackedSegments}。
+     * <br/>
+     * 拆分时各分片已均分到接近帧容量，以原容量重传时打包帧数不会少于分片数，此时按普通分片重传，
+     * 不增加打包开销。打包用于以更大的帧重传，或在帧参数调低后（见
+     * {@link com.github.xioshe.net.channels.core.playback.FrameSizeController}）以装不下原分片的小帧重传。
+     * <br/>
+     * 启用 {@link RetransmitMode#REGENERATE} 时 {@link #retransmitPacked(String, List, int)} 直接从加密数据打包，
+     * 此方法用于只有二维码数据的场景。
+     *
+     * @param frames        同一会话的原始分片帧，例如 {@link #retransmit(String, List)} 或
+     *                      {@link FrameStream#frame(int)} 的结果
+     * @param frameCapacity 重传帧的二维码容量（字符数）
+     */
+    public List<String> pack(List<String> frames, int frameCapacity) {
+        // 按分片序号排序并去重，相邻的分片才能合并为一段
+        Map<Integer, TransferPacket> chunks = new TreeMap<>();
+        Map<Integer, String> originals = new TreeMap<>();
+        ChunkLayout layout = null;
+        int maxLength = 0;
+        for (String frame : frames) {
+            TransferPacket packet = protocol.qrCodeToPacket(frame);
+            PacketHeader header = packet.getHeader();
+            if (header.hasFlag(PacketHeader.FLAG_FOUNTAIN) || header.hasFlag(PacketHeader.FLAG_PACKED)) {
+                throw new NetChannelsException("Only plain chunk frames can be packed");
+            }
+            if (layout == null) {
+                layout = ChunkLayout.builder()
+                        .sessionId(header.getSessionId())
+                        .flags(header.getFlags())
+                        .totalChunks(header.getTotalChunks())
+                        .chunkSize(header.getChunkSize())
+                        .totalSize(header.getTotalSize())
+                        .build();
+            } else if (!layout.getSessionId().equals(header.getSessionId())) {
+                throw new NetChannelsException("Cannot pack frames of different sessions");
+            }
+            chunks.put(header.getCurrentChunk(), packet);
+            originals.put(header.getCurrentChunk(), frame);
+            maxLength = Math.max(maxLength, packet.getData().length);
+        }
+        if (layout == null) {
+            return List.of();
+        }
+
+        List<PackedSegments.Segment> segments = new ArrayList<>(chunks.size());
+        for (var chunk : chunks.entrySet()) {
+            segments.add(new PackedSegments.Segment(layout.offset(chunk.getKey()), chunk.getValue().getData()));
+        }
+        List<List<PackedSegments.Segment>> plan = PackedSegments.plan(segments, protocol.maxChunkSize(frameCapacity));
+        if (plainIsSmaller(plan, chunks.size(), maxLength, frameCapacity)) {
+            return checkCapacity(List.copyOf(originals.values()), frameCapacity);
+        }
+        return packFrames(layout, plan, frameCapacity);
+    }
+
+    /**
+     * 每个分片都装得下一帧，且打包不能减少帧数时，逐个分片重传更好
+     */
+    private boolean plainIsSmaller(List<List<PackedSegments.Segment>> plan, int chunkCount, int maxChunkLength,
+                                   int frameCapacity) {
+        return plan.size() >= chunkCount && maxChunkLength <= protocol.maxChunkSize(frameCapacity);
+    }
+
+    private List<String> packFrames(ChunkLayout layout, List<List<PackedSegments.Segment>> plan, int frameCapacity) {
+        ChunkLayout packedLayout = ChunkLayout.builder()
+                .sessionId(layout.getSessionId())
+                .flags((byte) (layout.getFlags() | PacketHeader.FLAG_PACKED))
+                .totalChunks(layout.getTotalChunks())
+                .chunkSize(layout.getChunkSize())
+                .totalSize(layout.getTotalSize())
+                .build();
+        List<String> packed = new ArrayList<>(plan.size());
+        for (List<PackedSegments.Segment> segments : plan) {
+            byte[] data = PackedSegments.pack(segments);
+            // 包头的分片序号取第一段所在的分片，接收端按各段的偏移写入
+            int firstChunk = segments.get(0).getOffset() / layout.getChunkSize();
+            packed.add(protocol.chunkToQRCode(packedLayout, firstChunk, data, 0, data.length));
+        }
+        log.debug("Packed retransmit of session {} into {} frames", layout.getSessionId(), packed.size());
+        return checkCapacity(packed, frameCapacity);
+    }
+
+    private static List<String> checkCapacity(List<String> frames, int frameCapacity) {
+        for (String frame : frames) {
+            if (frame.length() > frameCapacity) {
+                throw new NetChannelsException("Retransmit frame size exceeds QR code capacity");
+            }
+        }
+        return frames;
+    }
+
+    private List<String> regenerate(String sessionId, List<Integer> chunks) {
+        OutboundPayload payload = payloadCache.get(sessionId)
+                .orElseThrow(() -> new NetChannelsException("Session data not found: " + sessionId));
+
+        byte[] encryptedData = payload.getEncryptedData();
+        ChunkLayout layout = payloadLayout(sessionId, payload);
+        List<String> packets = new ArrayList<>(chunks.size());
+        for (Integer chunkIndex : chunks) {
+            checkChunkIndex(layout, chunkIndex);
+            packets.add(encodeChunk(layout, chunkIndex, encryptedData,
+                    layout.offset(chunkIndex), layout.length(chunkIndex)));
+        }
+        return packets;
+    }
+
+    private static ChunkLayout payloadLayout(String sessionId, OutboundPayload payload) {
+        return ChunkLayout.builder()
                 .sessionId(sessionId)
-                .currentChunk(currentChunk)
-                .totalChunks(totalChunks)
-                .chunkSize(chunkSize)
-                .totalSize(totalSize)
-                .checksum(protocol.calculateChecksum(chunk))
+                .flags(payload.getFlags())
+                .totalChunks(payload.getTotalChunks())
+                .chunkSize(payload.getChunkSize())
+                .totalSize(payload.getTotalSize())
                 .build();
+    }
+
+    private static void checkChunkIndex(ChunkLayout layout, Integer chunkIndex) {
+        if (chunkIndex == null || chunkIndex < 0 || chunkIndex >= layout.getTotalChunks()) {
+            throw new NetChannelsException("Chunk %d not found".formatted(chunkIndex));
+        }
+    }
+
+    /**
+     * 压缩并加密原始数据，启用内容寻址缓存时相同内容直接复用已加密的数据。
+     * <br/>
+     * 是否压缩由数据内容决定，相同内容的判断结果一致，缓存键不需要区分
+     */
+    private byte[] encrypt(byte[] data, boolean compress) {
+        if (digestCache == null) {
+            return cipher.encrypt(compress ? compressor.compress(data) : data);
+        }
+        String digest = digest(data);
+        Optional<byte[]> cached = digestCache.get(digest);
+        if (cached.isPresent()) {
+            log.debug("Reusing encrypted payload for digest: {}", digest);
+            return cached.get();
+        }
+        return digestCache.store(digest, cipher.encrypt(compress ? compressor.compress(data) : data));
+    }
 
-        return TransferPacket.builder()
-                .header(header)
-                .data(chunk)
+    private static String digest(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new NetChannelsException("SHA-256 not available", e);
+        }
+    }
+
+    private void encodeChunksInParallel(String[] frames, ChunkLayout layout, byte[] encryptedData) {
+        Executor executor = splitExecutor != null ? splitExecutor : ForkJoinPool.commonPool();
+        int totalChunks = frames.length;
+        // 每个任务处理一段连续分片，任务数略多于 CPU 数以平衡负载
+        int batches = Math.min(totalChunks, Runtime.getRuntime().availableProcessors() * 4);
+        int batchSize = (totalChunks + batches - 1) / batches;
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(batches);
+        for (int from = 0; from < totalChunks; from += batchSize) {
+            int start = from;
+            int end = Math.min(from + batchSize, totalChunks);
+            futures.add(CompletableFuture.runAsync(
+                    () -> encodeChunks(frames, start, end, layout, encryptedData), executor));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void encodeChunks(String[] frames, int from, int to, ChunkLayout layout, byte[] encryptedData) {
+        for (int i = from; i < to; i++) {
+            frames[i] = encodeChunk(layout, i, encryptedData, layout.offset(i), layout.length(i));
+        }
+    }
+
+    private String encodeChunk(ChunkLayout layout, int currentChunk, byte[] source, int offset, int length) {
+        String qrCode = protocol.chunkToQRCode(layout, currentChunk, source, offset, length);
+
+        // 验证数据包大小是否超过二维码容量
+        if (qrCode.length() > frameCapacity()) {
+            throw new NetChannelsException("Packet size exceeds QR code capacity");
+        }
+        return qrCode;
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (Exception e) {
+            log.warn("Failed to close file", e);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (Exception e) {
+            log.warn("Failed to delete spool file: {}", file, e);
+        }
+    }
+
+    /**
+     * 复制一个拆分器，只把每帧二维码容量改为 capacity，其余配置和依赖共享。
+     * <br/>
+     * 用于按 {@link com.github.xioshe.net.channels.core.playback.FrameSizeController} 调整后的帧参数拆分新的会话，
+     * 复制后不再使用扫码设备档案的容量。
+     */
+    public DataSplitter withFrameCapacity(int capacity) {
+        if (protocol.maxChunkSize(capacity) <= 0) {
+            throw new NetChannelsException("QR code capacity %d is too small for packet header".formatted(capacity));
+        }
+        return toBuilder().maxQRDataSize(capacity).scannerProfile(null).build();
+    }
+
+    /**
+     * 每帧二维码可容纳的字符数
+     */
+    private int frameCapacity() {
+        return scannerProfile != null ? scannerProfile.getCapacity(protocol.encodingMode()) : maxQRDataSize;
+    }
+
+    /**
+     * 每个分片最多容纳的加密数据字节数
+     */
+    int maxChunkSize() {
+        int maxChunkSize = protocol.maxChunkSize(frameCapacity());
+        if (maxChunkSize <= 0) {
+            throw new NetChannelsException("QR code capacity %d is too small for packet header"
+                    .formatted(frameCapacity()));
+        }
+        return maxChunkSize;
+    }
+
+    DataCompressor compressor() {
+        return compressor;
+    }
+
+    ScannerProfile scannerProfile() {
+        return scannerProfile;
+    }
+
+    private ChunkLayout planLayout(String sessionId, byte flags, int totalSize) {
+        int chunkSize = calculateOptimalChunkSize(totalSize);
+        return ChunkLayout.builder()
+                .sessionId(sessionId)
+                .flags(flags)
+                .totalChunks(Math.ceilDiv(totalSize, chunkSize))
+                .chunkSize(chunkSize)
+                .totalSize(totalSize)
                 .build();
     }
 
     private int calculateOptimalChunkSize(int totalSize) {
-        // 考虑 Base64 编码后的膨胀比例 (4/3)
-        // 考虑头部大小 (HEADER_SIZE)
-        // 预留一些空间给其他开销
-        double base64Factor = 3.0 / 4.0;  // Base64 解码后的比例
-        int reservedSpace = 50;  // 预留空间
-
-        // 计算实际可用的数据空间
-        int maxEncodedSize = maxQRDataSize - reservedSpace;
-        int maxDecodedSize = (int) (maxEncodedSize * base64Factor) - PacketHeader.HEADER_SIZE;
-
-        // 确保分片大小合理
-        return Math.min(maxDecodedSize, Math.max(DEFAULT_CHUNK_SIZE,
-                totalSize / 10));  // 至少分10片
+        int maxChunkSize = maxChunkSize();
+        // 用最少的帧数，每帧尽量装满，并均分到各分片，避免最后一帧只有少量数据
+        int totalChunks = Math.ceilDiv(totalSize, maxChunkSize);
+        return Math.ceilDiv(totalSize, totalChunks);
+    }
+
+    /**
+     * 重传数据的保留方式
+     */
+    public enum RetransmitMode {
+        /**
+         * 缓存全部二维码数据，重传时直接返回
+         */
+        CACHE_FRAMES,
+        /**
+         * 只缓存加密数据及分片参数，重传时重新生成分片的二维码数据
+         */
+        REGENERATE
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.fountain.FountainEncoder;
+import com.github.xioshe.net.channels.core.model.ChunkLayout;
+import lombok.Getter;
+
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 喷泉码模式下无限长的二维码数据流。
+ * <br/>
+ * 前 totalChunks 帧是源分块本身，之后每一帧都是若干源分块的异或。接收端收到任意略多于 totalChunks 帧即可还原数据，
+ * 展示端循环播放即可完成传输，丢帧无需重传。
+ */
+public class FountainFrameStream implements Iterator<String> {
+    @Getter
+    private final ChunkLayout layout;
+    private final FountainEncoder encoder;
+    private final FrameStream.ChunkEncoder chunkEncoder;
+    private final byte[] symbolBuffer;
+    private int nextSymbol;
+
+    FountainFrameStream(ChunkLayout layout, FountainEncoder encoder, FrameStream.ChunkEncoder chunkEncoder) {
+        this.layout = layout;
+        this.encoder = encoder;
+        this.chunkEncoder = chunkEncoder;
+        this.symbolBuffer = new byte[layout.getChunkSize()];
+    }
+
+    public String getSessionId() {
+        return layout.getSessionId();
+    }
+
+    /**
+     * 源分块数，即无丢帧时完成传输所需的帧数
+     */
+    public int getTotalChunks() {
+        return layout.getTotalChunks();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return true;
+    }
+
+    @Override
+    public String next() {
+        return frame(nextSymbol++);
+    }
+
+    /**
+     * 生成指定序号的编码帧
+     */
+    public synchronized String frame(int symbolId) {
+        encoder.symbol(symbolId, symbolBuffer);
+        return chunkEncoder.encode(symbolId, symbolBuffer, 0, symbolBuffer.length);
+    }
+
+    /**
+     * 从下一帧开始的无限流，需配合 {@code limit} 或 {@code takeWhile} 使用
+     */
+    public Stream<String> stream() {
+        return IntStream.iterate(nextSymbol, i -> i + 1).mapToObj(this::frame);
+    }
+}
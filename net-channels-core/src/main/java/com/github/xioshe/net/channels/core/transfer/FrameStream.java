@@ -0,0 +1,109 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.ChunkLayout;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 按需生成二维码数据的分片流。
+ * <br/>
+ * 加密后的数据暂存在磁盘文件中，每次只读取一个分片并编码，内存占用与分片大小相关，与数据总量无关。
+ * 支持按序号随机读取，用于展示过程中的重传。使用完毕后需要关闭，关闭时删除暂存文件。
+ */
+@Slf4j
+public class FrameStream implements Iterator<String>, Closeable {
+    @Getter
+    private final ChunkLayout layout;
+    private final FileChannel channel;
+    private final ChunkEncoder encoder;
+    private final ByteBuffer chunkBuffer;
+    private int nextChunk;
+
+    FrameStream(ChunkLayout layout, FileChannel channel, ChunkEncoder encoder) {
+        this.layout = layout;
+        this.channel = channel;
+        this.encoder = encoder;
+        this.chunkBuffer = ByteBuffer.allocate(layout.getChunkSize());
+    }
+
+    public String getSessionId() {
+        return layout.getSessionId();
+    }
+
+    public int getTotalChunks() {
+        return layout.getTotalChunks();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextChunk < layout.getTotalChunks();
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return frame(nextChunk++);
+    }
+
+    /**
+     * 读取并编码指定序号的分片
+     */
+    public synchronized String frame(int chunkIndex) {
+        if (chunkIndex < 0 || chunkIndex >= layout.getTotalChunks()) {
+            throw new NetChannelsException("Chunk %d not found".formatted(chunkIndex));
+        }
+        long position = layout.offset(chunkIndex);
+        int length = layout.length(chunkIndex);
+        try {
+            chunkBuffer.clear().limit(length);
+            while (chunkBuffer.hasRemaining()) {
+                if (channel.read(chunkBuffer, position + chunkBuffer.position()) < 0) {
+                    throw new NetChannelsException("Unexpected end of spooled data");
+                }
+            }
+            // 直接编码读缓冲区中的数据，不复制分片
+            return encoder.encode(chunkIndex, chunkBuffer.array(), 0, length);
+        } catch (IOException e) {
+            throw new NetChannelsException("Failed to read chunk %d".formatted(chunkIndex), e);
+        }
+    }
+
+    /**
+     * 以 {@link Stream} 形式按序消费剩余分片，关闭 Stream 时同时关闭本对象
+     */
+    public Stream<String> stream() {
+        return StreamSupport.stream(
+                        Spliterators.spliterator(this, layout.getTotalChunks() - nextChunk,
+                                Spliterator.ORDERED | Spliterator.NONNULL),
+                        false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close spooled data for session: {}", layout.getSessionId(), e);
+        }
+    }
+
+    @FunctionalInterface
+    interface ChunkEncoder {
+        String encode(int chunkIndex, byte[] source, int offset, int length);
+    }
+}
@@ -0,0 +1,231 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.session.TimestampSessionIdGenerator;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 小消息聚合器，位于 {@link DataSplitter} 之前。
+ * <br/>
+ * 在时间窗口或字节窗口内收集消息，到达任一上限时作为一个多记录会话拆分，交给 frameSink 展示。
+ * 时间窗口从窗口内第一条消息开始计算，保证单条消息的最大延迟不超过窗口时长。
+ * <br/>
+ * 拆分失败时整批消息留待下一个时间窗口单独重试，不与新消息合并，最多尝试 {@value #MAX_ATTEMPTS} 次后丢弃。
+ * 拆分成功后 frameSink 失败时不重试：会话已经拆分并缓存，由展示端按 sessionId 重新展示或补发，
+ * 重新拆分会产生第二个会话，接收端会收到重复的消息。
+ */
+@Slf4j
+public class MessageAggregator implements Closeable {
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(500);
+    public static final int DEFAULT_MAX_BYTES = 16 * 1024;
+    /**
+     * 一批消息的最大拆分次数
+     */
+    static final int MAX_ATTEMPTS = 3;
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final DataSplitter splitter;
+    private final Duration window;
+    private final int maxBytes;
+    /**
+     * 接收拆分结果，参数依次为 sessionId 和二维码数据
+     */
+    private final BiConsumer<String, List<String>> frameSink;
+    private final TimestampSessionIdGenerator sessionIdGenerator = new TimestampSessionIdGenerator();
+    private final ScheduledExecutorService scheduler;
+
+    private List<byte[]> pending = new ArrayList<>();
+    private int pendingBytes;
+    /**
+     * 拆分失败、等待重试的批次，按失败顺序排列
+     */
+    private final List<Batch> retries = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    public MessageAggregator(DataSplitter splitter, BiConsumer<String, List<String>> frameSink) {
+        this(splitter, DEFAULT_WINDOW, DEFAULT_MAX_BYTES, frameSink);
+    }
+
+    public MessageAggregator(DataSplitter splitter, Duration window, int maxBytes,
+                             BiConsumer<String, List<String>> frameSink) {
+        if (window == null || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.splitter = splitter;
+        this.window = window;
+        this.maxBytes = maxBytes;
+        this.frameSink = frameSink;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "message-aggregator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void offer(String message) {
+        offer(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 加入一条消息，达到字节上限时在调用线程中立即拆分发送
+     */
+    public void offer(byte[] message) {
+        if (message == null || message.length == 0) {
+            throw new IllegalArgumentException("Message cannot be null or empty");
+        }
+        List<Batch> batches = null;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Aggregator already closed");
+            }
+            pending.add(message);
+            pendingBytes += message.length;
+            if (pendingBytes >= maxBytes) {
+                batches = drain();
+            } else if (scheduledFlush == null) {
+                scheduledFlush = scheduler.schedule(this::flushOnTimer, window.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batches != null) {
+            try {
+                sendAll(batches);
+            } catch (RuntimeException e) {
+                // 这一批里还有其他生产者已被接受的消息，不能只把异常抛给触发发送的调用方
+                log.error("Failed to send aggregated messages", e);
+            }
+        }
+    }
+
+    /**
+     * 立即发送等待重试的批次和窗口内已收集的消息。拆分失败的批次留待重试，异常抛给调用方
+     */
+    public void flush() {
+        List<Batch> batches;
+        synchronized (this) {
+            batches = drain();
+        }
+        sendAll(batches);
+    }
+
+    /**
+     * 发送剩余消息并停止定时器。发送失败时异常抛给调用方，拆分失败的消息仍可通过 {@link #flush()} 重试
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+        }
+        // 等待正在执行的定时发送结束，之后的 flush 才能取到它失败留下的批次
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Timed flush still running after {}", CLOSE_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * 取出等待重试的批次和窗口内的消息，各自作为一批，窗口内的消息不会因重试而超过字节上限
+     */
+    private List<Batch> drain() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        List<Batch> batches = new ArrayList<>(retries);
+        retries.clear();
+        if (!pending.isEmpty()) {
+            batches.add(new Batch(pending, 0));
+            pending = new ArrayList<>();
+            pendingBytes = 0;
+        }
+        return batches;
+    }
+
+    /**
+     * 拆分失败的批次在下一个时间窗口重试，达到最大次数后丢弃
+     */
+    private synchronized void retry(Batch batch, RuntimeException cause) {
+        if (batch.attempts >= MAX_ATTEMPTS) {
+            log.error("Drop {} aggregated messages after {} failed attempts", batch.messages.size(), batch.attempts, cause);
+            return;
+        }
+        retries.add(batch);
+        if (!closed && scheduledFlush == null) {
+            scheduledFlush = scheduler.schedule(this::flushOnTimer, window.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushOnTimer() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Failed to send aggregated messages", e);
+        }
+    }
+
+    /**
+     * 依次发送各批，某一批失败不影响其他批次，最后抛出第一个异常
+     */
+    private void sendAll(List<Batch> batches) {
+        RuntimeException failure = null;
+        for (Batch batch : batches) {
+            try {
+                send(batch);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void send(Batch batch) {
+        String sessionId = sessionIdGenerator.generate();
+        List<String> frames;
+        try {
+            frames = splitter.splitRecords(batch.messages, sessionId);
+        } catch (RuntimeException e) {
+            retry(new Batch(batch.messages, batch.attempts + 1), e);
+            throw e;
+        }
+        log.debug("Aggregated {} messages into {} frames, sessionId: {}", batch.messages.size(), frames.size(), sessionId);
+        frameSink.accept(sessionId, frames);
+    }
+
+    @AllArgsConstructor
+    private static class Batch {
+        private final List<byte[]> messages;
+        /**
+         * 已经失败的拆分次数
+         */
+        private final int attempts;
+    }
+}
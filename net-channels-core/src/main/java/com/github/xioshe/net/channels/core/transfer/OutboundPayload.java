@@ -0,0 +1,30 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 发送端缓存的加密数据及分片参数，用于按需重新生成任意分片的二维码数据。
+ * <br/>
+ * 相比缓存全部二维码字符串（约为加密数据的 1.4 倍，且为 UTF-16 字符串），只占用加密数据本身大小的内存。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboundPayload {
+    private String sessionId;
+    /**
+     * 包头标志位，重新生成的分片需与首次发送时一致
+     */
+    private byte flags;
+    private byte[] encryptedData;
+    private int chunkSize;
+    private int totalChunks;
+
+    public int getTotalSize() {
+        return encryptedData.length;
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.PacketHeader;
+import com.github.xioshe.net.channels.core.model.TransferPacket;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 打包重传的数据格式：一帧携带多段加密数据，包头带 {@link PacketHeader#FLAG_PACKED}，
+ * 数据依次为段数（2 字节）、每段的偏移和长度（各 4 字节），之后是各段数据。
+ * <br/>
+ * 段是加密数据中任意的字节范围，不要求与分片边界对齐：帧装满后，剩余的字节从下一帧继续，
+ * 一个分片可以分到多帧中。接收端按偏移写入，分片的全部字节都写入后才算接收，见
+ * {@link DataAssembler.ByteBufferDataBuffer#insertSegment(int, byte[], int)}。
+ */
+public final class PackedSegments {
+    static final int COUNT_SIZE = 2;
+    static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int MAX_SEGMENTS = 0xffff;
+
+    private PackedSegments() {
+    }
+
+    /**
+     * 加密数据中从 offset 开始的一段
+     */
+    @Getter
+    @AllArgsConstructor
+    static class Segment {
+        private final int offset;
+        private final byte[] data;
+
+        int end() {
+            return offset + data.length;
+        }
+
+        Segment slice(int from, int length) {
+            if (from == 0 && length == data.length) {
+                return this;
+            }
+            return new Segment(offset + from, Arrays.copyOfRange(data, from, from + length));
+        }
+    }
+
+    /**
+     * 把各段分配到尽量少的帧中：相邻的段先合并，每帧装满后剩余的字节从下一帧继续
+     *
+     * @param segments 按偏移升序排列、互不重叠的段
+     * @param budget   每帧可携带的数据字节数，即 {@link com.github.xioshe.net.channels.core.protocol.TransferProtocol#maxChunkSize(int)}
+     * @return 各帧携带的段
+     */
+    static List<List<Segment>> plan(List<Segment> segments, int budget) {
+        if (budget <= COUNT_SIZE + SEGMENT_HEADER_SIZE) {
+            throw new NetChannelsException("Frame budget %d is too small for packed segments".formatted(budget));
+        }
+        List<List<Segment>> frames = new ArrayList<>();
+        List<Segment> current = new ArrayList<>();
+        int size = COUNT_SIZE;
+        for (Segment segment : merge(segments)) {
+            int position = 0;
+            while (position < segment.data.length) {
+                int length = Math.min(budget - size - SEGMENT_HEADER_SIZE, segment.data.length - position);
+                current.add(segment.slice(position, length));
+                size += SEGMENT_HEADER_SIZE + length;
+                position += length;
+                // 剩余空间放不下下一段的一个字节时换帧
+                if (budget - size <= SEGMENT_HEADER_SIZE || current.size() == MAX_SEGMENTS) {
+                    frames.add(current);
+                    current = new ArrayList<>();
+                    size = COUNT_SIZE;
+                }
+            }
+        }
+        if (!current.isEmpty()) {
+            frames.add(current);
+        }
+        return frames;
+    }
+
+    /**
+     * 把一帧的各段编码为打包帧的数据
+     */
+    static byte[] pack(List<Segment> segments) {
+        int size = COUNT_SIZE;
+        for (Segment segment : segments) {
+            size += SEGMENT_HEADER_SIZE + segment.data.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putShort((short) segments.size());
+        for (Segment segment : segments) {
+            buffer.putInt(segment.offset).putInt(segment.data.length);
+        }
+        segments.forEach(segment -> buffer.put(segment.data));
+        return buffer.array();
+    }
+
+    /**
+     * 解析打包帧携带的各段。打包帧已经过校验，这里只检查各段是否在数据范围内
+     */
+    static List<Segment> unpack(TransferPacket packed) {
+        PacketHeader header = packed.getHeader();
+        int totalSize = header.getTotalSize();
+        if (header.getChunkSize() <= 0) {
+            throw new NetChannelsException("Invalid chunk size: " + header.getChunkSize());
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(packed.getData());
+            int count = Short.toUnsignedInt(buffer.getShort());
+            int[] offsets = new int[count];
+            int[] lengths = new int[count];
+            for (int s = 0; s < count; s++) {
+                offsets[s] = buffer.getInt();
+                lengths[s] = buffer.getInt();
+            }
+
+            List<Segment> segments = new ArrayList<>(count);
+            for (int s = 0; s < count; s++) {
+                long end = (long) offsets[s] + lengths[s];
+                if (offsets[s] < 0 || lengths[s] <= 0 || end > totalSize) {
+                    throw new NetChannelsException("Segment [%d, %d) exceeds total size %d"
+                            .formatted(offsets[s], end, totalSize));
+                }
+                if (lengths[s] > buffer.remaining()) {
+                    throw new NetChannelsException("Truncated packed frame");
+                }
+                byte[] data = new byte[lengths[s]];
+                buffer.get(data);
+                segments.add(new Segment(offsets[s], data));
+            }
+            if (buffer.hasRemaining()) {
+                throw new NetChannelsException("Trailing %d bytes in packed frame".formatted(buffer.remaining()));
+            }
+            return segments;
+        } catch (BufferUnderflowException e) {
+            throw new NetChannelsException("Truncated packed frame", e);
+        }
+    }
+
+    private static List<Segment> merge(List<Segment> segments) {
+        List<Segment> merged = new ArrayList<>(segments.size());
+        int from = 0;
+        for (int i = 1; i <= segments.size(); i++) {
+            if (i == segments.size() || segments.get(i).offset != segments.get(i - 1).end()) {
+                merged.add(concat(segments.subList(from, i)));
+                from = i;
+            }
+        }
+        return merged;
+    }
+
+    private static Segment concat(List<Segment> run) {
+        if (run.size() == 1) {
+            return run.get(0);
+        }
+        ByteBuffer data = ByteBuffer.allocate(run.get(run.size() - 1).end() - run.get(0).offset);
+        run.forEach(segment -> data.put(segment.data));
+        return new Segment(run.get(0).offset, data.array());
+    }
+}
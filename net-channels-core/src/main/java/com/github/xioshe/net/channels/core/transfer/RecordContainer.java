@@ -0,0 +1,77 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多记录容器格式：依次为每条记录的长度（无符号 varint）和内容，没有额外的头部。
+ * <br/>
+ * 200 字节左右的消息长度只占 2 个字节，远小于单独建立会话时包头和压缩头尾的开销。
+ */
+public final class RecordContainer {
+
+    private RecordContainer() {
+    }
+
+    public static byte[] pack(List<byte[]> records) {
+        int size = 0;
+        for (byte[] record : records) {
+            size += varintSize(record.length) + record.length;
+        }
+        byte[] packed = new byte[size];
+        int pos = 0;
+        for (byte[] record : records) {
+            pos = putVarint(packed, pos, record.length);
+            System.arraycopy(record, 0, packed, pos, record.length);
+            pos += record.length;
+        }
+        return packed;
+    }
+
+    public static List<byte[]> unpack(byte[] packed) {
+        List<byte[]> records = new ArrayList<>();
+        int pos = 0;
+        while (pos < packed.length) {
+            int length = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (pos >= packed.length || shift > 28) {
+                    throw new NetChannelsException("Malformed record length at " + pos);
+                }
+                b = packed[pos++];
+                length |= (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            if (length < 0 || length > packed.length - pos) {
+                throw new NetChannelsException("Record length %d exceeds remaining %d"
+                        .formatted(length, packed.length - pos));
+            }
+            byte[] record = new byte[length];
+            System.arraycopy(packed, pos, record, 0, length);
+            records.add(record);
+            pos += length;
+        }
+        return records;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static int putVarint(byte[] dst, int pos, int value) {
+        while ((value & ~0x7f) != 0) {
+            dst[pos++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        dst[pos++] = (byte) value;
+        return pos;
+    }
+}
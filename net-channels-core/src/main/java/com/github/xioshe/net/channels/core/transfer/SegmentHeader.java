@@ -0,0 +1,82 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import lombok.Builder;
+import lombok.Data;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 分段传输中每个分段自带的描述信息，位于分段数据（压缩、加密前）的开头。
+ * <br/>
+ * 每个分段是一个独立的会话，会话内的大小和偏移仍然是 int；整个传输的大小和分段偏移使用 long，
+ * 接收端按偏移把分段写入文件，不需要在内存中拼接完整数据。
+ */
+@Data
+@Builder
+class SegmentHeader {
+    private static final byte VERSION = 1;
+
+    private String transferId;      // 整个传输的标识，各分段相同
+    private int index;              // 分段序号
+    private int count;              // 分段总数
+    private long offset;            // 分段数据在完整数据中的偏移
+    private long totalSize;         // 完整数据大小
+
+    byte[] toBytes() {
+        byte[] id = transferId.getBytes(StandardCharsets.US_ASCII);
+        if (id.length > Byte.MAX_VALUE) {
+            throw new NetChannelsException("Transfer id too long: " + transferId);
+        }
+        return ByteBuffer.allocate(size())
+                .put(VERSION)
+                .put((byte) id.length)
+                .put(id)
+                .putInt(index)
+                .putInt(count)
+                .putLong(offset)
+                .putLong(totalSize)
+                .array();
+    }
+
+    /**
+     * 编码后的字节数
+     */
+    int size() {
+        return 1 + 1 + transferId.length() + 4 + 4 + 8 + 8;
+    }
+
+    /**
+     * 从分段数据开头读取描述信息，读取后 buffer 的 position 指向分段内容
+     */
+    static SegmentHeader read(ByteBuffer buffer) {
+        try {
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new NetChannelsException("Unsupported segment header version: " + version);
+            }
+            byte[] id = new byte[buffer.get()];
+            buffer.get(id);
+            SegmentHeader header = SegmentHeader.builder()
+                    .transferId(new String(id, StandardCharsets.US_ASCII))
+                    .index(buffer.getInt())
+                    .count(buffer.getInt())
+                    .offset(buffer.getLong())
+                    .totalSize(buffer.getLong())
+                    .build();
+            // transferId 用作接收端的文件名，只允许字母、数字、下划线和连字符
+            if (!header.transferId.matches("[A-Za-z0-9_-]+")) {
+                throw new NetChannelsException("Invalid transfer id: " + header.transferId);
+            }
+            if (header.index < 0 || header.index >= header.count || header.offset < 0
+                || header.offset + buffer.remaining() > header.totalSize) {
+                throw new NetChannelsException("Invalid segment header: " + header);
+            }
+            return header;
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new NetChannelsException("Truncated segment header", e);
+        }
+    }
+}
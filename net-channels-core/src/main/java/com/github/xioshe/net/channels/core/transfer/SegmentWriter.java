@@ -0,0 +1,169 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 接收端的分段写入器：每个分段按 {@link SegmentHeader} 中的 64 位偏移直接写入 {@code <transferId>.part} 文件，
+ * 全部分段写入后重命名为 {@code <transferId>}。
+ * <br/>
+ * 分段可以乱序到达，重复的分段覆盖写入同一位置。同一传输的分段总数和数据大小以最先到达的分段为准，
+ * 不一致的分段被拒绝；已完成传输的迟到分段直接忽略，不会重新创建 {@code .part} 文件。
+ * 接收进度只保存在内存中，进程重启后未完成的传输需要重发。
+ */
+@Slf4j
+public class SegmentWriter {
+    private static final String PART_SUFFIX = ".part";
+    // 记住的已完成传输数
+    private static final int MAX_COMPLETED = 1024;
+
+    private final Path directory;
+    // 传输标识 -> 接收进度
+    private final Map<String, Transfer> progress = new ConcurrentHashMap<>();
+    // 最近完成的传输标识，展示端收到确认之前仍会播放已完成传输的分段
+    private final Set<String> completed = Collections.newSetFromMap(Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_COMPLETED;
+                }
+            }));
+
+    public SegmentWriter(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new NetChannelsException("Failed to create segment directory: " + directory, e);
+        }
+    }
+
+    /**
+     * 写入一个分段
+     *
+     * @param segment 会话还原出的分段数据，开头为分段描述
+     * @return 写入后的进度；已完成传输的迟到分段返回全部已接收、不带文件的进度
+     */
+    public Progress write(byte[] segment) {
+        ByteBuffer buffer = ByteBuffer.wrap(segment);
+        SegmentHeader header = SegmentHeader.read(buffer);
+        String transferId = header.getTransferId();
+        if (!register(header)) {
+            log.debug("Ignore late segment {} of completed transfer {}", header.getIndex(), transferId);
+            return new Progress(transferId, header.getCount(), header.getCount(), null);
+        }
+        Path part = directory.resolve(transferId + PART_SUFFIX);
+
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long position = header.getOffset();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (IOException e) {
+            throw new NetChannelsException("Failed to write segment %d of transfer %s"
+                    .formatted(header.getIndex(), transferId), e);
+        }
+
+        // 在 compute 中更新并统计，全部写入时移除记录，保证只有一个线程完成传输。
+        // 记录已被移除说明传输已由其他线程完成，本分段是重复的
+        int[] receivedCount = {header.getCount()};
+        boolean[] completing = new boolean[1];
+        progress.computeIfPresent(transferId, (id, transfer) -> {
+            transfer.received.set(header.getIndex());
+            receivedCount[0] = transfer.received.cardinality();
+            if (receivedCount[0] < header.getCount()) {
+                return transfer;
+            }
+            completed.add(id);
+            completing[0] = true;
+            return null;
+        });
+        log.info("Wrote segment {}/{} of transfer {}", header.getIndex() + 1, header.getCount(), transferId);
+        if (!completing[0]) {
+            return new Progress(transferId, receivedCount[0], header.getCount(), null);
+        }
+        return new Progress(transferId, receivedCount[0], header.getCount(), complete(part, header));
+    }
+
+    /**
+     * 登记分段所属的传输，分段总数或数据大小与最先到达的分段不一致时拒绝
+     *
+     * @return 传输已经完成时返回 false
+     */
+    private boolean register(SegmentHeader header) {
+        boolean[] late = new boolean[1];
+        progress.compute(header.getTransferId(), (id, transfer) -> {
+            if (transfer == null) {
+                if (completed.contains(id)) {
+                    late[0] = true;
+                    return null;
+                }
+                return new Transfer(header.getCount(), header.getTotalSize(), new BitSet(header.getCount()));
+            }
+            if (transfer.count != header.getCount() || transfer.totalSize != header.getTotalSize()) {
+                throw new NetChannelsException(
+                        "Segment %d of transfer %s declares %d segments of %d bytes, expected %d of %d".formatted(
+                                header.getIndex(), id, header.getCount(), header.getTotalSize(),
+                                transfer.count, transfer.totalSize));
+            }
+            return transfer;
+        });
+        return !late[0];
+    }
+
+    private Path complete(Path part, SegmentHeader header) {
+        Path target = directory.resolve(header.getTransferId());
+        try {
+            long size = Files.size(part);
+            if (size != header.getTotalSize()) {
+                throw new NetChannelsException("Segmented transfer %s size mismatch: expected %d, actual %d"
+                        .formatted(header.getTransferId(), header.getTotalSize(), size));
+            }
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Segmented transfer {} completed, {} bytes written to {}", header.getTransferId(), size, target);
+            return target;
+        } catch (IOException e) {
+            throw new NetChannelsException("Failed to complete transfer: " + header.getTransferId(), e);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Transfer {
+        private final int count;
+        private final long totalSize;
+        // 已写入的分段序号
+        private final BitSet received;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Progress {
+        private final String transferId;
+        private final int receivedSegments;
+        private final int totalSegments;
+        /**
+         * 全部分段写入后的文件，未完成时为 null
+         */
+        private final Path file;
+
+        public boolean isComplete() {
+            return file != null;
+        }
+    }
+}
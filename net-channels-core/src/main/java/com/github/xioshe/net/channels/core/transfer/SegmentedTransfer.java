@@ -0,0 +1,136 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * 分段传输：超大数据按 segmentSize 切成多个分段，每个分段是一个独立会话，按需生成 {@link FrameStream}。
+ * <br/>
+ * 分段数据开头带有 {@link SegmentHeader}，记录传输标识和 64 位偏移，接收端不依赖分段的接收顺序。
+ * 分段在取用时才读取源文件并暂存到磁盘，内存占用与数据总量无关。使用完毕后需要关闭，关闭时释放源文件。
+ */
+@Slf4j
+public class SegmentedTransfer implements Iterator<FrameStream>, Closeable {
+    @Getter
+    private final String transferId;
+    @Getter
+    private final long totalSize;
+    @Getter
+    private final int segmentSize;
+    @Getter
+    private final int segmentCount;
+    private final FileChannel source;
+    private final Function<InputStream, FrameStream> segmentSplitter;
+    private int nextSegment;
+
+    SegmentedTransfer(String transferId, FileChannel source, int segmentSize,
+                      Function<InputStream, FrameStream> segmentSplitter) throws IOException {
+        this.transferId = transferId;
+        this.source = source;
+        this.totalSize = source.size();
+        this.segmentSize = segmentSize;
+        this.segmentCount = Math.toIntExact(Math.ceilDiv(totalSize, segmentSize));
+        this.segmentSplitter = segmentSplitter;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextSegment < segmentCount;
+    }
+
+    @Override
+    public FrameStream next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return segment(nextSegment++);
+    }
+
+    /**
+     * 拆分指定序号的分段，每次调用都会创建新的会话，可用于整段重发
+     */
+    public FrameStream segment(int index) {
+        return segmentSplitter.apply(open(index));
+    }
+
+    /**
+     * 用指定的拆分器拆分分段，例如传输中途调整帧参数后，后续分段按新的容量拆分
+     */
+    public FrameStream segment(int index, DataSplitter splitter) {
+        return splitter.splitSegment(open(index));
+    }
+
+    private InputStream open(int index) {
+        if (index < 0 || index >= segmentCount) {
+            throw new NetChannelsException("Segment %d not found".formatted(index));
+        }
+        long offset = (long) index * segmentSize;
+        long length = Math.min(segmentSize, totalSize - offset);
+        byte[] header = SegmentHeader.builder()
+                .transferId(transferId)
+                .index(index)
+                .count(segmentCount)
+                .offset(offset)
+                .totalSize(totalSize)
+                .build()
+                .toBytes();
+        return new SequenceInputStream(new ByteArrayInputStream(header),
+                new RegionInputStream(source, offset, length));
+    }
+
+    @Override
+    public void close() {
+        try {
+            source.close();
+        } catch (IOException e) {
+            log.warn("Failed to close source for transfer: {}", transferId, e);
+        }
+    }
+
+    /**
+     * 按绝对位置读取文件的一段，不改变 channel 的 position
+     */
+    private static class RegionInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RegionInputStream(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int toRead = (int) Math.min(len, end - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+            if (read < 0) {
+                throw new NetChannelsException("Source file truncated at " + position);
+            }
+            position += read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.compress.CompressionProbe;
+import com.github.xioshe.net.channels.core.compress.DataCompressor;
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.TransferEstimate;
+import com.github.xioshe.net.channels.core.protocol.ScannerProfile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * 传输预估：在不拆分数据、不创建会话的情况下，预估需要的二维码帧数和展示耗时。
+ * <br/>
+ * 分片大小与 {@link DataSplitter} 的配置一致。数据较小时完整压缩一次得到准确大小；
+ * 数据较大时均匀抽取若干段分别压缩，按压缩率推算整体大小，耗时与数据大小无关。
+ */
+public class TransferEstimator {
+    public static final double DEFAULT_FRAMES_PER_SECOND = 5;
+    // 均匀抽取的采样段数和每段大小，数据不超过两者乘积时完整压缩
+    private static final int SAMPLE_COUNT = 16;
+    private static final int SAMPLE_SIZE = 16 * 1024;
+    // gzip 头（10 字节）和尾（8 字节）
+    private static final int GZIP_OVERHEAD = 18;
+    // AES 分组大小，PKCS5 填充后密文为分组的整数倍，且至少多出一个字节
+    private static final int CIPHER_BLOCK_SIZE = 16;
+
+    private final DataSplitter splitter;
+    private final double framesPerSecond;
+
+    /**
+     * 扫码帧率取拆分器配置的扫码设备档案，未配置时为 {@link #DEFAULT_FRAMES_PER_SECOND}
+     */
+    public TransferEstimator(DataSplitter splitter) {
+        this(splitter, 0);
+    }
+
+    /**
+     * @param framesPerSecond 扫码帧率，小于等于 0 时取拆分器配置的扫码设备档案
+     */
+    public TransferEstimator(DataSplitter splitter, double framesPerSecond) {
+        this.splitter = splitter;
+        ScannerProfile profile = splitter.scannerProfile();
+        if (framesPerSecond > 0) {
+            this.framesPerSecond = framesPerSecond;
+        } else {
+            this.framesPerSecond = profile != null ? profile.getFramesPerSecond() : DEFAULT_FRAMES_PER_SECOND;
+        }
+    }
+
+    /**
+     * 预估 {@link DataSplitter#split(byte[], String)} 的结果
+     */
+    public TransferEstimate estimate(byte[] data) {
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Data cannot be null or empty");
+        }
+        boolean compressible = CompressionProbe.isCompressible(data);
+        return estimate(data.length, compressible,
+                (position, buffer) -> System.arraycopy(data, (int) position, buffer, 0, buffer.length));
+    }
+
+    /**
+     * 预估以文件内容调用 {@link DataSplitter#split(java.io.InputStream, String)} 的结果，只读取采样部分
+     */
+    public TransferEstimate estimate(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                throw new IllegalArgumentException("Data cannot be null or empty");
+            }
+            // 与流式拆分一致，只根据开头的数据判断是否压缩
+            byte[] head = new byte[(int) Math.min(size, DataSplitter.STREAM_PROBE_SIZE)];
+            read(channel, 0, head);
+            boolean compressible = CompressionProbe.isCompressible(head);
+            return estimate(size, compressible, (position, buffer) -> {
+                try {
+                    read(channel, position, buffer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            throw new NetChannelsException("Failed to read file: " + file, e);
+        }
+    }
+
+    private TransferEstimate estimate(long size, boolean compressible, SampleReader reader) {
+        boolean exact = !compressible || size <= (long) SAMPLE_COUNT * SAMPLE_SIZE;
+        long payloadSize = compressible ? compressedSize(size, reader) : size;
+        // AES/ECB/PKCS5Padding
+        long encryptedSize = (payloadSize / CIPHER_BLOCK_SIZE + 1) * CIPHER_BLOCK_SIZE;
+        long totalFrames = Math.ceilDiv(encryptedSize, splitter.maxChunkSize());
+
+        return TransferEstimate.builder()
+                .originalSize(size)
+                .compressed(compressible)
+                .payloadSize(encryptedSize)
+                .totalFrames(totalFrames)
+                .framesPerSecond(framesPerSecond)
+                .duration(Duration.ofMillis((long) Math.ceil(totalFrames * 1000 / framesPerSecond)))
+                .exact(exact)
+                .build();
+    }
+
+    private long compressedSize(long size, SampleReader reader) {
+        DataCompressor compressor = splitter.compressor();
+        if (size <= (long) SAMPLE_COUNT * SAMPLE_SIZE) {
+            byte[] data = new byte[(int) size];
+            reader.read(0, data);
+            return compressor.compress(data).length;
+        }
+
+        // 各采样段单独压缩，缺少上下文，压缩率比整体压缩略低，预估结果偏保守
+        long stride = (size - SAMPLE_SIZE) / (SAMPLE_COUNT - 1);
+        byte[] sample = new byte[SAMPLE_SIZE];
+        long deflated = 0;
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            reader.read(i * stride, sample);
+            deflated += compressor.compress(sample).length - GZIP_OVERHEAD;
+        }
+        double ratio = (double) deflated / ((long) SAMPLE_COUNT * SAMPLE_SIZE);
+        return (long) Math.ceil(size * ratio) + GZIP_OVERHEAD;
+    }
+
+    private static void read(FileChannel channel, long position, byte[] buffer) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(buffer);
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position + target.position());
+            if (read < 0) {
+                // 文件在读取期间被截断，剩余部分按 0 处理
+                Arrays.fill(buffer, target.position(), buffer.length, (byte) 0);
+                return;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface SampleReader {
+        void read(long position, byte[] buffer);
+    }
+}
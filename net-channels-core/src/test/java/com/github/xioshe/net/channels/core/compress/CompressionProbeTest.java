@@ -0,0 +1,67 @@
+package com.github.xioshe.net.channels.core.compress;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressionProbeTest {
+
+    @Test
+    void shouldCompressTextData() {
+        byte[] json = "{\"id\":123,\"name\":\"测试数据\",\"tags\":[\"a\",\"b\"]}".repeat(200)
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertThat(CompressionProbe.isCompressible(json)).isTrue();
+    }
+
+    @Test
+    void shouldSkipHighEntropyData() {
+        byte[] random = new byte[100 * 1024];
+        new Random(1).nextBytes(random);
+        // gzip 数据靠文件头识别
+        byte[] gzipped = new DataCompressor().compress(random);
+
+        assertThat(CompressionProbe.entropy(random, random.length)).isGreaterThan(7.9);
+        assertThat(CompressionProbe.isCompressible(random)).isFalse();
+        assertThat(CompressionProbe.isCompressible(gzipped)).isFalse();
+    }
+
+    @Test
+    void shouldDetectCompressedFormatsByMagicNumber() {
+        // 文件头之后是低熵内容，只能靠魔数识别
+        byte[] jpeg = new byte[1024];
+        jpeg[0] = (byte) 0xFF;
+        jpeg[1] = (byte) 0xD8;
+        jpeg[2] = (byte) 0xFF;
+        byte[] zip = new byte[1024];
+        System.arraycopy(new byte[]{'P', 'K', 0x03, 0x04}, 0, zip, 0, 4);
+
+        assertThat(CompressionProbe.isCompressible(jpeg)).isFalse();
+        assertThat(CompressionProbe.isCompressible(zip)).isFalse();
+        assertThat(CompressionProbe.isCompressible(new byte[1024])).isTrue();
+    }
+
+    @Test
+    void shouldSkipRandomDataJustAboveMinimumSize() {
+        for (int seed = 0; seed < 20; seed++) {
+            byte[] random = new byte[CompressionProbe.MIN_PROBE_SIZE + 1];
+            new Random(seed).nextBytes(random);
+
+            assertThat(CompressionProbe.isCompressible(random)).as("seed %d", seed).isFalse();
+        }
+        byte[] text = "{\"id\":123,\"name\":\"test\"}".repeat(50).getBytes(StandardCharsets.UTF_8);
+        assertThat(text.length).isGreaterThan(CompressionProbe.MIN_PROBE_SIZE);
+        assertThat(CompressionProbe.isCompressible(text)).isTrue();
+    }
+
+    @Test
+    void shouldAlwaysCompressSmallData() {
+        byte[] random = new byte[CompressionProbe.MIN_PROBE_SIZE - 1];
+        new Random(2).nextBytes(random);
+
+        assertThat(CompressionProbe.isCompressible(random)).isTrue();
+    }
+}
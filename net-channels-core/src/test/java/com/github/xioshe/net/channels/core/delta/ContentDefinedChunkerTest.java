@@ -0,0 +1,77 @@
+package com.github.xioshe.net.channels.core.delta;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContentDefinedChunkerTest {
+    private final ContentDefinedChunker chunker = new ContentDefinedChunker();
+
+    @Test
+    void shouldKeepChunkSizesWithinBounds() {
+        byte[] data = randomBytes(1024 * 1024, 1);
+
+        List<Integer> ends = chunker.boundaries(data);
+
+        assertThat(ends.get(ends.size() - 1)).isEqualTo(data.length);
+        int start = 0;
+        for (int i = 0; i < ends.size(); i++) {
+            int size = ends.get(i) - start;
+            assertThat(size).isLessThanOrEqualTo(ContentDefinedChunker.DEFAULT_MAX_SIZE);
+            if (i < ends.size() - 1) {
+                assertThat(size).isGreaterThanOrEqualTo(ContentDefinedChunker.DEFAULT_MIN_SIZE);
+            }
+            start = ends.get(i);
+        }
+        // 平均分块大小接近设定值
+        int average = data.length / ends.size();
+        assertThat(average).isBetween(ContentDefinedChunker.DEFAULT_AVG_SIZE / 2, ContentDefinedChunker.DEFAULT_AVG_SIZE * 2);
+    }
+
+    @Test
+    void shouldKeepMostChunksAfterInsertion() {
+        byte[] original = randomBytes(512 * 1024, 2);
+        byte[] modified = new byte[original.length + 100];
+        int insertAt = original.length / 3;
+        System.arraycopy(original, 0, modified, 0, insertAt);
+        System.arraycopy(randomBytes(100, 3), 0, modified, insertAt, 100);
+        System.arraycopy(original, insertAt, modified, insertAt + 100, original.length - insertAt);
+
+        Set<String> before = chunks(original);
+        List<String> after = new ArrayList<>(chunks(modified));
+        after.removeAll(before);
+
+        // 插入点附近最多影响两个分块
+        assertThat(after.size()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectInvalidSizes() {
+        assertThatThrownBy(() -> new ContentDefinedChunker(1024, 3000, 8192))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Set<String> chunks(byte[] data) {
+        Set<String> result = new HashSet<>();
+        int start = 0;
+        for (int end : chunker.boundaries(data)) {
+            result.add(HexFormat.of().formatHex(data, start, end));
+            start = end;
+        }
+        return result;
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
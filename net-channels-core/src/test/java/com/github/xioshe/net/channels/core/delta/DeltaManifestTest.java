@@ -0,0 +1,88 @@
+package com.github.xioshe.net.channels.core.delta;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeltaManifestTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ContentDefinedChunker chunker = new ContentDefinedChunker();
+
+    @Test
+    void shouldSendOnlyChangedBlocksOnSecondTransfer() {
+        BlockIndex index = new FileBlockIndex(tempDir.resolve("sent.idx"));
+        BlockStore store = new FileBlockStore(tempDir.resolve("blocks"));
+        byte[] original = randomBytes(300 * 1024, 1);
+        byte[] modified = original.clone();
+        modified[150 * 1024] ^= 0x5a;
+
+        DeltaManifest.Encoded first = DeltaManifest.encode(original, chunker, index);
+        first.getInlineHashes().forEach(index::add);
+        assertThat(DeltaManifest.rebuild(first.getManifest(), store)).isEqualTo(original);
+
+        DeltaManifest.Encoded second = DeltaManifest.encode(modified, chunker, index);
+
+        assertThat(second.getInlineHashes()).hasSize(1);
+        assertThat(second.getManifest().length).isLessThan(modified.length / 10);
+        assertThat(DeltaManifest.rebuild(second.getManifest(), store)).isEqualTo(modified);
+    }
+
+    @Test
+    void shouldReferenceRepeatedBlocksWithinPayload() {
+        BlockIndex index = new FileBlockIndex(tempDir.resolve("sent.idx"));
+        byte[] block = randomBytes(64 * 1024, 2);
+        byte[] data = new byte[block.length * 3];
+        for (int i = 0; i < 3; i++) {
+            System.arraycopy(block, 0, data, i * block.length, block.length);
+        }
+
+        DeltaManifest.Encoded encoded = DeltaManifest.encode(data, chunker, index);
+
+        assertThat(encoded.getManifest().length).isLessThan(block.length * 2);
+        assertThat(DeltaManifest.rebuild(encoded.getManifest(), new FileBlockStore(tempDir.resolve("blocks"))))
+                .isEqualTo(data);
+    }
+
+    @Test
+    void shouldReportMissingBlocks() {
+        BlockIndex index = new FileBlockIndex(tempDir.resolve("sent.idx"));
+        byte[] data = randomBytes(100 * 1024, 3);
+        DeltaManifest.encode(data, chunker, index).getInlineHashes().forEach(index::add);
+
+        // 接收端没有收到第一次传输
+        byte[] manifest = DeltaManifest.encode(data, chunker, index).getManifest();
+
+        assertThatThrownBy(() -> DeltaManifest.rebuild(manifest, new FileBlockStore(tempDir.resolve("empty"))))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("Missing");
+    }
+
+    @Test
+    void shouldPersistBlockIndex() {
+        Path file = tempDir.resolve("index/sent.idx");
+        FileBlockIndex index = new FileBlockIndex(file);
+        index.add("aa01");
+        index.add("bb02");
+        index.remove("aa01");
+
+        FileBlockIndex reloaded = new FileBlockIndex(file);
+
+        assertThat(reloaded.contains("aa01")).isFalse();
+        assertThat(reloaded.contains("bb02")).isTrue();
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
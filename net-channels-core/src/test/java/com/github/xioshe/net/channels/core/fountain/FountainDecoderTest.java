@@ -0,0 +1,105 @@
+package com.github.xioshe.net.channels.core.fountain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FountainDecoderTest {
+    private static final int SYMBOL_SIZE = 64;
+
+    @Test
+    void shouldDecodeSourceSymbolsDirectly() {
+        byte[] source = randomBytes(1000, 1);
+        FountainEncoder encoder = new FountainEncoder(source, SYMBOL_SIZE);
+        FountainDecoder decoder = new FountainDecoder(encoder.getSourceBlocks(), SYMBOL_SIZE, source.length);
+
+        for (int esi = 0; esi < encoder.getSourceBlocks(); esi++) {
+            assertThat(decoder.add(esi, symbol(encoder, esi))).containsExactly(esi);
+        }
+
+        assertThat(decoder.isComplete()).isTrue();
+        assertThat(decoder.toByteArray()).isEqualTo(source);
+    }
+
+    @Test
+    void shouldDecodeWhenFramesAreDropped() {
+        byte[] source = randomBytes(20_000, 2);
+        FountainEncoder encoder = new FountainEncoder(source, SYMBOL_SIZE);
+        int k = encoder.getSourceBlocks();
+        Random loss = new Random(3);
+
+        for (int round = 0; round < 5; round++) {
+            FountainDecoder decoder = new FountainDecoder(k, SYMBOL_SIZE, source.length);
+            int received = 0;
+            // 丢弃约 30% 的帧，包括部分源分块
+            for (int esi = 0; !decoder.isComplete(); esi++) {
+                if (loss.nextDouble() < 0.3) {
+                    continue;
+                }
+                decoder.add(esi, symbol(encoder, esi));
+                received++;
+                assertThat(received).isLessThan(k * 2);
+            }
+            assertThat(decoder.toByteArray()).isEqualTo(source);
+        }
+    }
+
+    @Test
+    void shouldDecodeFromRepairSymbolsOnlyInAnyOrder() {
+        byte[] source = randomBytes(5000, 4);
+        FountainEncoder encoder = new FountainEncoder(source, SYMBOL_SIZE);
+        int k = encoder.getSourceBlocks();
+        List<Integer> symbols = new ArrayList<>();
+        for (int esi = k; esi < k * 4; esi++) {
+            symbols.add(esi);
+        }
+        Collections.shuffle(symbols, new Random(5));
+
+        FountainDecoder decoder = new FountainDecoder(k, SYMBOL_SIZE, source.length);
+        for (int esi : symbols) {
+            decoder.add(esi, symbol(encoder, esi));
+            if (decoder.isComplete()) {
+                break;
+            }
+        }
+
+        assertThat(decoder.isComplete()).isTrue();
+        assertThat(decoder.toByteArray()).isEqualTo(source);
+    }
+
+    @Test
+    void shouldIgnoreDuplicateSymbols() {
+        byte[] source = randomBytes(300, 6);
+        FountainEncoder encoder = new FountainEncoder(source, SYMBOL_SIZE);
+        FountainDecoder decoder = new FountainDecoder(encoder.getSourceBlocks(), SYMBOL_SIZE, source.length);
+
+        assertThat(decoder.add(1, symbol(encoder, 1))).containsExactly(1);
+        assertThat(decoder.add(1, symbol(encoder, 1))).isEmpty();
+        assertThat(decoder.getRecoveredBlocks()).isEqualTo(1);
+        assertThatThrownBy(decoder::toByteArray).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldRejectInconsistentLayout() {
+        assertThatThrownBy(() -> new FountainDecoder(3, SYMBOL_SIZE, 1000))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] symbol(FountainEncoder encoder, int esi) {
+        byte[] out = new byte[encoder.getSymbolSize()];
+        encoder.symbol(esi, out);
+        return out;
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,238 @@
+package com.github.xioshe.net.channels.core.job;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.session.TimestampSessionIdGenerator;
+import com.github.xioshe.net.channels.core.transfer.DataSplitter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboundJobExecutorTest {
+
+    @Mock
+    private DataSplitter splitter;
+
+    private OutboundJobExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    @Test
+    void shouldCompleteJobWithSplitFrames() throws Exception {
+        executor = new OutboundJobExecutor(splitter, 2);
+        when(splitter.split(any(byte[].class), anyString()))
+                .thenAnswer(invocation -> List.of("frame-" + invocation.getArgument(1)));
+
+        OutboundJob job = executor.submit("payload");
+
+        assertThat(job.getFuture().get(5, TimeUnit.SECONDS)).containsExactly("frame-" + job.getSessionId());
+        assertThat(job.getState()).isEqualTo(JobState.COMPLETED);
+        assertThat(executor.getStats().getTotalCompleted()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRunHigherPriorityJobsFirst() throws Exception {
+        executor = new OutboundJobExecutor(splitter, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        when(splitter.split(any(byte[].class), anyString())).thenAnswer(invocation -> {
+            String payload = new String((byte[]) invocation.getArgument(0), StandardCharsets.UTF_8);
+            if (payload.equals("blocker")) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            order.add(payload);
+            return List.of(payload);
+        });
+
+        OutboundJob blocker = executor.submit(bytes("blocker"), JobPriority.BULK);
+        OutboundJob bulk = executor.submit(bytes("bulk"), JobPriority.BULK);
+        OutboundJob normal = executor.submit(bytes("normal"), JobPriority.NORMAL);
+        OutboundJob high = executor.submit(bytes("high"), JobPriority.HIGH);
+
+        OutboundJobStats stats = executor.getStats();
+        assertThat(stats.getQueueDepth()).isEqualTo(3);
+        assertThat(stats.getQueueDepthByPriority())
+                .containsEntry(JobPriority.HIGH, 1)
+                .containsEntry(JobPriority.NORMAL, 1)
+                .containsEntry(JobPriority.BULK, 1);
+
+        release.countDown();
+        bulk.getFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(order).containsExactly("blocker", "high", "normal", "bulk");
+        assertThat(blocker.getState()).isEqualTo(JobState.COMPLETED);
+        assertThat(high.getWaitTime()).isLessThanOrEqualTo(bulk.getWaitTime());
+        assertThat(normal.getState()).isEqualTo(JobState.COMPLETED);
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        executor = new OutboundJobExecutor(splitter, new TimestampSessionIdGenerator(), 1, false, 1,
+                OutboundJobExecutor.DEFAULT_BULK_THRESHOLD);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(splitter.split(any(byte[].class), anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        executor.submit("running");
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        OutboundJob queued = executor.submit("queued");
+
+        assertThatThrownBy(() -> executor.submit("rejected"))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("queue is full");
+        assertThat(executor.getStats().getTotalRejected()).isEqualTo(1);
+        assertThat(executor.getStats().getRunning()).isEqualTo(1);
+
+        release.countDown();
+        queued.getFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldNotExceedQueueCapacityUnderConcurrentSubmits() throws Exception {
+        executor = new OutboundJobExecutor(splitter, new TimestampSessionIdGenerator(), 1, false, 5,
+                OutboundJobExecutor.DEFAULT_BULK_THRESHOLD);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(splitter.split(any(byte[].class), anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        executor.submit("running");
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService submitters = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(submitters.submit(() -> {
+                    for (int i = 0; i < 25; i++) {
+                        try {
+                            executor.submit("queued");
+                            accepted.incrementAndGet();
+                        } catch (NetChannelsException e) {
+                            // 队列已满
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            submitters.shutdownNow();
+        }
+
+        assertThat(accepted).hasValue(5);
+        assertThat(executor.getStats().getQueueDepth()).isEqualTo(5);
+        assertThat(executor.getStats().getTotalRejected()).isEqualTo(195);
+        release.countDown();
+    }
+
+    @Test
+    void shouldKeepRunningJobCancelledWhenItFinishes() throws Exception {
+        executor = new OutboundJobExecutor(splitter, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        when(splitter.split(any(byte[].class), anyString())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            finished.countDown();
+            return List.of("frame");
+        });
+
+        OutboundJob job = executor.submit("running");
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(job.getState()).isEqualTo(JobState.RUNNING);
+
+        job.getFuture().cancel(false);
+        assertThat(job.getState()).isEqualTo(JobState.CANCELLED);
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.close();
+
+        assertThat(job.getState()).isEqualTo(JobState.CANCELLED);
+        assertThat(executor.getStats().getTotalCompleted()).isZero();
+    }
+
+    @Test
+    void shouldRemoveCancelledJobFromQueue() throws Exception {
+        executor = new OutboundJobExecutor(splitter, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(splitter.split(any(byte[].class), anyString())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        OutboundJob running = executor.submit("running");
+        OutboundJob queued = executor.submit("queued");
+        queued.getFuture().cancel(false);
+
+        assertThat(queued.getState()).isEqualTo(JobState.CANCELLED);
+        assertThat(executor.getStats().getQueueDepth()).isZero();
+
+        release.countDown();
+        running.getFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shouldFailJobWhenSplitFails() {
+        executor = new OutboundJobExecutor(splitter, new TimestampSessionIdGenerator(), 2, true,
+                OutboundJobExecutor.DEFAULT_QUEUE_CAPACITY, OutboundJobExecutor.DEFAULT_BULK_THRESHOLD);
+        when(splitter.split(any(byte[].class), anyString()))
+                .thenThrow(new NetChannelsException("Failed to split data"));
+
+        OutboundJob job = executor.submit("payload");
+
+        assertThatThrownBy(() -> job.getFuture().get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(NetChannelsException.class);
+        assertThat(job.getState()).isEqualTo(JobState.FAILED);
+        assertThat(executor.getStats().getTotalFailed()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldChooseLaneBySize() {
+        executor = new OutboundJobExecutor(splitter, new TimestampSessionIdGenerator(), 1, false,
+                OutboundJobExecutor.DEFAULT_QUEUE_CAPACITY, 10);
+        when(splitter.split(any(byte[].class), anyString())).thenReturn(List.of());
+
+        assertThat(executor.submit("small").getPriority()).isEqualTo(JobPriority.NORMAL);
+        assertThat(executor.submit("large payload").getPriority()).isEqualTo(JobPriority.BULK);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
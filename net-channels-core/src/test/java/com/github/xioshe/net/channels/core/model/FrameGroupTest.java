@@ -0,0 +1,89 @@
+package com.github.xioshe.net.channels.core.model;
+
+import com.github.xioshe.net.channels.core.transfer.DataAssembler;
+import com.github.xioshe.net.channels.core.transfer.DataSplitter;
+import com.github.xioshe.net.channels.core.transfer.TransferFixture;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.github.xioshe.net.channels.core.transfer.TransferFixture.randomText;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FrameGroupTest {
+
+    @Test
+    void shouldPartitionIntoNearSquareGrids() {
+        List<FrameGroup> groups = FrameGroup.partition(frames(23), 6);
+
+        // 6 个一组共 4 组，最后一组 5 个；6 个按 3 列 2 行排列
+        assertThat(groups).extracting(FrameGroup::getIndex).containsExactly(0, 1, 2, 3);
+        assertThat(groups).extracting(FrameGroup::size).containsExactly(6, 6, 6, 5);
+        assertThat(groups.get(0).getColumns()).isEqualTo(3);
+        assertThat(groups.get(0).rows()).isEqualTo(2);
+        assertThat(groups.get(3).getCodes()).containsExactly("f18", "f19", "f20", "f21", "f22");
+        assertThat(groups.get(3).rows()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNarrowGridOfShortLastGroup() {
+        List<FrameGroup> groups = FrameGroup.partition(frames(10), 9);
+
+        assertThat(groups.get(0).getColumns()).isEqualTo(3);
+        assertThat(groups.get(0).rows()).isEqualTo(3);
+        // 最后一组只有 1 个二维码，不保留空列
+        assertThat(groups.get(1).getColumns()).isEqualTo(1);
+        assertThat(groups.get(1).rows()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldUseSingleCodeGridsWhenGroupSizeIsOne() {
+        List<FrameGroup> groups = FrameGroup.partition(frames(3), 1);
+
+        assertThat(groups).hasSize(3);
+        assertThat(groups).allSatisfy(group -> {
+            assertThat(group.getColumns()).isEqualTo(1);
+            assertThat(group.rows()).isEqualTo(1);
+        });
+        assertThat(FrameGroup.partition(List.of(), 4)).isEmpty();
+        assertThatThrownBy(() -> FrameGroup.partition(frames(3), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldAssembleFrameGroupsInOnePass() {
+        var fixture = new TransferFixture();
+        DataSplitter splitter = fixture.splitter().build();
+        DataAssembler assembler = fixture.assembler().build();
+        String data = randomText(100_000);
+        List<FrameGroup> groups = FrameGroup.partition(splitter.split(data.getBytes(StandardCharsets.UTF_8)), 4);
+        assertThat(groups.get(0).getColumns()).isEqualTo(2);
+        assertThat(groups.get(0).rows()).isEqualTo(2);
+
+        // 摄像头没能识别第一组的最后一个二维码，该分片在下一轮补发
+        List<String> first = new ArrayList<>(groups.get(0).getCodes());
+        String unreadable = first.set(3, "not-a-qr-code");
+        List<TransferResult> results = assembler.assembleGroup(first);
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).getMissingChunks()).contains(3);
+
+        TransferResult result = null;
+        for (FrameGroup group : groups.subList(1, groups.size())) {
+            result = assembler.assembleGroup(group.getCodes()).get(0);
+        }
+        assertThat(result.isCompleted()).isFalse();
+        assertThat(result.getMissingChunks()).containsExactly(3);
+
+        result = assembler.assembleGroup(List.of(unreadable)).get(0);
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getData()).isEqualTo(data);
+    }
+
+    private static List<String> frames(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "f" + i).toList();
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.xioshe.net.channels.core.playback;
+
+import com.github.xioshe.net.channels.core.model.AckFrame;
+import com.github.xioshe.net.channels.core.model.TransferResult;
+import com.github.xioshe.net.channels.core.protocol.AckFrameCodec;
+import com.github.xioshe.net.channels.core.transfer.DataAssembler;
+import com.github.xioshe.net.channels.core.transfer.TransferFixture;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BroadcastTrackerTest {
+
+    private final BroadcastTracker tracker = new BroadcastTracker();
+
+    @Test
+    void shouldOrderRetransmitsByNumberOfReceiversMissingEachChunk() {
+        tracker.register("s1", 10, List.of("r1", "r2", "r3"));
+
+        tracker.acknowledge("r1", ack("s1", 10, 1, 2, 5));
+        tracker.acknowledge("r2", ack("s1", 10, 2, 5, 7));
+        tracker.acknowledge("r3", ack("s1", 10, 5));
+
+        assertThat(tracker.retransmitOrder("s1")).containsExactly(5, 2, 1, 7);
+        assertThat(tracker.combined("s1").getMissingChunks()).containsExactly(1, 2, 5, 7);
+        assertThat(tracker.isComplete("s1")).isFalse();
+    }
+
+    @Test
+    void shouldTreatSilentReceiversAsMissingEverythingAndKeepReceivedChunks() {
+        tracker.register("s1", 4, List.of("r1", "r2"));
+
+        tracker.acknowledge("r1", ack("s1", 4, 3));
+        // 较旧的确认帧不会让已接收的分片变回缺失
+        tracker.acknowledge("r1", ack("s1", 4, 0, 1, 2, 3));
+
+        assertThat(tracker.retransmitOrder("s1")).containsExactly(3, 0, 1, 2);
+        assertThat(tracker.getReceivedCounts("s1")).isEqualTo(Map.of("r1", 3, "r2", 0));
+    }
+
+    @Test
+    void shouldScheduleOneRetransmitCycleForAllReceiversAndStopWhenAllComplete() {
+        List<String> frames = IntStream.range(0, 8).mapToObj(i -> "a" + i).toList();
+        var carousel = new FrameCarousel(10, frame -> {
+        });
+        carousel.add("s1", frames);
+        carousel.reportMissing("s1", List.of(0));
+        tracker.register("s1", 8, List.of("r1", "r2"));
+
+        tracker.acknowledge("r1", ack("s1", 8, 3, 6));
+        tracker.acknowledge("r2", ack("s1", 8, 1, 6));
+        tracker.schedule(carousel, "s1");
+
+        // 补发队列被替换：先补发两个接收端都缺失的 6，之后只循环播放尚未被全部接收的分片
+        assertThat(next(carousel, 6)).containsExactly("a6", "a1", "a3", "a1", "a3", "a6");
+
+        assertThat(tracker.acknowledge("r1", AckFrame.completed("s1", 8))).isFalse();
+        assertThat(tracker.acknowledge("r2", AckFrame.completed("s1", 8))).isTrue();
+        tracker.schedule(carousel, "s1");
+        assertThat(carousel.isPlaying("s1")).isFalse();
+    }
+
+    @Test
+    void shouldMergeAcksProducedByAssembler() {
+        var fixture = new TransferFixture();
+        DataAssembler assembler = fixture.assembler().build();
+        List<String> frames = fixture.splitter().maxQRDataSize(500).build()
+                .split(TransferFixture.randomText(20_000).getBytes(StandardCharsets.UTF_8));
+        String sessionId = fixture.getProtocol().qrCodeToPacket(frames.get(0)).getHeader().getSessionId();
+        tracker.register(sessionId, frames.size(), List.of("r1", "r2"));
+        tracker.acknowledge("r2", ack(sessionId, frames.size()));
+
+        TransferResult result = null;
+        for (String frame : frames.subList(0, frames.size() - 1)) {
+            result = assembler.assemble(frame);
+        }
+        assertThat(tracker.acknowledge("r1", AckFrameCodec.decode(assembler.acknowledge(result)))).isFalse();
+        assertThat(tracker.retransmitOrder(sessionId)).containsExactly(frames.size() - 1);
+
+        result = assembler.assemble(frames.get(frames.size() - 1));
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(tracker.acknowledge("r1", AckFrameCodec.decode(assembler.acknowledge(result)))).isTrue();
+    }
+
+    private static AckFrame ack(String sessionId, int totalChunks, int... missing) {
+        BitSet received = new BitSet();
+        received.set(0, totalChunks);
+        for (int chunk : missing) {
+            received.clear(chunk);
+        }
+        return AckFrame.of(sessionId, totalChunks, received);
+    }
+
+    private static List<String> next(FrameCarousel carousel, int count) {
+        List<String> shown = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            shown.add(carousel.nextFrame().orElseThrow());
+        }
+        return shown;
+    }
+}
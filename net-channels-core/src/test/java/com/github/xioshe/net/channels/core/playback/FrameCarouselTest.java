@@ -0,0 +1,101 @@
+package com.github.xioshe.net.channels.core.playback;
+
+import com.github.xioshe.net.channels.core.model.AckFrame;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FrameCarouselTest {
+
+    @Test
+    void shouldLoopThroughSessionFrames() {
+        var carousel = new FrameCarousel(10, frame -> {
+        });
+        carousel.add("s1", List.of("a0", "a1", "a2"));
+
+        assertThat(next(carousel, 7)).containsExactly("a0", "a1", "a2", "a0", "a1", "a2", "a0");
+    }
+
+    @Test
+    void shouldPrioritizeMissingChunks() {
+        var carousel = new FrameCarousel(10, frame -> {
+        });
+        carousel.add("s1", List.of("a0", "a1", "a2", "a3", "a4"));
+        next(carousel, 4);
+
+        carousel.reportMissing("s1", List.of(1, 0, 1));
+
+        assertThat(next(carousel, 4)).containsExactly("a1", "a0", "a4", "a0");
+    }
+
+    @Test
+    void shouldSkipAcknowledgedChunksAndStopOnCompletion() {
+        var carousel = new FrameCarousel(10, frame -> {
+        });
+        carousel.add("s1", List.of("a0", "a1", "a2", "a3", "a4", "a5"));
+        next(carousel, 2);
+
+        BitSet received = new BitSet();
+        received.set(0, 6);
+        received.clear(1);
+        received.clear(4);
+        carousel.acknowledge(AckFrame.of("s1", 6, received));
+
+        assertThat(next(carousel, 5)).containsExactly("a1", "a4", "a4", "a1", "a4");
+
+        carousel.acknowledge(AckFrame.completed("s1", 6));
+        assertThat(carousel.isPlaying("s1")).isFalse();
+    }
+
+    @Test
+    void shouldInterleaveSessionsFairly() {
+        var carousel = new FrameCarousel(10, frame -> {
+        });
+        carousel.add("s1", List.of("a0", "a1", "a2"));
+        carousel.add("s2", List.of("b0"));
+
+        assertThat(next(carousel, 6)).containsExactly("a0", "b0", "a1", "b0", "a2", "b0");
+
+        carousel.remove("s2");
+
+        assertThat(next(carousel, 2)).containsExactly("a0", "a1");
+        carousel.remove("s1");
+        assertThat(carousel.nextFrame()).isEmpty();
+    }
+
+    @Test
+    void shouldDisplayFramesAtTargetRate() throws InterruptedException {
+        List<String> displayed = new CopyOnWriteArrayList<>();
+        var latch = new CountDownLatch(20);
+        try (var carousel = new FrameCarousel(200, frame -> {
+            displayed.add(frame);
+            latch.countDown();
+        })) {
+            carousel.add("s1", IntStream.range(0, 5).mapToObj(i -> "f" + i).toList());
+            long start = System.nanoTime();
+            carousel.start();
+
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            // 200 fps 下 20 帧约需 95ms
+            assertThat(elapsedMillis).isGreaterThanOrEqualTo(90);
+        }
+        assertThat(displayed.subList(0, 6)).containsExactly("f0", "f1", "f2", "f3", "f4", "f0");
+    }
+
+    private static List<String> next(FrameCarousel carousel, int count) {
+        List<String> frames = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            frames.add(carousel.nextFrame().orElseThrow());
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.xioshe.net.channels.core.playback;
+
+import com.github.xioshe.net.channels.core.model.AckFrame;
+import com.github.xioshe.net.channels.core.model.ScanReport;
+import com.github.xioshe.net.channels.core.protocol.FrameSetting;
+import com.github.xioshe.net.channels.core.protocol.QRCodeProtocol;
+import com.github.xioshe.net.channels.core.protocol.ScannerProfile;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FrameSizeControllerTest {
+
+    private final FrameSizeController controller = FrameSizeController.builder()
+            .protocol(new QRCodeProtocol())
+            .initialProfile(ScannerProfile.COMMERCIAL)
+            .build();
+
+    @Test
+    void shouldStartFromProfileAndClimbWhileScansSucceed() {
+        FrameSetting initial = controller.current("scanner-1");
+        assertThat(initial.getQrVersion()).isEqualTo(ScannerProfile.COMMERCIAL.getQrVersion());
+        assertThat(initial.getErrorCorrectionLevel()).isEqualTo(ScannerProfile.COMMERCIAL.getErrorCorrectionLevel());
+
+        FrameSetting last = simulate("scanner-1", setting -> 1.0, 200);
+
+        assertThat(last).isEqualTo(controller.getLadder().get(controller.getLadder().size() - 1));
+    }
+
+    @Test
+    void shouldStepDownWhenLargeFramesFailToScan() {
+        Map<FrameSetting, Integer> chosen = new HashMap<>();
+        ToDoubleFunction<FrameSetting> device = setting -> setting.getCapacity() <= 1000 ? 0.98 : 0.3;
+        for (int round = 0; round < 200; round++) {
+            FrameSetting setting = simulate("scanner-1", device, 1);
+            if (round >= 100) {
+                chosen.merge(setting, 1, Integer::sum);
+            }
+        }
+
+        FrameSetting expected = controller.getLadder().stream()
+                .filter(setting -> setting.getCapacity() <= 1000)
+                .max(Comparator.comparingInt(FrameSetting::getCapacity))
+                .orElseThrow();
+        assertThat(mostFrequent(chosen)).isEqualTo(expected);
+        // 只偶尔试探上一档
+        assertThat(chosen.get(expected)).isGreaterThan(80);
+    }
+
+    @Test
+    void shouldMaximizeGoodputRatherThanFrameSize() {
+        // 超过 600 字符后识别率按容量平方反比下降，更大的帧反而降低有效吞吐
+        ToDoubleFunction<FrameSetting> device = setting ->
+                setting.getCapacity() <= 600 ? 1.0 : Math.pow(600.0 / setting.getCapacity(), 2);
+        Map<FrameSetting, Integer> chosen = new HashMap<>();
+        for (int round = 0; round < 300; round++) {
+            FrameSetting setting = simulate("scanner-1", device, 1);
+            if (round >= 150) {
+                chosen.merge(setting, 1, Integer::sum);
+            }
+        }
+
+        FrameSetting expected = controller.getLadder().stream()
+                .filter(setting -> device.applyAsDouble(setting) >= FrameSizeController.DOWN_THRESHOLD)
+                .max(Comparator.comparingDouble(setting -> setting.getPayloadSize() * device.applyAsDouble(setting)))
+                .orElseThrow();
+        assertThat(mostFrequent(chosen)).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldTrackDevicesIndependently() {
+        simulate("good", setting -> 1.0, 50);
+        simulate("bad", setting -> 0.1, 50);
+
+        assertThat(controller.current("good").getCapacity())
+                .isGreaterThan(controller.current("bad").getCapacity());
+        assertThat(controller.current("bad")).isEqualTo(controller.getLadder().get(0));
+
+        controller.reset("bad");
+        assertThat(controller.current("bad").getQrVersion()).isEqualTo(ScannerProfile.COMMERCIAL.getQrVersion());
+    }
+
+    @Test
+    void shouldDeriveReportFromAckFrames() {
+        BitSet received = new BitSet();
+        received.set(0, 10);
+        AckFrame previous = AckFrame.of("s1", 40, received);
+        received.set(10, 30);
+        received.clear(15);
+        AckFrame current = AckFrame.of("s1", 40, received);
+
+        ScanReport report = ScanReport.between(previous, current, chunks(10, 35), Duration.ofSeconds(5));
+
+        assertThat(report.getNewChunks()).isEqualTo(19);
+        assertThat(report.scanSuccess()).isCloseTo(0.76, within(1e-9));
+        assertThat(report.duplicateRatio()).isZero();
+        assertThat(report.missRate()).isCloseTo(0.24, within(1e-9));
+    }
+
+    @Test
+    void shouldCountAlreadyReceivedChunksAsDuplicatesOnLaterPass() {
+        BitSet received = new BitSet();
+        received.set(0, 30);
+        AckFrame previous = AckFrame.of("s1", 40, received);
+        received.set(30, 39);
+        AckFrame current = AckFrame.of("s1", 40, received);
+
+        // 第二轮轮播：确认延迟，展示的 20 帧中有 10 帧是接收端已经持有的分片
+        ScanReport report = ScanReport.between(previous, current, chunks(20, 40), Duration.ofSeconds(4));
+
+        assertThat(report.getNewChunks()).isEqualTo(9);
+        assertThat(report.scanSuccess()).isCloseTo(0.9, within(1e-9));
+        assertThat(report.duplicateRatio()).isCloseTo(0.5, within(1e-9));
+        assertThat(report.missRate()).isCloseTo(0.55, within(1e-9));
+        assertThat(ScanReport.between(current, current, chunks(0, 10), null).getFramesShown()).isZero();
+    }
+
+    @Test
+    void shouldHoldSettingWhenMostDecodedFramesAreDuplicates() {
+        FrameSetting initial = controller.current("scanner-1");
+
+        // 识别率很高，但轮播大多在重复播放已接收的分片，新分片很少
+        for (int round = 0; round < 20; round++) {
+            assertThat(controller.record("scanner-1", initial, ScanReport.builder()
+                    .framesShown(100)
+                    .framesDecoded(95)
+                    .newChunks(10)
+                    .build())).isEqualTo(initial);
+        }
+
+        // 识别率下降后仍然降档
+        FrameSetting setting = initial;
+        for (int round = 0; round < 3; round++) {
+            setting = controller.record("scanner-1", initial, ScanReport.builder()
+                    .framesShown(100)
+                    .framesDecoded(20)
+                    .newChunks(2)
+                    .build());
+        }
+        assertThat(setting.getCapacity()).isLessThan(initial.getCapacity());
+    }
+
+    /**
+     * 模拟设备按给定识别率扫描 100 帧，每轮把观测结果交给控制器
+     */
+    private FrameSetting simulate(String deviceId, ToDoubleFunction<FrameSetting> successRate, int rounds) {
+        FrameSetting setting = controller.current(deviceId);
+        for (int round = 0; round < rounds; round++) {
+            int decoded = (int) Math.round(100 * successRate.applyAsDouble(setting));
+            setting = controller.record(deviceId, setting, ScanReport.builder()
+                    .framesShown(100)
+                    .framesDecoded(decoded)
+                    .newChunks(decoded)
+                    .build());
+        }
+        return setting;
+    }
+
+    private static List<Integer> chunks(int from, int to) {
+        return IntStream.range(from, to).boxed().toList();
+    }
+
+    private static FrameSetting mostFrequent(Map<FrameSetting, Integer> chosen) {
+        return chosen.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+    }
+}
@@ -0,0 +1,154 @@
+package com.github.xioshe.net.channels.core.playback;
+
+import com.github.xioshe.net.channels.core.cache.TransferDataCache;
+import com.github.xioshe.net.channels.core.model.TransferResult;
+import com.github.xioshe.net.channels.core.transfer.FountainFrameStream;
+import com.github.xioshe.net.channels.core.transfer.TransferFixture;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedCarouselTest {
+
+    private static final List<Consumer<String>> THREE_DISPLAYS = List.of(frame -> {
+    }, frame -> {
+    }, frame -> {
+    });
+
+    @Test
+    void shouldStripeFramesAcrossChannels() {
+        var carousel = new StripedCarousel(10, THREE_DISPLAYS);
+        carousel.add("s1", List.of("a0", "a1", "a2", "a3", "a4", "a5", "a6"));
+
+        assertThat(next(carousel.channel(0), 4)).containsExactly("a0", "a3", "a6", "a0");
+        assertThat(next(carousel.channel(1), 3)).containsExactly("a1", "a4", "a1");
+        assertThat(next(carousel.channel(2), 3)).containsExactly("a2", "a5", "a2");
+    }
+
+    @Test
+    void shouldSkipChannelsWithoutFramesAndRouteMissingChunks() {
+        var carousel = new StripedCarousel(10, THREE_DISPLAYS);
+        carousel.add("s1", List.of("a0", "a1"));
+        carousel.add("s2", List.of("b0", "b1", "b2", "b3", "b4", "b5"));
+
+        assertThat(carousel.channel(2).getActiveSessions()).isEqualTo(1);
+        assertThat(next(carousel.channel(2), 2)).containsExactly("b2", "b5");
+
+        carousel.reportMissing("s2", List.of(4, 5));
+
+        assertThat(next(carousel.channel(1), 3)).containsExactly("a1", "b4", "a1");
+        assertThat(next(carousel.channel(2), 1)).containsExactly("b5");
+
+        carousel.remove("s1");
+        assertThat(carousel.isPlaying("s1")).isFalse();
+        assertThat(carousel.channel(0).getActiveSessions()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldAssembleFramesFromConcurrentScannerInputs() throws Exception {
+        var fixture = new TransferFixture();
+        var splitter = fixture.splitter().maxQRDataSize(512).build();
+        var assembler = fixture.assembler().build();
+        String text = TransferFixture.randomText(200_000);
+        List<String> frames = splitter.split(text.getBytes(StandardCharsets.UTF_8));
+
+        int channels = 4;
+        var carousel = new StripedCarousel(10, List.of(frame -> {
+        }, frame -> {
+        }, frame -> {
+        }, frame -> {
+        }));
+        carousel.add("s1", frames);
+
+        // 每个通道对应一个扫码输入线程，各自把本通道的一轮帧交给同一个组装器
+        ExecutorService executor = Executors.newFixedThreadPool(channels);
+        try {
+            List<Future<List<TransferResult>>> futures = new ArrayList<>();
+            for (int c = 0; c < channels; c++) {
+                FrameCarousel channel = carousel.channel(c);
+                int stripeSize = (frames.size() - c + channels - 1) / channels;
+                futures.add(executor.submit(() -> next(channel, stripeSize).stream()
+                        .map(assembler::assemble)
+                        .toList()));
+            }
+            List<TransferResult> completed = new ArrayList<>();
+            for (Future<List<TransferResult>> future : futures) {
+                future.get().stream()
+                        .filter(result -> result.getStatus() == TransferResult.TransferStatus.COMPLETED)
+                        .forEach(completed::add);
+            }
+
+            assertThat(frames.size()).isGreaterThan(channels * 10);
+            assertThat(completed).hasSize(1);
+            assertThat(completed.get(0).getData()).isEqualTo(text);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldCompleteOnceWhenScannerInputsOverlap() throws Exception {
+        var fixture = new TransferFixture();
+        var splitter = fixture.splitter().maxQRDataSize(512).build();
+        var assembler = fixture.assembler()
+                .fountainCache(new TransferDataCache<>("in:fountain", fixture.getCacheManager()))
+                .build();
+        String text = TransferFixture.randomText(100_000);
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+
+        int inputs = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(inputs);
+        try {
+            for (int round = 0; round < 3; round++) {
+                // 每个扫码输入都看到两个会话的全部帧：普通会话的每个分片被重复接收，喷泉码会话的符号同时到达
+                List<String> frames = splitter.split(data);
+                FountainFrameStream fountain = splitter.splitFountain(data);
+                List<String> all = new ArrayList<>(frames);
+                IntStream.range(0, fountain.getTotalChunks() * 3).mapToObj(fountain::frame).forEach(all::add);
+
+                List<Future<List<TransferResult>>> futures = new ArrayList<>();
+                for (int i = 0; i < inputs; i++) {
+                    List<String> scanned = new ArrayList<>(all);
+                    Collections.shuffle(scanned, new Random(round * inputs + i));
+                    futures.add(executor.submit(() -> scanned.stream().map(assembler::assemble).toList()));
+                }
+                Map<String, List<TransferResult>> completed = new HashMap<>();
+                for (Future<List<TransferResult>> future : futures) {
+                    future.get().stream()
+                            .filter(TransferResult::isCompleted)
+                            .forEach(result -> completed.computeIfAbsent(result.getSessionId(),
+                                    id -> new ArrayList<>()).add(result));
+                }
+
+                assertThat(completed).containsOnlyKeys(
+                        fixture.getProtocol().qrCodeToPacket(frames.get(0)).getHeader().getSessionId(),
+                        fountain.getSessionId());
+                completed.values().forEach(results -> {
+                    assertThat(results).hasSize(1);
+                    assertThat(results.get(0).getData()).isEqualTo(text);
+                });
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> next(FrameCarousel carousel, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> carousel.nextFrame().orElseThrow())
+                .toList();
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.xioshe.net.channels.core.protocol;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.AckFrame;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AckFrameCodecTest {
+
+    @Test
+    void shouldRoundTripMissingRanges() {
+        BitSet received = new BitSet();
+        received.set(0, 1000);
+        received.clear(3);
+        received.clear(500, 520);
+        received.clear(990, 1000);
+        AckFrame ack = AckFrame.of("s1", 1000, received);
+
+        String encoded = AckFrameCodec.encode(ack);
+        AckFrame decoded = AckFrameCodec.decode(encoded);
+
+        assertThat(AckFrameCodec.isAckFrame(encoded)).isTrue();
+        // 三个区间只需十几个字节，远小于 125 字节的位图
+        assertThat(encoded.length()).isLessThan(60);
+        assertThat(decoded).isEqualTo(ack);
+        assertThat(decoded.getBase()).isEqualTo(3);
+        assertThat(decoded.isReceived(2)).isTrue();
+        assertThat(decoded.isReceived(505)).isFalse();
+        assertThat(decoded.isReceived(600)).isTrue();
+    }
+
+    @Test
+    void shouldUseBitmapForScatteredLoss() {
+        BitSet received = new BitSet();
+        received.set(0, 2000);
+        IntStream.range(0, 2000).filter(i -> i % 3 == 1).forEach(received::clear);
+        AckFrame ack = AckFrame.of("s1", 2000, received);
+
+        String encoded = AckFrameCodec.encode(ack, 1024);
+        AckFrame decoded = AckFrameCodec.decode(encoded);
+
+        // 约 250 字节的位图，区间编码需要 1300 多字节
+        assertThat(encoded.length()).isLessThan(400);
+        assertThat(decoded.getMissingChunks()).isEqualTo(ack.getMissingChunks());
+    }
+
+    @Test
+    void shouldTruncateWindowToCapacity() {
+        BitSet received = new BitSet();
+        received.set(0, 100_000);
+        IntStream.range(0, 100_000).filter(i -> i % 2 == 0).forEach(received::clear);
+        AckFrame ack = AckFrame.of("s1", 100_000, received);
+
+        String encoded = AckFrameCodec.encode(ack, 512);
+        AckFrame decoded = AckFrameCodec.decode(encoded);
+
+        assertThat(encoded.length()).isLessThanOrEqualTo(512);
+        assertThat(decoded.getBase()).isZero();
+        assertThat(decoded.getWindowEnd()).isBetween(2500, 100_000);
+        assertThat(decoded.getMissingChunks())
+                .isEqualTo(ack.getMissingChunks().subList(0, decoded.getMissingChunks().size()));
+        // 窗口之外的分片状态未知
+        assertThat(decoded.isReceived(99_999)).isFalse();
+    }
+
+    @Test
+    void shouldEncodeCompletionAndRejectMalformedFrames() {
+        AckFrame decoded = AckFrameCodec.decode(AckFrameCodec.encode(AckFrame.completed("s1", 42)));
+
+        assertThat(decoded.isComplete()).isTrue();
+        assertThat(decoded.getMissingChunks()).isEqualTo(List.of());
+        assertThatThrownBy(() -> AckFrameCodec.decode("ACK:AQA"))
+                .isInstanceOf(NetChannelsException.class);
+        assertThatThrownBy(() -> AckFrameCodec.decode("not-an-ack"))
+                .isInstanceOf(NetChannelsException.class);
+    }
+
+    @Test
+    void shouldRejectBitmapLargerThanFrameBeforeAllocating() {
+        // 声称 [0, 2^31-1) 的位图窗口，实际没有位图数据
+        byte[] frame = header(0x02, Integer.MAX_VALUE, 0, Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> AckFrameCodec.decode(ack(frame)))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("exceeds frame size");
+    }
+
+    @Test
+    void shouldRejectRangesOverflowingWindow() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(header(0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE));
+        // 两个区间：第一个到 2^31-2，第二个的间隔使起点溢出为负数
+        writeVarint(out, 2);
+        writeVarint(out, Integer.MAX_VALUE - 3);
+        writeVarint(out, 0);
+        writeVarint(out, Integer.MAX_VALUE);
+        writeVarint(out, 0);
+
+        assertThatThrownBy(() -> AckFrameCodec.decode(ack(out.toByteArray())))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("exceeds window");
+    }
+
+    @Test
+    void shouldRejectRangeCountLargerThanFrame() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(header(0, 10, 0, 10));
+        writeVarint(out, Integer.MAX_VALUE);
+
+        assertThatThrownBy(() -> AckFrameCodec.decode(ack(out.toByteArray())))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("exceeds frame size");
+    }
+
+    private static byte[] header(int flags, int totalChunks, int base, int windowEnd) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(1);
+        out.write(flags);
+        out.write(2);
+        out.writeBytes("s1".getBytes(StandardCharsets.US_ASCII));
+        writeVarint(out, totalChunks);
+        writeVarint(out, base);
+        writeVarint(out, windowEnd);
+        return out.toByteArray();
+    }
+
+    private static String ack(byte[] frame) {
+        return AckFrameCodec.PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(frame);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.xioshe.net.channels.core.protocol;
+
+import com.github.xioshe.net.channels.core.model.ChunkLayout;
+import com.github.xioshe.net.channels.core.model.PacketHeader;
+import com.github.xioshe.net.channels.core.model.TransferPacket;
+import com.github.xioshe.net.channels.core.session.TimestampSessionIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Base45QRCodeProtocolTest {
+    private final Base45QRCodeProtocol protocol = new Base45QRCodeProtocol();
+    private final String sessionId = new TimestampSessionIdGenerator().generate();
+
+    @Test
+    void shouldMatchRfc9285Examples() {
+        assertEquals("BB8", Base45.encode("AB".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("%69 VD92EX0", Base45.encode("Hello!!".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("UJCLQE7W581", Base45.encode("base-45".getBytes(StandardCharsets.US_ASCII)));
+        assertArrayEquals("ietf!".getBytes(StandardCharsets.US_ASCII), Base45.decode("QED8WEX0"));
+
+        assertThrows(IllegalArgumentException.class, () -> Base45.decode("GGW"));
+        assertThrows(IllegalArgumentException.class, () -> Base45.decode("ab"));
+        assertThrows(IllegalArgumentException.class, () -> Base45.decode("BB8B"));
+    }
+
+    @Test
+    void shouldRoundTripPacketInAlphanumericCharset() {
+        byte[] data = new byte[1000];
+        new Random(7).nextBytes(data);
+        var header = PacketHeader.builder()
+                .sessionId(sessionId)
+                .totalChunks(3)
+                .currentChunk(1)
+                .chunkSize(1000)
+                .totalSize(3000)
+                .checksum(protocol.calculateChecksum(data))
+                .build();
+
+        String qrCode = protocol.packetToQRCode(TransferPacket.builder().header(header).data(data).build());
+        TransferPacket packet = protocol.qrCodeToPacket(qrCode);
+
+        assertTrue(qrCode.chars().allMatch(c -> "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:".indexOf(c) >= 0));
+        assertArrayEquals(data, packet.getData());
+        assertEquals(1, packet.getHeader().getCurrentChunk());
+    }
+
+    @Test
+    void shouldEncodeChunkSameAsPacket() {
+        byte[] source = "0123456789-encrypted-data".getBytes(StandardCharsets.UTF_8);
+        var layout = ChunkLayout.builder()
+                .sessionId(sessionId)
+                .totalChunks(10)
+                .chunkSize(5)
+                .totalSize(source.length)
+                .build();
+        // 覆盖 Base45 编码的两种尾部长度
+        for (int length = 0; length <= 3; length++) {
+            byte[] chunk = Arrays.copyOfRange(source, 3, 3 + length);
+            var header = PacketHeader.builder()
+                    .sessionId(sessionId)
+                    .totalChunks(10)
+                    .currentChunk(2)
+                    .chunkSize(5)
+                    .totalSize(source.length)
+                    .checksum(protocol.calculateChecksum(chunk))
+                    .build();
+            String expected = protocol.packetToQRCode(TransferPacket.builder().header(header).data(chunk).build());
+
+            assertEquals(expected, protocol.chunkToQRCode(layout, 2, source, 3, length));
+        }
+    }
+
+    @Test
+    void shouldCarryMoreDataPerFrameThanBase64() {
+        var base64 = new QRCodeProtocol();
+        for (ScannerProfile profile : ScannerProfile.values()) {
+            int capacity = profile.getCapacity(protocol.encodingMode());
+            int maxChunkSize = protocol.maxChunkSize(capacity);
+            var layout = ChunkLayout.builder()
+                    .sessionId(sessionId)
+                    .totalChunks(1)
+                    .chunkSize(maxChunkSize)
+                    .totalSize(maxChunkSize)
+                    .build();
+
+            String full = protocol.chunkToQRCode(layout, 0, new byte[maxChunkSize], 0, maxChunkSize);
+
+            // 装满后剩余空间不足一个 Base45 编码组
+            assertTrue(full.length() <= capacity);
+            assertTrue(full.length() > capacity - 3);
+            assertTrue(maxChunkSize > base64.maxChunkSize(profile.getCapacity()) * 5 / 4);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.xioshe.net.channels.core.protocol;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.ChunkLayout;
+import com.github.xioshe.net.channels.core.model.PacketHeader;
+import com.github.xioshe.net.channels.core.model.TransferPacket;
+import com.github.xioshe.net.channels.core.session.TimestampSessionIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryQRCodeProtocolTest {
+    private final BinaryQRCodeProtocol protocol = new BinaryQRCodeProtocol();
+    private final String sessionId = new TimestampSessionIdGenerator().generate();
+
+    @Test
+    void shouldMapPacketBytesOneToOne() {
+        byte[] data = new byte[256];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        var header = PacketHeader.builder()
+                .sessionId(sessionId)
+                .totalChunks(1)
+                .chunkSize(data.length)
+                .totalSize(data.length)
+                .checksum(protocol.calculateChecksum(data))
+                .build();
+        TransferPacket packet = TransferPacket.builder().header(header).data(data).build();
+
+        String qrCode = protocol.packetToQRCode(packet);
+
+        assertEquals(packet.toBytes().length, qrCode.length());
+        assertArrayEquals(data, protocol.qrCodeToPacket(qrCode).getData());
+        // 扫码设备按 UTF-8 转码后出现超出 ISO-8859-1 的字符
+        assertThrows(NetChannelsException.class, () -> protocol.qrCodeToPacket(qrCode.replace('ÿ', '€')));
+    }
+
+    @Test
+    void shouldEncodeChunkSameAsPacket() {
+        byte[] source = new byte[32];
+        new Random(3).nextBytes(source);
+        var layout = ChunkLayout.builder()
+                .sessionId(sessionId)
+                .totalChunks(4)
+                .chunkSize(8)
+                .totalSize(source.length)
+                .build();
+        byte[] chunk = Arrays.copyOfRange(source, 8, 16);
+        var header = PacketHeader.builder()
+                .sessionId(sessionId)
+                .totalChunks(4)
+                .currentChunk(1)
+                .chunkSize(8)
+                .totalSize(source.length)
+                .checksum(protocol.calculateChecksum(chunk))
+                .build();
+
+        assertEquals(protocol.packetToQRCode(TransferPacket.builder().header(header).data(chunk).build()),
+                protocol.chunkToQRCode(layout, 1, source, 8, 8));
+    }
+
+    @Test
+    void shouldFillFrameCapacityExactly() {
+        var base64 = new QRCodeProtocol();
+        for (ScannerProfile profile : ScannerProfile.values()) {
+            int capacity = profile.getCapacity();
+            int maxChunkSize = protocol.maxChunkSize(capacity);
+            var layout = ChunkLayout.builder()
+                    .sessionId(sessionId)
+                    .totalChunks(1)
+                    .chunkSize(maxChunkSize)
+                    .totalSize(maxChunkSize)
+                    .build();
+
+            String full = protocol.chunkToQRCode(layout, 0, new byte[maxChunkSize], 0, maxChunkSize);
+
+            assertEquals(capacity, full.length());
+            // 比 Base64 多出的正好是 Base64 膨胀占用的部分
+            assertEquals(capacity - capacity * 3 / 4, maxChunkSize - base64.maxChunkSize(capacity));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.xioshe.net.channels.core.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import static com.github.xioshe.net.channels.core.protocol.QRCodeCapacity.ErrorCorrectionLevel.H;
+import static com.github.xioshe.net.channels.core.protocol.QRCodeCapacity.ErrorCorrectionLevel.L;
+import static com.github.xioshe.net.channels.core.protocol.QRCodeCapacity.ErrorCorrectionLevel.M;
+import static com.github.xioshe.net.channels.core.protocol.QRCodeCapacity.ErrorCorrectionLevel.Q;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QRCodeCapacityTest {
+
+    @Test
+    void shouldMatchStandardByteCapacity() {
+        assertEquals(17, QRCodeCapacity.byteCapacity(1, L));
+        assertEquals(7, QRCodeCapacity.byteCapacity(1, H));
+        assertEquals(213, QRCodeCapacity.byteCapacity(10, M));
+        assertEquals(482, QRCodeCapacity.byteCapacity(20, Q));
+        assertEquals(2953, QRCodeCapacity.byteCapacity(40, L));
+        assertEquals(1273, QRCodeCapacity.byteCapacity(40, H));
+    }
+
+    @Test
+    void shouldMatchStandardAlphanumericCapacity() {
+        assertEquals(25, QRCodeCapacity.alphanumericCapacity(1, L));
+        assertEquals(10, QRCodeCapacity.alphanumericCapacity(1, H));
+        assertEquals(311, QRCodeCapacity.alphanumericCapacity(10, M));
+        assertEquals(702, QRCodeCapacity.alphanumericCapacity(20, Q));
+        assertEquals(4296, QRCodeCapacity.alphanumericCapacity(40, L));
+        assertEquals(1852, QRCodeCapacity.alphanumericCapacity(40, H));
+    }
+
+    @Test
+    void shouldDescribeScannerProfiles() {
+        assertEquals(666, ScannerProfile.COMMERCIAL.getCapacity());
+        assertEquals(QRCodeCapacity.MAX_BYTE_CAPACITY, ScannerProfile.INDUSTRIAL.getCapacity());
+        assertEquals(QRCodeCapacity.MAX_ALPHANUMERIC_CAPACITY,
+                ScannerProfile.INDUSTRIAL.getCapacity(QRCodeCapacity.EncodingMode.ALPHANUMERIC));
+    }
+
+    @Test
+    void shouldRejectInvalidVersion() {
+        assertThrows(IllegalArgumentException.class, () -> QRCodeCapacity.byteCapacity(0, L));
+        assertThrows(IllegalArgumentException.class, () -> QRCodeCapacity.byteCapacity(41, L));
+    }
+}
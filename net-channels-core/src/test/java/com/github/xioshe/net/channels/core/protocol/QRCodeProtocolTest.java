@@ -1,6 +1,7 @@
 package com.github.xioshe.net.channels.core.protocol;
 
 import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.ChunkLayout;
 import com.github.xioshe.net.channels.core.model.PacketHeader;
 import com.github.xioshe.net.channels.core.model.TransferPacket;
 import com.github.xioshe.net.channels.core.session.TimestampSessionIdGenerator;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -90,6 +92,60 @@ class QRCodeProtocolTest {
                 protocol.qrCodeToPacket(""));
     }
 
+    @Test
+    void shouldEncodeChunkSameAsPacket() {
+        byte[] source = "0123456789-encrypted-data".getBytes(StandardCharsets.UTF_8);
+        String sessionId = validPacket.getHeader().getSessionId();
+        var layout = ChunkLayout.builder()
+                .sessionId(sessionId)
+                .flags(PacketHeader.FLAG_FOUNTAIN)
+                .totalChunks(10)
+                .chunkSize(5)
+                .totalSize(source.length)
+                .build();
+        // 覆盖 Base64 编码的三种尾部长度
+        for (int length = 0; length <= 5; length++) {
+            byte[] chunk = Arrays.copyOfRange(source, 3, 3 + length);
+            var header = PacketHeader.builder()
+                    .flags(PacketHeader.FLAG_FOUNTAIN)
+                    .sessionId(sessionId)
+                    .totalChunks(10)
+                    .currentChunk(2)
+                    .chunkSize(5)
+                    .totalSize(source.length)
+                    .checksum(protocol.calculateChecksum(chunk))
+                    .build();
+            String expected = protocol.packetToQRCode(TransferPacket.builder().header(header).data(chunk).build());
+
+            String actual = protocol.chunkToQRCode(layout, 2, source, 3, length);
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void shouldFillFrameCapacityExactly() {
+        String sessionId = validPacket.getHeader().getSessionId();
+        for (ScannerProfile profile : ScannerProfile.values()) {
+            int capacity = profile.getCapacity();
+            int maxChunkSize = protocol.maxChunkSize(capacity);
+            byte[] source = new byte[maxChunkSize];
+
+            var layout = ChunkLayout.builder()
+                    .sessionId(sessionId)
+                    .totalChunks(1)
+                    .chunkSize(maxChunkSize)
+                    .totalSize(source.length)
+                    .build();
+
+            String full = protocol.chunkToQRCode(layout, 0, source, 0, maxChunkSize);
+
+            // 装满后剩余空间不足一个 Base64 编码组
+            assertTrue(full.length() <= capacity);
+            assertTrue(full.length() > capacity - 4);
+        }
+    }
+
     @Test
     void shouldValidateChecksumCorrectly() {
         var testData = "test-data".getBytes(StandardCharsets.UTF_8);
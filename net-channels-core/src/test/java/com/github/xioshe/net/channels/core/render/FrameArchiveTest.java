@@ -0,0 +1,78 @@
+package com.github.xioshe.net.channels.core.render;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FrameArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final QRCodeRenderer renderer = QRCodeRenderer.builder()
+            .format(RenderedFrame.Format.GRAY)
+            .moduleSize(2)
+            .maxCacheBytes(0L)
+            .build();
+
+    @Test
+    void shouldWriteFramesAndReadAnyChunkByIndex() throws Exception {
+        // 超过一个写入批次
+        List<String> frames = IntStream.range(0, 300).mapToObj(i -> "frame-" + i).toList();
+        Path file = tempDir.resolve("s1.frames");
+
+        FrameArchive.write(file, renderer, "s1", frames);
+        FrameArchive archive = FrameArchive.open(file);
+
+        assertThat(archive.getSessionId()).isEqualTo("s1");
+        assertThat(archive.getTotalChunks()).isEqualTo(300);
+        assertThat(archive.getFormat()).isEqualTo(RenderedFrame.Format.GRAY);
+        assertThat(Files.exists(tempDir.resolve("s1.frames.tmp"))).isFalse();
+        for (int chunk : new int[]{299, 0, 256, 17}) {
+            RenderedFrame frame = archive.frame(chunk);
+            assertThat(frame.getChunk()).isEqualTo(chunk);
+            assertThat(QRCodeRendererTest.decode(frame.getData(), frame.getWidth(), frame.getHeight()))
+                    .isEqualTo("frame-" + chunk);
+            assertThat(frame.getData()).isEqualTo(renderer.render("s1", chunk, frames.get(chunk)).getData());
+        }
+        assertThat(archive.slice(5).isReadOnly()).isTrue();
+        assertThatThrownBy(() -> archive.slice(300)).isInstanceOf(NetChannelsException.class);
+    }
+
+    @Test
+    void shouldMapDataAcrossOverlappingWindows() {
+        List<String> frames = IntStream.range(0, 40).mapToObj(i -> "window-" + i).toList();
+        Path file = tempDir.resolve("s2.frames");
+        FrameArchive.write(file, renderer, "s2", frames);
+
+        FrameArchive whole = FrameArchive.open(file);
+        // 窗口比单帧还小，大部分帧跨越窗口边界
+        FrameArchive windowed = FrameArchive.open(file, 4096);
+
+        for (int chunk = 0; chunk < frames.size(); chunk++) {
+            ByteBuffer expected = whole.slice(chunk);
+            assertThat(windowed.slice(chunk)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidArchive() throws Exception {
+        Path file = tempDir.resolve("bad.frames");
+        Files.write(file, new byte[64]);
+
+        assertThatThrownBy(() -> FrameArchive.open(file))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("Not a frame archive");
+        assertThatThrownBy(() -> FrameArchive.write(tempDir.resolve("empty.frames"), renderer, "s3", List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.xioshe.net.channels.core.render;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.protocol.FrameSetting;
+import com.github.xioshe.net.channels.core.protocol.QRCodeCapacity;
+import com.github.xioshe.net.channels.core.protocol.QRCodeProtocol;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QRCodeRendererTest {
+
+    @Test
+    void shouldRenderDecodableGrayBitmap() throws Exception {
+        var renderer = QRCodeRenderer.builder()
+                .format(RenderedFrame.Format.GRAY)
+                .moduleSize(2)
+                .build();
+        // 覆盖字节模式中 0x80-0xFF 的字符，对应二进制协议的数据
+        byte[] bytes = new byte[500];
+        new Random(1).nextBytes(bytes);
+        String qrCode = new String(bytes, StandardCharsets.ISO_8859_1);
+
+        RenderedFrame frame = renderer.render("s1", 0, qrCode);
+
+        assertThat(frame.getData()).hasSize(frame.getWidth() * frame.getHeight());
+        assertThat(decode(frame.getData(), frame.getWidth(), frame.getHeight())).isEqualTo(qrCode);
+    }
+
+    @Test
+    void shouldRenderDecodablePngWithFixedVersion() throws Exception {
+        var renderer = QRCodeRenderer.builder()
+                .qrVersion(10)
+                .errorCorrectionLevel(QRCodeCapacity.ErrorCorrectionLevel.M)
+                .build();
+        String qrCode = "AbC-_0123456789".repeat(10);
+
+        RenderedFrame frame = renderer.render("s1", 0, qrCode);
+
+        // 版本 10 为 57 个模块，加上两侧各 4 个模块的空白区，每个模块 4 像素
+        assertThat(frame.getWidth()).isEqualTo((57 + 8) * 4);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(frame.getData()));
+        byte[] gray = new byte[image.getWidth() * image.getHeight()];
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                gray[y * image.getWidth() + x] = (byte) (image.getRGB(x, y) & 0xff);
+            }
+        }
+        assertThat(decode(gray, image.getWidth(), image.getHeight())).isEqualTo(qrCode);
+
+        assertThatThrownBy(() -> renderer.render("s1", 1, "x".repeat(1000)))
+                .isInstanceOf(NetChannelsException.class);
+    }
+
+    @Test
+    void shouldServeRetransmitsFromCache() {
+        var renderer = QRCodeRenderer.builder().build();
+        List<String> frames = IntStream.range(0, 20).mapToObj(i -> "frame-" + i).toList();
+
+        List<RenderedFrame> first = renderer.renderAll("s1", frames);
+        List<RenderedFrame> second = renderer.renderAll("s1", frames);
+
+        assertThat(first).hasSize(20);
+        assertThat(first.get(7).getChunk()).isEqualTo(7);
+        for (int i = 0; i < frames.size(); i++) {
+            assertThat(second.get(i)).isSameAs(first.get(i));
+        }
+        assertThat(renderer.render("s1", 3, frames.get(3))).isSameAs(first.get(3));
+
+        renderer.renderAll("s2", frames);
+        renderer.evict("s1");
+        assertThat(renderer.getCachedFrames()).isEqualTo(20);
+        assertThat(renderer.render("s1", 3, frames.get(3))).isNotSameAs(first.get(3));
+    }
+
+    @Test
+    void shouldNotServeCachedFrameForDifferentContentOrSetting() throws Exception {
+        var renderer = QRCodeRenderer.builder()
+                .format(RenderedFrame.Format.GRAY)
+                .build();
+        RenderedFrame original = renderer.render("s1", 2, "original-chunk-2");
+
+        // 合并重传帧以首个分片为序号，内容不同
+        RenderedFrame packed = renderer.render("s1", 2, "packed-chunks-2-3-5");
+        assertThat(decode(packed.getData(), packed.getWidth(), packed.getHeight())).isEqualTo("packed-chunks-2-3-5");
+
+        var setting = FrameSetting.of(new QRCodeProtocol(), 10, QRCodeCapacity.ErrorCorrectionLevel.H);
+        RenderedFrame adjusted = renderer.render("s1", 2, "original-chunk-2", setting);
+        assertThat(adjusted).isNotSameAs(original);
+        // 版本 10 为 57 个模块，加上两侧各 4 个模块的空白区，每个模块 4 像素
+        assertThat(adjusted.getWidth()).isEqualTo((57 + 8) * 4);
+
+        assertThat(renderer.render("s1", 2, "original-chunk-2")).isSameAs(original);
+    }
+
+    static String decode(byte[] gray, int width, int height) throws Exception {
+        var source = new PlanarYUVLuminanceSource(gray, width, height, 0, 0, width, height, false);
+        return new QRCodeReader().decode(new BinaryBitmap(new HybridBinarizer(source)),
+                        Map.of(DecodeHintType.CHARACTER_SET, "ISO-8859-1", DecodeHintType.PURE_BARCODE, true))
+                .getText();
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -88,6 +89,22 @@ class SessionManagerTest {
         assertEquals(0, stats.getTotalFailed());
     }
 
+    @Test
+    void shouldCompleteSessionWithBatchUpdate() {
+        String sessionId = "batch-test";
+        sessionManager.createSession(sessionId, 4, 1000);
+
+        sessionManager.updateSession(sessionId, List.of(0, 2));
+        assertEquals(0.5, sessionManager.getSession(sessionId).getProgress());
+
+        // 重复的分片不重复计数
+        sessionManager.updateSession(sessionId, List.of(2, 1, 3));
+
+        assertThrows(NetChannelsException.class, () ->
+                sessionManager.getSession(sessionId));
+        assertEquals(1, sessionManager.getStats().getTotalCompleted());
+    }
+
     @Test
     void shouldHandleSessionFailure() {
         // 使用 mock 存储来模拟失败场景
@@ -0,0 +1,119 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.TransferResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.github.xioshe.net.channels.core.transfer.TransferFixture.randomText;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArchiveContainerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldRoundTripDirectoryTree() throws IOException {
+        Path source = tempDir.resolve("source");
+        Files.createDirectories(source.resolve("empty"));
+        Files.createDirectories(source.resolve("nested/deeper"));
+        Files.writeString(source.resolve("a.txt"), "hello");
+        Files.writeString(source.resolve("nested/b.json"), "{\"id\":1}");
+        Files.write(source.resolve("nested/deeper/c.bin"), new byte[0]);
+        Files.writeString(source.resolve("nested/deeper/large.txt"), randomText(3 * 1024 * 1024));
+
+        Path target = tempDir.resolve("target");
+        int files;
+        try (InputStream archive = ArchiveContainer.open(source)) {
+            files = ArchiveContainer.extract(archive, target);
+        }
+
+        assertThat(files).isEqualTo(4);
+        assertThat(target.resolve("empty")).isEmptyDirectory();
+        assertThat(target.resolve("a.txt")).hasContent("hello");
+        assertThat(target.resolve("nested/b.json")).hasContent("{\"id\":1}");
+        assertThat(target.resolve("nested/deeper/c.bin")).isEmptyFile();
+        assertThat(target.resolve("nested/deeper/large.txt"))
+                .hasSameBinaryContentAs(source.resolve("nested/deeper/large.txt"));
+    }
+
+    @Test
+    void shouldRejectEntryOutsideTarget() {
+        // 版本号，1 个条目：文件，路径 "../evil"，大小 0，修改时间 0
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        archive.write(1);
+        archive.write(1);
+        archive.write(0);
+        byte[] name = "../evil".getBytes(StandardCharsets.UTF_8);
+        archive.write(name.length);
+        archive.writeBytes(name);
+        archive.write(0);
+        archive.write(0);
+        archive.write(0);
+
+        assertThatThrownBy(() -> ArchiveContainer.extract(
+                new ByteArrayInputStream(archive.toByteArray()), tempDir.resolve("target")))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("Invalid archive entry path");
+        assertThat(tempDir.resolve("evil")).doesNotExist();
+    }
+
+    @Test
+    void shouldRejectForgedBatchSizeAndNameLength() {
+        // 版本号，条目数 2^31 + 1 的 varint：强转为 int 后为负数
+        byte[] forgedCount = {1, (byte) 0x81, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08};
+        assertThatThrownBy(() -> ArchiveContainer.extract(
+                new ByteArrayInputStream(forgedCount), tempDir.resolve("target")))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("Invalid archive batch size");
+
+        // 版本号，1 个条目：文件，路径长度 2^32（强转为 int 后为 0）
+        byte[] forgedName = {1, 1, 0, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x10};
+        assertThatThrownBy(() -> ArchiveContainer.extract(
+                new ByteArrayInputStream(forgedName), tempDir.resolve("target")))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("Invalid archive entry name length");
+    }
+
+    @Test
+    void shouldTransferManySmallFilesInOneSession() throws IOException {
+        Path source = tempDir.resolve("configs");
+        Files.createDirectories(source);
+        for (int i = 0; i < 500; i++) {
+            Files.writeString(source.resolve("config-%03d.properties".formatted(i)),
+                    "service.name=svc-%d%nservice.enabled=true%nservice.timeout=30s%n".formatted(i));
+        }
+        var fixture = new TransferFixture();
+        var splitter = fixture.splitter().spoolDirectory(tempDir).build();
+        var assembler = fixture.assembler().archiveDirectory(tempDir.resolve("received")).build();
+
+        TransferResult result = null;
+        int frames = 0;
+        try (FrameStream stream = splitter.splitArchive(source)) {
+            while (stream.hasNext()) {
+                result = assembler.assemble(stream.next());
+                frames++;
+            }
+        }
+
+        // 500 个文件共享一次压缩，只需要少量帧
+        assertThat(frames).isLessThan(10);
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getFile()).isEqualTo(tempDir.resolve("received").resolve(result.getSessionId()));
+        try (var files = Files.list(result.getFile())) {
+            assertThat(files.count()).isEqualTo(500);
+        }
+        assertThat(result.getFile().resolve("config-042.properties"))
+                .hasSameTextualContentAs(source.resolve("config-042.properties"));
+    }
+}
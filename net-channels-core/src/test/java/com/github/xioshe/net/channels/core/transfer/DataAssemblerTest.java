@@ -5,11 +5,14 @@ import com.github.xioshe.net.channels.core.cache.TransferDataCache;
 import com.github.xioshe.net.channels.core.compress.DataCompressor;
 import com.github.xioshe.net.channels.core.crypto.AESCipher;
 import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.AckFrame;
 import com.github.xioshe.net.channels.core.model.PacketHeader;
 import com.github.xioshe.net.channels.core.model.TransferPacket;
 import com.github.xioshe.net.channels.core.model.TransferResult;
+import com.github.xioshe.net.channels.core.protocol.AckFrameCodec;
 import com.github.xioshe.net.channels.core.protocol.QRCodeProtocol;
 import com.github.xioshe.net.channels.core.session.SessionManager;
+import com.github.xioshe.net.channels.core.session.SessionState;
 import com.github.xioshe.net.channels.core.session.TimestampSessionIdGenerator;
 import com.github.xioshe.net.channels.core.session.TransferSession;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,13 +22,15 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -74,11 +79,6 @@ class DataAssemblerTest {
         when(sessionManager.getOrCreateSession(TEST_SESSION_ID, 2, 100))
                 .thenReturn(session);
         when(dataCache.get(anyString(), any())).thenReturn(buffer);
-        doAnswer(invocation -> {
-            Runnable action = invocation.getArgument(1);
-            action.run();
-            return null;
-        }).when(lockTemplate).execute(anyString(), any(Runnable.class));
 
         // when
         TransferResult result = assembler.assemble(TEST_QR_DATA);
@@ -94,7 +94,7 @@ class DataAssemblerTest {
         // given
         TransferPacket packet = createTestPacket(1, 2);
         TransferSession session = createTestSession(2, true);
-        DataAssembler.ByteBufferDataBuffer buffer = new DataAssembler.ByteBufferDataBuffer(TEST_CHUNK_DATA.length());
+        DataAssembler.ByteBufferDataBuffer buffer = new DataAssembler.ByteBufferDataBuffer(packet.getHeader().getTotalSize());
         buffer.insertChunk(0, TEST_CHUNK_DATA.getBytes(StandardCharsets.UTF_8));
 
         when(protocol.qrCodeToPacket(TEST_QR_DATA)).thenReturn(packet);
@@ -115,6 +115,50 @@ class DataAssemblerTest {
         verify(sessionManager).removeSession(TEST_SESSION_ID);
     }
 
+    @Test
+    void shouldSkipDecompressionForRawPayload() {
+        // given
+        TransferPacket packet = createTestPacket(1, 2);
+        packet.getHeader().setFlags(PacketHeader.FLAG_RAW);
+        TransferSession session = createTestSession(2, true);
+        DataAssembler.ByteBufferDataBuffer buffer = new DataAssembler.ByteBufferDataBuffer(packet.getHeader().getTotalSize());
+        buffer.insertChunk(0, TEST_CHUNK_DATA.getBytes(StandardCharsets.UTF_8));
+
+        when(protocol.qrCodeToPacket(TEST_QR_DATA)).thenReturn(packet);
+        when(protocol.validatePacket(packet)).thenReturn(true);
+        when(sessionManager.getOrCreateSession(TEST_SESSION_ID, 2, 100))
+                .thenReturn(session);
+        when(dataCache.get(anyString(), any())).thenReturn(buffer);
+        when(cipher.decrypt(any())).thenReturn("raw-data".getBytes(StandardCharsets.UTF_8));
+
+        // when
+        TransferResult result = assembler.assemble(TEST_QR_DATA);
+
+        // then
+        assertThat(result.getData()).isEqualTo("raw-data");
+        verify(compressor, never()).decompress(any());
+    }
+
+    @Test
+    void shouldRejectChunkOffsetBeyondTotalSize() {
+        // given
+        // 85_899_346 * 50 超过 int 范围，按 int 计算会溢出为 4
+        TransferPacket packet = createTestPacket(85_899_346, 2);
+        DataAssembler.ByteBufferDataBuffer buffer = new DataAssembler.ByteBufferDataBuffer(packet.getHeader().getTotalSize());
+
+        when(protocol.qrCodeToPacket(TEST_QR_DATA)).thenReturn(packet);
+        when(protocol.validatePacket(packet)).thenReturn(true);
+        when(sessionManager.getOrCreateSession(TEST_SESSION_ID, 2, 100))
+                .thenReturn(createTestSession(2, false));
+        when(dataCache.get(anyString(), any())).thenReturn(buffer);
+
+        // then
+        assertThatThrownBy(() -> assembler.assemble(TEST_QR_DATA))
+                .isInstanceOf(NetChannelsException.class)
+                .hasRootCauseMessage("Chunk 85899346 exceeds total size 100");
+        verify(sessionManager, never()).updateSession(anyString(), anyInt());
+    }
+
     @Test
     void shouldThrowExceptionForInvalidQRCode() {
         // given
@@ -148,6 +192,48 @@ class DataAssemblerTest {
         verify(sessionManager).markSessionFailed(eq(TEST_SESSION_ID), any());
     }
 
+    @Test
+    void shouldAcknowledgeCompletionWithChunkCount() {
+        TransferResult result = TransferResult.builder()
+                .status(TransferResult.TransferStatus.COMPLETED)
+                .sessionId(TEST_SESSION_ID)
+                .totalChunks(2)
+                .build();
+
+        AckFrame ack = AckFrameCodec.decode(assembler.acknowledge(result));
+
+        assertThat(ack.isComplete()).isTrue();
+        assertThat(ack.getTotalChunks()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotAcknowledgeCompletionOfMissingOrFailedSession() {
+        // 会话已过期或从未创建，不能报告完成
+        TransferResult result = TransferResult.builder()
+                .status(TransferResult.TransferStatus.IN_PROGRESS)
+                .sessionId(TEST_SESSION_ID)
+                .totalChunks(2)
+                .build();
+        when(sessionManager.findSession(TEST_SESSION_ID)).thenReturn(Optional.empty());
+
+        AckFrame missing = AckFrameCodec.decode(assembler.acknowledge(result));
+
+        assertThat(missing.isComplete()).isFalse();
+        assertThat(missing.getSessionId()).isEqualTo(TEST_SESSION_ID);
+        assertThat(missing.getTotalChunks()).isEqualTo(2);
+        assertThat(missing.receivedCount()).isZero();
+
+        // 失败的会话即使全部分片已接收也不报告
+        TransferSession failed = createTestSession(2, true);
+        failed.setState(SessionState.FAILED);
+        when(sessionManager.findSession(TEST_SESSION_ID)).thenReturn(Optional.of(failed));
+
+        AckFrame ack = AckFrameCodec.decode(assembler.acknowledge(result));
+
+        assertThat(ack.isComplete()).isFalse();
+        assertThat(ack.receivedCount()).isZero();
+    }
+
     private TransferPacket createTestPacket(int currentChunk, int totalChunks) {
         PacketHeader header = PacketHeader.builder()
                 .sessionId(TEST_SESSION_ID)
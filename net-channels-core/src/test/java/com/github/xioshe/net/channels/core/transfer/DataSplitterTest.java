@@ -4,6 +4,8 @@ import com.github.xioshe.net.channels.core.cache.TransferDataCache;
 import com.github.xioshe.net.channels.core.compress.DataCompressor;
 import com.github.xioshe.net.channels.core.crypto.AESCipher;
 import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.ChunkLayout;
+import com.github.xioshe.net.channels.core.model.PacketHeader;
 import com.github.xioshe.net.channels.core.protocol.QRCodeProtocol;
 import com.github.xioshe.net.channels.core.session.SessionManager;
 import com.github.xioshe.net.channels.core.session.TransferSession;
@@ -12,19 +14,26 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -41,6 +50,8 @@ class DataSplitterTest {
     private AESCipher cipher;
     @Mock
     private TransferDataCache<List<String>> dataCache;
+    @Mock
+    private TransferDataCache<OutboundPayload> payloadCache;
 
     private DataSplitter splitter;
     private static final String TEST_SESSION_ID = "test-session-1";
@@ -57,6 +68,7 @@ class DataSplitterTest {
                 .dataCache(dataCache)
                 .maxQRDataSize(MAX_QR_SIZE)
                 .build();
+        lenient().when(protocol.maxChunkSize(anyInt())).thenReturn(1024);
     }
 
     @Test
@@ -66,7 +78,8 @@ class DataSplitterTest {
         var encryptedData = "encrypted-data".getBytes(StandardCharsets.UTF_8);
         when(compressor.compress(TEST_DATA.getBytes(StandardCharsets.UTF_8))).thenReturn(compressedData);
         when(cipher.encrypt(compressedData)).thenReturn(encryptedData);
-        when(protocol.packetToQRCode(any())).thenReturn("qr-code-data");
+        when(protocol.chunkToQRCode(any(), anyInt(), any(), anyInt(), anyInt()))
+                .thenReturn("qr-code-data");
         when(sessionManager.createSession(anyString(), anyInt(), anyInt()))
                 .thenReturn(new TransferSession(TEST_SESSION_ID, 1, encryptedData.length));
 
@@ -79,6 +92,72 @@ class DataSplitterTest {
         verify(sessionManager).createSession(TEST_SESSION_ID, 1, encryptedData.length);
     }
 
+    @Test
+    void shouldKeepFrameOrderWhenSplittingInParallel() {
+        // given
+        var parallelSplitter = splitter.toBuilder()
+                .parallelThreshold(1)
+                .splitExecutor(Executors.newFixedThreadPool(4))
+                .build();
+        var compressedData = new byte[5000];
+        var encryptedData = new byte[5000];
+        when(compressor.compress(any())).thenReturn(compressedData);
+        when(cipher.encrypt(compressedData)).thenReturn(encryptedData);
+        when(protocol.chunkToQRCode(any(), anyInt(), any(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> "qr-" + invocation.getArgument(1));
+
+        // when
+        List<String> result = parallelSplitter.split(TEST_DATA, TEST_SESSION_ID);
+
+        // then
+        assertThat(result).containsExactly("qr-0", "qr-1", "qr-2", "qr-3", "qr-4");
+        verify(sessionManager).createSession(TEST_SESSION_ID, 5, encryptedData.length);
+    }
+
+    @Test
+    void shouldReuseEncryptedPayloadForRepeatedData() {
+        // given
+        var dedupSplitter = splitter.toBuilder()
+                .digestCache(new TransferDataCache<>("out:digests", new ConcurrentMapCacheManager()))
+                .build();
+        var compressedData = "compressed-data".getBytes(StandardCharsets.UTF_8);
+        var encryptedData = "encrypted-data".getBytes(StandardCharsets.UTF_8);
+        when(compressor.compress(TEST_DATA.getBytes(StandardCharsets.UTF_8))).thenReturn(compressedData);
+        when(cipher.encrypt(compressedData)).thenReturn(encryptedData);
+        when(protocol.chunkToQRCode(any(), anyInt(), any(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> "qr-" + ((ChunkLayout) invocation.getArgument(0)).getSessionId());
+
+        // when
+        List<String> first = dedupSplitter.split(TEST_DATA, TEST_SESSION_ID);
+        List<String> second = dedupSplitter.split(TEST_DATA, "test-session-2");
+
+        // then
+        assertThat(first).containsExactly("qr-" + TEST_SESSION_ID);
+        assertThat(second).containsExactly("qr-test-session-2");
+        verify(compressor, times(1)).compress(any(byte[].class));
+        verify(cipher, times(1)).encrypt(any(byte[].class));
+        verify(sessionManager).createSession("test-session-2", 1, encryptedData.length);
+    }
+
+    @Test
+    void shouldSkipCompressionForHighEntropyData() {
+        // given
+        var randomData = new byte[8 * 1024];
+        new Random(1).nextBytes(randomData);
+        var encryptedData = new byte[randomData.length + 16];
+        when(cipher.encrypt(randomData)).thenReturn(encryptedData);
+        when(protocol.chunkToQRCode(any(), anyInt(), any(), anyInt(), anyInt()))
+                .thenReturn("qr-code-data");
+
+        // when
+        splitter.split(randomData, TEST_SESSION_ID);
+
+        // then
+        verify(compressor, never()).compress(any(byte[].class));
+        verify(protocol, times(9)).chunkToQRCode(
+                argThat(layout -> layout.getFlags() == PacketHeader.FLAG_RAW), anyInt(), any(), anyInt(), anyInt());
+    }
+
     @Test
     void shouldThrowExceptionWhenDataIsEmpty() {
         assertThatThrownBy(() -> splitter.split("", TEST_SESSION_ID))
@@ -104,6 +183,66 @@ class DataSplitterTest {
                 .containsExactly("packet1", "packet3");
     }
 
+    @Test
+    void shouldCacheEncryptedPayloadInRegenerateMode() {
+        // given
+        var regenerateSplitter = regenerateSplitter();
+        var compressedData = "compressed-data".getBytes(StandardCharsets.UTF_8);
+        var encryptedData = "encrypted-data".getBytes(StandardCharsets.UTF_8);
+        when(compressor.compress(any())).thenReturn(compressedData);
+        when(cipher.encrypt(compressedData)).thenReturn(encryptedData);
+        when(protocol.chunkToQRCode(any(), anyInt(), any(), anyInt(), anyInt()))
+                .thenReturn("qr-code-data");
+
+        // when
+        List<String> result = regenerateSplitter.split(TEST_DATA, TEST_SESSION_ID);
+
+        // then
+        assertThat(result).containsExactly("qr-code-data");
+        verify(payloadCache).store(eq(TEST_SESSION_ID), argThat(payload ->
+                payload.getEncryptedData() == encryptedData && payload.getTotalChunks() == 1));
+        verify(dataCache, never()).store(anyString(), anyList());
+    }
+
+    @Test
+    void shouldRegenerateChunksOnRetransmit() {
+        // given
+        var regenerateSplitter = regenerateSplitter();
+        byte[] encryptedData = new byte[10];
+        when(sessionManager.getSession(TEST_SESSION_ID))
+                .thenReturn(new TransferSession(TEST_SESSION_ID, 3, encryptedData.length));
+        when(payloadCache.get(TEST_SESSION_ID)).thenReturn(Optional.of(OutboundPayload.builder()
+                .sessionId(TEST_SESSION_ID)
+                .encryptedData(encryptedData)
+                .chunkSize(4)
+                .totalChunks(3)
+                .build()));
+        var layout = ChunkLayout.builder()
+                .sessionId(TEST_SESSION_ID)
+                .totalChunks(3)
+                .chunkSize(4)
+                .totalSize(10)
+                .build();
+        when(protocol.chunkToQRCode(layout, 0, encryptedData, 0, 4)).thenReturn("frame-0");
+        when(protocol.chunkToQRCode(layout, 2, encryptedData, 8, 2)).thenReturn("frame-2");
+
+        // when
+        List<String> result = regenerateSplitter.retransmit(TEST_SESSION_ID, List.of(2, 0));
+
+        // then
+        assertThat(result).containsExactly("frame-2", "frame-0");
+        assertThatThrownBy(() -> regenerateSplitter.retransmit(TEST_SESSION_ID, List.of(3)))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("Chunk 3 not found");
+    }
+
+    private DataSplitter regenerateSplitter() {
+        return splitter.toBuilder()
+                .payloadCache(payloadCache)
+                .retransmitMode(DataSplitter.RetransmitMode.REGENERATE)
+                .build();
+    }
+
     @Test
     void shouldThrowExceptionWhenSessionDataNotFound() {
         // given
@@ -0,0 +1,122 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.cache.TransferDataCache;
+import com.github.xioshe.net.channels.core.delta.FileBlockIndex;
+import com.github.xioshe.net.channels.core.delta.FileBlockStore;
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.AckFrame;
+import com.github.xioshe.net.channels.core.model.PacketHeader;
+import com.github.xioshe.net.channels.core.model.TransferResult;
+import com.github.xioshe.net.channels.core.protocol.AckFrameCodec;
+import com.github.xioshe.net.channels.core.session.TimestampSessionIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.github.xioshe.net.channels.core.transfer.TransferFixture.randomText;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeltaTransferTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final TransferFixture fixture = new TransferFixture();
+    private DataSplitter splitter;
+    private DataAssembler assembler;
+
+    @BeforeEach
+    void setUp() {
+        splitter = fixture.splitter()
+                .blockIndex(new FileBlockIndex(tempDir.resolve("sent.idx")))
+                .build();
+        assembler = fixture.assembler()
+                .blockStore(new FileBlockStore(tempDir.resolve("blocks")))
+                .build();
+    }
+
+    @Test
+    void shouldTransferOnlyChangedBlocksOfUpdatedFile() {
+        String original = randomText(400_000);
+        String updated = original.substring(0, 200_000) + "-- appended line --" + original.substring(200_000);
+
+        List<String> firstFrames = splitter.splitDelta(original.getBytes(StandardCharsets.UTF_8));
+        assertThat(assembleAndConfirm(firstFrames).getData()).isEqualTo(original);
+
+        List<String> secondFrames = splitter.splitDelta(updated.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(secondFrames.size()).isLessThan(firstFrames.size() / 10);
+        assertThat(assembleAndConfirm(secondFrames).getData()).isEqualTo(updated);
+    }
+
+    @Test
+    void shouldNotReferenceBlocksOfUnconfirmedSession() {
+        String original = randomText(200_000);
+        byte[] data = original.getBytes(StandardCharsets.UTF_8);
+
+        // 第一次传输没有展示给接收端，分块不会记为已持有
+        List<String> abandoned = splitter.splitDelta(data);
+        List<String> frames = splitter.splitDelta(data);
+
+        assertThat(frames).hasSameSizeAs(abandoned);
+        assertThat(assembleAndConfirm(frames).getData()).isEqualTo(original);
+        assertThat(splitter.splitDelta(data).size()).isLessThan(frames.size());
+    }
+
+    @Test
+    void shouldNotAcknowledgeSessionWhenReferencedBlocksAreMissing() {
+        String original = randomText(200_000);
+        byte[] data = original.getBytes(StandardCharsets.UTF_8);
+        assembleAndConfirm(splitter.splitDelta(data));
+
+        // 接收端换了一个空的分块存储
+        var emptyStore = fixture.assembler()
+                .blockStore(new FileBlockStore(tempDir.resolve("empty")))
+                .build();
+        List<String> frames = splitter.splitDelta(data);
+        PacketHeader header = fixture.getProtocol().qrCodeToPacket(frames.get(0)).getHeader();
+
+        assertThatThrownBy(() -> frames.forEach(emptyStore::assemble))
+                .isInstanceOf(NetChannelsException.class)
+                .rootCause()
+                .hasMessageContaining("Missing");
+        // 无法还原的会话被丢弃，确认帧不报告完成，发送端不会提交这些分块
+        TransferResult failed = TransferResult.builder()
+                .status(TransferResult.TransferStatus.IN_PROGRESS)
+                .sessionId(header.getSessionId())
+                .totalChunks(header.getTotalChunks())
+                .build();
+        AckFrame ack = AckFrameCodec.decode(emptyStore.acknowledge(failed));
+        assertThat(ack.isComplete()).isFalse();
+        assertThat(ack.receivedCount()).isZero();
+        assertThat(splitter.confirm(ack)).isFalse();
+        assertThat(new TransferDataCache<>("in:packets", fixture.getCacheManager()).get(header.getSessionId())).isEmpty();
+    }
+
+    @Test
+    void shouldRejectDeltaSplitWithoutBlockIndex() {
+        var plainSplitter = DataSplitter.builder()
+                .sessionIdGenerator(new TimestampSessionIdGenerator())
+                .build();
+
+        assertThatThrownBy(() -> plainSplitter.splitDelta("data".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("not enabled");
+    }
+
+    private TransferResult assembleAndConfirm(List<String> frames) {
+        TransferResult result = null;
+        for (String frame : frames) {
+            result = assembler.assemble(frame);
+        }
+        assertThat(result).isNotNull();
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(splitter.confirm(AckFrameCodec.decode(assembler.acknowledge(result)))).isTrue();
+        return result;
+    }
+}
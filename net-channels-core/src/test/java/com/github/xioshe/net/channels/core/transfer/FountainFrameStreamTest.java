@@ -0,0 +1,82 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.cache.TransferDataCache;
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.fountain.FountainDecoder;
+import com.github.xioshe.net.channels.core.model.PacketHeader;
+import com.github.xioshe.net.channels.core.model.TransferResult;
+import com.github.xioshe.net.channels.core.protocol.QRCodeProtocol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static com.github.xioshe.net.channels.core.transfer.TransferFixture.randomText;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FountainFrameStreamTest {
+
+    private final TransferFixture fixture = new TransferFixture();
+    private final QRCodeProtocol protocol = fixture.getProtocol();
+    private DataSplitter splitter;
+    private DataAssembler assembler;
+
+    @BeforeEach
+    void setUp() {
+        splitter = fixture.splitter().maxQRDataSize(800).build();
+        assembler = assembler(new TransferDataCache<>("in:fountain", fixture.getCacheManager()));
+    }
+
+    @Test
+    void shouldAssembleWithoutRetransmitWhenFramesAreDropped() {
+        String data = randomText(30_000);
+        FountainFrameStream stream = splitter.splitFountain(data.getBytes(StandardCharsets.UTF_8));
+        Random loss = new Random(7);
+
+        TransferResult result = null;
+        int shown = 0;
+        while (result == null || !result.isCompleted()) {
+            String frame = stream.next();
+            shown++;
+            assertThat(shown).isLessThan(stream.getTotalChunks() * 3);
+            // 模拟扫码时丢失约 25% 的帧
+            if (loss.nextDouble() < 0.25) {
+                continue;
+            }
+            result = assembler.assemble(frame);
+        }
+
+        assertThat(shown).isGreaterThan(stream.getTotalChunks());
+        assertThat(result.getData()).isEqualTo(data);
+    }
+
+    @Test
+    void shouldMarkFramesAsFountainSymbols() {
+        FountainFrameStream stream = splitter.splitFountain(randomText(10_000).getBytes(StandardCharsets.UTF_8));
+        int totalChunks = stream.getTotalChunks();
+
+        String repair = stream.frame(totalChunks + 5);
+        PacketHeader header = protocol.qrCodeToPacket(repair).getHeader();
+
+        assertThat(header.hasFlag(PacketHeader.FLAG_FOUNTAIN)).isTrue();
+        assertThat(header.getCurrentChunk()).isEqualTo(totalChunks + 5);
+        assertThat(header.getTotalChunks()).isEqualTo(totalChunks);
+        assertThat(protocol.validatePacket(protocol.qrCodeToPacket(repair))).isTrue();
+        assertThat(stream.stream().limit(3).toList()).containsExactly(stream.frame(0), stream.frame(1), stream.frame(2));
+    }
+
+    @Test
+    void shouldRejectFountainFramesWithoutDecoderCache() {
+        String frame = splitter.splitFountain("data".getBytes(StandardCharsets.UTF_8)).next();
+
+        assertThatThrownBy(() -> assembler(null).assemble(frame))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("not enabled");
+    }
+
+    private DataAssembler assembler(TransferDataCache<FountainDecoder> fountainCache) {
+        return fixture.assembler().fountainCache(fountainCache).build();
+    }
+}
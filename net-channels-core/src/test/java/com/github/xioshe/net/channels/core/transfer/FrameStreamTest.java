@@ -0,0 +1,178 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.cache.TransferDataCache;
+import com.github.xioshe.net.channels.core.model.AckFrame;
+import com.github.xioshe.net.channels.core.model.TransferResult;
+import com.github.xioshe.net.channels.core.protocol.AckFrameCodec;
+import com.github.xioshe.net.channels.core.session.TimestampSessionIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.github.xioshe.net.channels.core.transfer.TransferFixture.randomText;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FrameStreamTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    private final TransferFixture fixture = new TransferFixture();
+    private DataSplitter splitter;
+    private DataAssembler assembler;
+
+    @BeforeEach
+    void setUp() {
+        splitter = fixture.splitter().spoolDirectory(spoolDirectory).build();
+        assembler = fixture.assembler().build();
+    }
+
+    @Test
+    void shouldProduceSameFramesAsArraySplit() {
+        String data = randomText(200_000);
+        String sessionId = new TimestampSessionIdGenerator().generate();
+
+        List<String> expected = splitter.split(data, sessionId);
+        try (FrameStream stream = splitter.split(
+                new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)), new TimestampSessionIdGenerator().generate())) {
+            List<String> frames = stream.stream().toList();
+
+            assertThat(frames).hasSize(expected.size());
+            assertThat(stream.getTotalChunks()).isEqualTo(expected.size());
+        }
+    }
+
+    @Test
+    void shouldAssembleStreamedFrames() throws Exception {
+        String data = randomText(100_000);
+        FrameStream stream = splitter.split(Channels.newChannel(
+                new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8))));
+
+        TransferResult result = null;
+        while (stream.hasNext()) {
+            result = assembler.assemble(stream.next());
+        }
+        stream.close();
+
+        assertThat(result).isNotNull();
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getData()).isEqualTo(data);
+        try (var files = Files.list(spoolDirectory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldRetransmitFromAckFrame() {
+        String data = randomText(100_000);
+        List<String> frames = splitter.split(data.getBytes(StandardCharsets.UTF_8));
+        TransferResult result = null;
+        for (int i = 0; i < frames.size(); i++) {
+            if (i != 2 && i != 5 && i != 6) {
+                result = assembler.assemble(frames.get(i));
+            }
+        }
+
+        AckFrame ack = AckFrameCodec.decode(assembler.acknowledge(result));
+        assertThat(ack.getMissingChunks()).containsExactly(2, 5, 6);
+
+        for (String frame : splitter.retransmit(ack)) {
+            result = assembler.assemble(frame);
+        }
+        assertThat(result.getData()).isEqualTo(data);
+        assertThat(AckFrameCodec.decode(assembler.acknowledge(result)).isComplete()).isTrue();
+    }
+
+    @Test
+    void shouldPackRetransmitsIntoFewerFrames() {
+        String data = randomText(100_000);
+        DataSplitter small = splitter.withFrameCapacity(600);
+        List<String> frames = small.split(data.getBytes(StandardCharsets.UTF_8));
+        int last = frames.size() - 1;
+        List<Integer> dropped = List.of(1, 2, 3, 7, last);
+        TransferResult result = null;
+        for (int i = 0; i < frames.size(); i++) {
+            if (!dropped.contains(i)) {
+                result = assembler.assemble(frames.get(i));
+            }
+        }
+        AckFrame ack = AckFrameCodec.decode(assembler.acknowledge(result));
+
+        // 以更大的帧重传：缺失的 5 个分片装入一帧
+        List<String> packed = small.retransmitPacked(ack, 2953);
+        assertThat(packed).hasSize(1);
+        assertThat(packed.get(0).length()).isLessThanOrEqualTo(2953);
+        // 以原容量重传：各分片已均分到接近帧容量，打包的帧数不会少于分片数，按普通分片重传
+        List<String> original = small.retransmitPacked(ack, 600);
+        assertThat(original).hasSameSizeAs(dropped)
+                .allSatisfy(frame -> assertThat(frame.length()).isLessThanOrEqualTo(600));
+
+        result = assembler.assemble(packed.get(0));
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getData()).isEqualTo(data);
+    }
+
+    @Test
+    void shouldRetransmitWithSmallerFramesThanChunks() {
+        String data = randomText(100_000);
+        DataSplitter regenerating = fixture.splitter()
+                .retransmitMode(DataSplitter.RetransmitMode.REGENERATE)
+                .payloadCache(new TransferDataCache<>("out:payloads", fixture.getCacheManager()))
+                .build()
+                .withFrameCapacity(600);
+        List<String> frames = regenerating.split(data.getBytes(StandardCharsets.UTF_8));
+        int last = frames.size() - 1;
+        List<Integer> dropped = List.of(2, 5, 6, last);
+        TransferResult result = null;
+        for (int i = 0; i < frames.size(); i++) {
+            if (!dropped.contains(i)) {
+                result = assembler.assemble(frames.get(i));
+            }
+        }
+        AckFrame ack = AckFrameCodec.decode(assembler.acknowledge(result));
+
+        // 帧参数调低后原分片装不进一帧，按字节范围切分到多个小帧
+        List<String> packed = regenerating.retransmitPacked(ack, 300);
+        assertThat(packed.size()).isGreaterThan(dropped.size());
+        assertThat(packed).allSatisfy(frame -> assertThat(frame.length()).isLessThanOrEqualTo(300));
+
+        // 分片的全部字节都到达之前不算接收
+        for (String frame : packed.subList(0, packed.size() - 1)) {
+            result = assembler.assemble(frame);
+        }
+        assertThat(result.isCompleted()).isFalse();
+        assertThat(result.getMissingChunks()).containsExactly(last);
+
+        result = assembler.assemble(packed.get(packed.size() - 1));
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getData()).isEqualTo(data);
+    }
+
+    @Test
+    void shouldServeRandomAccessFrames() {
+        String data = randomText(50_000);
+        try (FrameStream stream = splitter.split(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)))) {
+            String first = stream.next();
+            String last = stream.frame(stream.getTotalChunks() - 1);
+
+            assertThat(stream.frame(0)).isEqualTo(first);
+            assertThat(last).isNotEqualTo(first);
+            assertThatThrownBy(() -> stream.frame(stream.getTotalChunks()))
+                    .hasMessageContaining("not found");
+        }
+    }
+
+    @Test
+    void shouldRejectEmptyStream() {
+        assertThatThrownBy(() -> splitter.split(new ByteArrayInputStream(new byte[0])))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
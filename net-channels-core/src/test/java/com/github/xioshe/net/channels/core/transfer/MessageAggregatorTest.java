@@ -0,0 +1,176 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.model.TransferResult;
+import com.github.xioshe.net.channels.core.session.TimestampSessionIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class MessageAggregatorTest {
+
+    private DataSplitter splitter;
+    private DataAssembler assembler;
+    private final List<List<String>> sessions = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        var fixture = new TransferFixture();
+        splitter = fixture.splitter().maxQRDataSize(800).build();
+        assembler = fixture.assembler().build();
+    }
+
+    @Test
+    void shouldSendOneSessionWhenByteWindowIsReached() {
+        List<String> messages = List.of(message(1), message(2), message(3));
+        int windowBytes = messages.get(0).length() * 3;
+
+        try (var aggregator = new MessageAggregator(splitter, Duration.ofMinutes(1), windowBytes,
+                (sessionId, frames) -> sessions.add(frames))) {
+            aggregator.offer(messages.get(0));
+            aggregator.offer(messages.get(1));
+            assertThat(sessions).isEmpty();
+
+            aggregator.offer(messages.get(2));
+        }
+
+        assertThat(sessions).hasSize(1);
+        assertThat(assemble(sessions.get(0)).getRecords()).containsExactlyElementsOf(messages);
+    }
+
+    @Test
+    void shouldFlushWhenTimeWindowElapses() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        try (var aggregator = new MessageAggregator(splitter, Duration.ofMillis(50), 1024 * 1024,
+                (sessionId, frames) -> {
+                    sessions.add(frames);
+                    latch.countDown();
+                })) {
+            aggregator.offer(message(1));
+            aggregator.offer(message(2));
+
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(sessions).hasSize(1);
+        TransferResult result = assemble(sessions.get(0));
+        assertThat(result.getRecords()).containsExactly(message(1), message(2));
+        assertThat(result.getData()).isNull();
+    }
+
+    @Test
+    void shouldRetryBatchAfterFailedSplit() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        List<String> messages = List.of(message(1), message(2), message(3));
+        int windowBytes = messages.get(0).length() * 2;
+        DataSplitter failingOnce = spy(splitter);
+        doThrow(new IllegalStateException("cache unavailable")).doCallRealMethod()
+                .when(failingOnce).splitRecords(anyList(), anyString());
+
+        try (var aggregator = new MessageAggregator(failingOnce, Duration.ofMillis(50), windowBytes,
+                (sessionId, frames) -> {
+                    sessions.add(frames);
+                    latch.countDown();
+                })) {
+            aggregator.offer(messages.get(0));
+            // 达到字节上限，拆分失败不会抛给触发发送的生产者
+            aggregator.offer(messages.get(1));
+            aggregator.offer(messages.get(2));
+
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        // 失败的批次单独重试，不与之后的消息合并
+        assertThat(sessions).hasSize(2);
+        assertThat(assemble(sessions.get(0)).getRecords()).containsExactlyElementsOf(messages.subList(0, 2));
+        assertThat(assemble(sessions.get(1)).getRecords()).containsExactly(messages.get(2));
+    }
+
+    @Test
+    void shouldNotResplitWhenFrameSinkFailsAndDropBatchAfterMaxAttempts() {
+        AtomicInteger delivered = new AtomicInteger();
+        var aggregator = new MessageAggregator(splitter, Duration.ofMinutes(1), 1024 * 1024,
+                (sessionId, frames) -> {
+                    delivered.incrementAndGet();
+                    throw new IllegalStateException("display unavailable");
+                });
+        aggregator.offer(message(1));
+
+        // 会话已经拆分，展示失败不再重新拆分成第二个会话
+        assertThatThrownBy(aggregator::flush).hasMessageContaining("display unavailable");
+        aggregator.flush();
+        assertThat(delivered).hasValue(1);
+
+        DataSplitter failing = spy(splitter);
+        doThrow(new IllegalStateException("cache unavailable"))
+                .when(failing).splitRecords(anyList(), anyString());
+        var retrying = new MessageAggregator(failing, Duration.ofMinutes(1), 1024 * 1024,
+                (sessionId, frames) -> sessions.add(frames));
+        retrying.offer(message(1));
+        for (int attempt = 0; attempt < MessageAggregator.MAX_ATTEMPTS; attempt++) {
+            assertThatThrownBy(retrying::flush).hasMessageContaining("cache unavailable");
+        }
+        retrying.flush();
+
+        verify(failing, times(MessageAggregator.MAX_ATTEMPTS)).splitRecords(anyList(), anyString());
+        assertThat(sessions).isEmpty();
+        aggregator.close();
+        retrying.close();
+    }
+
+    @Test
+    void shouldUseFewerFramesThanSeparateSessions() {
+        List<String> messages = List.of(message(1), message(2), message(3), message(4), message(5));
+        int separateFrames = 0;
+        for (String message : messages) {
+            separateFrames += splitter.split(message, new TimestampSessionIdGenerator().generate()).size();
+        }
+
+        try (var aggregator = new MessageAggregator(splitter, (sessionId, frames) -> sessions.add(frames))) {
+            messages.forEach(aggregator::offer);
+        }
+
+        assertThat(sessions).hasSize(1);
+        assertThat(sessions.get(0).size()).isLessThan(separateFrames);
+    }
+
+    @Test
+    void shouldRejectMessagesAfterClose() {
+        var aggregator = new MessageAggregator(splitter, (sessionId, frames) -> sessions.add(frames));
+        aggregator.close();
+
+        assertThat(sessions).isEmpty();
+        assertThatThrownBy(() -> aggregator.offer(message(1)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private TransferResult assemble(List<String> frames) {
+        TransferResult result = null;
+        for (String frame : frames) {
+            result = assembler.assemble(frame);
+        }
+        assertThat(result).isNotNull();
+        assertThat(result.isCompleted()).isTrue();
+        return result;
+    }
+
+    private static String message(int id) {
+        return """
+                {"id":%d,"type":"order","status":"CREATED","amount":%d.50,"remark":"small json message %d"}"""
+                .formatted(id, id * 100, id);
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.PacketHeader;
+import com.github.xioshe.net.channels.core.model.TransferPacket;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PackedSegmentsTest {
+
+    // 10 个分片，每片 100 字节，最后一片 50 字节
+    private static final int CHUNK_SIZE = 100;
+    private static final int TOTAL_SIZE = 950;
+
+    @Test
+    void shouldMergeContiguousChunksAndRestoreThem() {
+        List<PackedSegments.Segment> chunks = List.of(chunk(2), chunk(3), chunk(4), chunk(7), chunk(9));
+
+        List<List<PackedSegments.Segment>> plan = PackedSegments.plan(chunks, 1000);
+        byte[] packed = PackedSegments.pack(plan.get(0));
+        List<PackedSegments.Segment> unpacked = PackedSegments.unpack(packed(packed));
+
+        // 3 段：[200, 500)、[700, 800)、[900, 950)
+        assertThat(plan).hasSize(1);
+        assertThat(packed).hasSize(PackedSegments.COUNT_SIZE + 3 * PackedSegments.SEGMENT_HEADER_SIZE + 450);
+        assertThat(unpacked).extracting(PackedSegments.Segment::getOffset).containsExactly(200, 700, 900);
+        assertThat(unpacked).extracting(PackedSegments.Segment::end).containsExactly(500, 800, 950);
+        assertThat(unpacked.get(0).getData()).startsWith(chunk(2).getData()).endsWith(chunk(4).getData());
+    }
+
+    @Test
+    void shouldSplitSegmentsAcrossFullFrames() {
+        List<PackedSegments.Segment> chunks = List.of(chunk(1), chunk(5), chunk(9));
+
+        // 每帧 120 字节，扣除段数和段头后一帧装 110 字节
+        List<List<PackedSegments.Segment>> plan = PackedSegments.plan(chunks, 120);
+
+        // 共 250 字节：第一帧 [100, 200) 和 [500, 502)，第二帧 [502, 600) 和 [900, 904)，第三帧 [904, 950)
+        assertThat(plan).hasSize(3);
+        assertThat(plan.get(0)).extracting(PackedSegments.Segment::getOffset).containsExactly(100, 500);
+        assertThat(plan.get(0)).extracting(PackedSegments.Segment::end).containsExactly(200, 502);
+        assertThat(plan.get(1)).extracting(PackedSegments.Segment::getOffset).containsExactly(502, 900);
+        assertThat(plan.get(2)).extracting(PackedSegments.Segment::getOffset).containsExactly(904);
+        for (List<PackedSegments.Segment> frame : plan) {
+            assertThat(PackedSegments.pack(frame).length).isLessThanOrEqualTo(120);
+        }
+        // 拆开的段按偏移拼回原数据
+        byte[] restored = new byte[TOTAL_SIZE];
+        plan.stream().flatMap(List::stream)
+                .forEach(segment -> System.arraycopy(segment.getData(), 0, restored, segment.getOffset(),
+                        segment.getData().length));
+        assertThat(Arrays.copyOfRange(restored, 500, 600)).isEqualTo(chunk(5).getData());
+    }
+
+    @Test
+    void shouldRejectSegmentsOutsideDataOrTruncated() {
+        byte[] outside = ByteBuffer.allocate(2 + 8 + 100).putShort((short) 1).putInt(900).putInt(100).array();
+        assertThatThrownBy(() -> PackedSegments.unpack(packed(outside)))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("exceeds total size");
+
+        byte[] forged = ByteBuffer.allocate(2 + 8).putShort((short) 1).putInt(0).putInt(Integer.MAX_VALUE).array();
+        assertThatThrownBy(() -> PackedSegments.unpack(packed(forged)))
+                .isInstanceOf(NetChannelsException.class);
+
+        byte[] packed = PackedSegments.pack(List.of(chunk(0), chunk(1)));
+        assertThatThrownBy(() -> PackedSegments.unpack(packed(Arrays.copyOf(packed, 120))))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("Truncated");
+    }
+
+    private static PackedSegments.Segment chunk(int index) {
+        byte[] data = new byte[Math.min(CHUNK_SIZE, TOTAL_SIZE - index * CHUNK_SIZE)];
+        Arrays.fill(data, (byte) index);
+        return new PackedSegments.Segment(index * CHUNK_SIZE, data);
+    }
+
+    private static TransferPacket packed(byte[] data) {
+        PacketHeader header = PacketHeader.builder()
+                .flags((byte) (PacketHeader.FLAG_RAW | PacketHeader.FLAG_PACKED))
+                .sessionId("session01")
+                .totalChunks(10)
+                .currentChunk(0)
+                .chunkSize(CHUNK_SIZE)
+                .totalSize(TOTAL_SIZE)
+                .checksum("00000000")
+                .build();
+        return new TransferPacket(header, data);
+    }
+}
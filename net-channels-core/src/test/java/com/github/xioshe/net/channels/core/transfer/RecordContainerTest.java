@@ -0,0 +1,37 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecordContainerTest {
+
+    @Test
+    void shouldRoundTripRecordsOfVariousLengths() {
+        List<byte[]> records = List.of(new byte[0], new byte[1], new byte[127], new byte[128], new byte[70_000]);
+        records.get(4)[69_999] = 42;
+
+        byte[] packed = RecordContainer.pack(records);
+        List<byte[]> unpacked = RecordContainer.unpack(packed);
+
+        // 长度前缀分别占 1、1、1、2、3 字节
+        assertThat(packed).hasSize(1 + 1 + 1 + 2 + 3 + 1 + 127 + 128 + 70_000);
+        assertThat(unpacked).hasSize(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertThat(unpacked.get(i)).isEqualTo(records.get(i));
+        }
+    }
+
+    @Test
+    void shouldRejectTruncatedContainer() {
+        byte[] packed = RecordContainer.pack(List.of(new byte[10]));
+
+        assertThatThrownBy(() -> RecordContainer.unpack(Arrays.copyOf(packed, 5)))
+                .isInstanceOf(NetChannelsException.class);
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.exception.NetChannelsException;
+import com.github.xioshe.net.channels.core.model.TransferResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.github.xioshe.net.channels.core.transfer.TransferFixture.randomText;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentedTransferTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DataSplitter splitter;
+    private DataAssembler assembler;
+
+    @BeforeEach
+    void setUp() {
+        var fixture = new TransferFixture();
+        splitter = fixture.splitter()
+                .spoolDirectory(tempDir)
+                .segmentSize(100 * 1024)
+                .build();
+        assembler = fixture.assembler()
+                .segmentWriter(new SegmentWriter(tempDir.resolve("received")))
+                .build();
+    }
+
+    @Test
+    void shouldAssembleSegmentsIntoFileInAnyOrder() throws IOException {
+        Path source = tempDir.resolve("image.bin");
+        Files.writeString(source, randomText(350 * 1024), StandardCharsets.UTF_8);
+
+        TransferResult result;
+        try (SegmentedTransfer transfer = splitter.splitSegments(source)) {
+            assertThat(transfer.getSegmentCount()).isEqualTo(4);
+            assertThat(transfer.getTotalSize()).isEqualTo(Files.size(source));
+
+            List<TransferResult> results = new ArrayList<>();
+            for (int index : new int[]{2, 0, 3, 1}) {
+                try (FrameStream segment = transfer.segment(index)) {
+                    segment.forEachRemaining(frame -> results.add(assembler.assemble(frame)));
+                }
+            }
+            result = results.get(results.size() - 1);
+            assertThat(results).filteredOn(TransferResult::isCompleted).hasSize(1);
+        }
+
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getTransferId()).isNotBlank();
+        assertThat(result.getFile()).hasSameBinaryContentAs(source);
+    }
+
+    @Test
+    void shouldSplitLaterSegmentsWithAdjustedFrameCapacity() throws IOException {
+        Path source = tempDir.resolve("adaptive.bin");
+        Files.writeString(source, randomText(250 * 1024), StandardCharsets.UTF_8);
+        DataSplitter smaller = splitter.withFrameCapacity(800);
+
+        TransferResult result = null;
+        try (SegmentedTransfer transfer = splitter.splitSegments(source)) {
+            for (int index = 0; index < transfer.getSegmentCount(); index++) {
+                try (FrameStream segment = index == 0 ? transfer.segment(index) : transfer.segment(index, smaller)) {
+                    while (segment.hasNext()) {
+                        String frame = segment.next();
+                        assertThat(frame.length()).isLessThanOrEqualTo(index == 0 ? 2953 : 800);
+                        result = assembler.assemble(frame);
+                    }
+                }
+            }
+        }
+
+        assertThat(result.isCompleted()).isTrue();
+        assertThat(result.getFile()).hasSameBinaryContentAs(source);
+    }
+
+    @Test
+    void shouldReportSegmentProgress() throws IOException {
+        Path source = tempDir.resolve("small.bin");
+        Files.writeString(source, randomText(150 * 1024), StandardCharsets.UTF_8);
+
+        try (SegmentedTransfer transfer = splitter.splitSegments(source);
+             FrameStream first = transfer.next()) {
+            TransferResult result = null;
+            while (first.hasNext()) {
+                result = assembler.assemble(first.next());
+            }
+
+            assertThat(result.getStatus()).isEqualTo(TransferResult.TransferStatus.IN_PROGRESS);
+            assertThat(result.getProgress()).isEqualTo(0.5);
+            assertThat(result.getTransferId()).isEqualTo(transfer.getTransferId());
+        }
+    }
+
+    @Test
+    void shouldRejectSegmentWithUnsafeTransferId() {
+        byte[] segment = SegmentHeader.builder()
+                .transferId("..")
+                .index(0)
+                .count(1)
+                .offset(0)
+                .totalSize(1)
+                .build()
+                .toBytes();
+        var writer = new SegmentWriter(tempDir.resolve("received"));
+
+        assertThatThrownBy(() -> writer.write(segment))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("Invalid transfer id");
+    }
+
+    @Test
+    void shouldIgnoreLateSegmentsOfCompletedTransfer() throws IOException {
+        Path received = tempDir.resolve("received");
+        var writer = new SegmentWriter(received);
+
+        writer.write(segment("t1", 0, 2, 8, "abcd"));
+        SegmentWriter.Progress done = writer.write(segment("t1", 1, 2, 8, "efgh"));
+        SegmentWriter.Progress late = writer.write(segment("t1", 0, 2, 8, "abcd"));
+
+        assertThat(done.isComplete()).isTrue();
+        assertThat(late.isComplete()).isFalse();
+        assertThat(late.getReceivedSegments()).isEqualTo(2);
+        assertThat(received.resolve("t1.part")).doesNotExist();
+        assertThat(Files.readString(done.getFile())).isEqualTo("abcdefgh");
+    }
+
+    @Test
+    void shouldRejectSegmentWithDifferentCount() {
+        var writer = new SegmentWriter(tempDir.resolve("received"));
+        writer.write(segment("t1", 0, 3, 12, "abcd"));
+
+        assertThatThrownBy(() -> writer.write(segment("t1", 1, 2, 12, "efgh")))
+                .isInstanceOf(NetChannelsException.class)
+                .hasMessageContaining("expected 3");
+        // 不一致的分段不计入进度
+        assertThat(writer.write(segment("t1", 1, 3, 12, "efgh")).getReceivedSegments()).isEqualTo(2);
+    }
+
+    private static byte[] segment(String transferId, int index, int count, long totalSize, String data) {
+        byte[] header = SegmentHeader.builder()
+                .transferId(transferId)
+                .index(index)
+                .count(count)
+                .offset(index * 4L)
+                .totalSize(totalSize)
+                .build()
+                .toBytes();
+        byte[] content = data.getBytes(StandardCharsets.US_ASCII);
+        byte[] segment = Arrays.copyOf(header, header.length + content.length);
+        System.arraycopy(content, 0, segment, header.length, content.length);
+        return segment;
+    }
+}
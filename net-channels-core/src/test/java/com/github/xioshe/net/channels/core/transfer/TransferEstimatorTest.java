@@ -0,0 +1,93 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.core.model.TransferEstimate;
+import com.github.xioshe.net.channels.core.protocol.ScannerProfile;
+import com.github.xioshe.net.channels.core.session.SessionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+
+import static com.github.xioshe.net.channels.core.transfer.TransferFixture.randomText;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TransferEstimatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SessionManager sessionManager;
+    private DataSplitter splitter;
+    private TransferEstimator estimator;
+
+    @BeforeEach
+    void setUp() {
+        var fixture = new TransferFixture();
+        sessionManager = fixture.getSessionManager();
+        splitter = fixture.splitter().scannerProfile(ScannerProfile.COMMERCIAL).build();
+        estimator = new TransferEstimator(splitter);
+    }
+
+    @Test
+    void shouldMatchSplitForSmallPayload() {
+        byte[] data = randomText(100 * 1024).getBytes(StandardCharsets.UTF_8);
+
+        TransferEstimate estimate = estimator.estimate(data);
+
+        assertThat(estimate.isExact()).isTrue();
+        assertThat(estimate.getTotalFrames()).isEqualTo(splitter.split(data).size());
+        assertThat(estimate.getFramesPerSecond()).isEqualTo(ScannerProfile.COMMERCIAL.getFramesPerSecond());
+        assertThat(estimate.getDuration())
+                .isEqualTo(Duration.ofMillis((long) Math.ceil(estimate.getTotalFrames() * 1000.0 / 6)));
+    }
+
+    @Test
+    void shouldPredictFrameCountOfLargePayloadFromSamples() {
+        byte[] data = randomText(4 * 1024 * 1024).getBytes(StandardCharsets.UTF_8);
+
+        TransferEstimate estimate = estimator.estimate(data);
+        int actual = splitter.split(data).size();
+
+        assertThat(estimate.isExact()).isFalse();
+        assertThat((double) estimate.getTotalFrames()).isCloseTo(actual, within(actual * 0.1));
+    }
+
+    @Test
+    void shouldUseRawSizeForIncompressibleData() {
+        byte[] data = new byte[50_000];
+        new Random(1).nextBytes(data);
+
+        TransferEstimate estimate = estimator.estimate(data);
+
+        assertThat(estimate.isCompressed()).isFalse();
+        assertThat(estimate.getPayloadSize()).isEqualTo(50_016);
+        assertThat(estimate.getTotalFrames()).isEqualTo(splitter.split(data).size());
+    }
+
+    @Test
+    void shouldEstimateMultiGigabyteFileWithoutReadingIt() throws IOException {
+        Path file = tempDir.resolve("large.bin");
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.write(randomText(1024).getBytes(StandardCharsets.UTF_8));
+            raf.setLength(3L * 1024 * 1024 * 1024);
+        }
+
+        long start = System.nanoTime();
+        TransferEstimate estimate = new TransferEstimator(splitter, 20).estimate(file);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertThat(estimate.getOriginalSize()).isEqualTo(Files.size(file));
+        assertThat(estimate.getTotalFrames()).isPositive();
+        assertThat(estimate.getFramesPerSecond()).isEqualTo(20);
+        assertThat(elapsedMillis).isLessThan(1000);
+        assertThat(sessionManager.getStats().getTotalCreated()).isZero();
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.xioshe.net.channels.core.transfer;
+
+import com.github.xioshe.net.channels.common.lock.config.LockProperties;
+import com.github.xioshe.net.channels.common.lock.core.LocalLockExecutor;
+import com.github.xioshe.net.channels.common.lock.template.LockTemplate;
+import com.github.xioshe.net.channels.core.cache.TransferDataCache;
+import com.github.xioshe.net.channels.core.compress.DataCompressor;
+import com.github.xioshe.net.channels.core.crypto.AESCipher;
+import com.github.xioshe.net.channels.core.protocol.QRCodeProtocol;
+import com.github.xioshe.net.channels.core.session.InMemorySessionStorage;
+import com.github.xioshe.net.channels.core.session.SessionManager;
+import com.github.xioshe.net.channels.core.session.TimestampSessionIdGenerator;
+import lombok.Getter;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * 端到端测试共用的发送端和接收端：两端共享会话管理、协议、压缩和密钥，
+ * 测试只需在返回的构建器上覆盖自己关心的选项
+ */
+@Getter
+public class TransferFixture {
+    private final SessionManager sessionManager = new SessionManager(new InMemorySessionStorage(Duration.ofMinutes(5)), 100);
+    private final QRCodeProtocol protocol = new QRCodeProtocol();
+    private final DataCompressor compressor = new DataCompressor();
+    private final AESCipher cipher = new AESCipher("1234567890123456");
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    /**
+     * 默认按最大二维码容量拆分，缓存已发送的帧
+     */
+    public DataSplitter.DataSplitterBuilder splitter() {
+        return DataSplitter.builder()
+                .sessionManager(sessionManager)
+                .protocol(protocol)
+                .compressor(compressor)
+                .cipher(cipher)
+                .sessionIdGenerator(new TimestampSessionIdGenerator())
+                .dataCache(new TransferDataCache<>("out:packets", cacheManager))
+                .maxQRDataSize(2953);
+    }
+
+    public DataAssembler.DataAssemblerBuilder assembler() {
+        return DataAssembler.builder()
+                .sessionManager(sessionManager)
+                .protocol(protocol)
+                .compressor(compressor)
+                .cipher(cipher)
+                .dataCache(new TransferDataCache<>("in:packets", cacheManager))
+                .lockTemplate(new LockTemplate(new LocalLockExecutor(), new LockProperties()));
+    }
+
+    /**
+     * 可压缩但不重复的文本，种子固定
+     */
+    public static String randomText(int length) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + random.nextInt(16)));
+        }
+        return builder.toString();
+    }
+}